@@ -2,10 +2,29 @@ package ru.moysklad.remap_1_2;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import ru.moysklad.remap_1_2.clients.EntityClient;
 import ru.moysklad.remap_1_2.clients.NotificationClient;
 import ru.moysklad.remap_1_2.entities.*;
@@ -24,12 +43,30 @@ import ru.moysklad.remap_1_2.entities.products.markers.ProductMarker;
 import ru.moysklad.remap_1_2.entities.products.markers.SingleProductMarker;
 import ru.moysklad.remap_1_2.responses.ListEntity;
 import ru.moysklad.remap_1_2.responses.metadata.CompanySettingsMetadata;
+import ru.moysklad.remap_1_2.utils.AdaptiveRateLimiter;
+import ru.moysklad.remap_1_2.utils.ApiCall;
+import ru.moysklad.remap_1_2.utils.ApiFuture;
+import ru.moysklad.remap_1_2.utils.DaemonThreadFactory;
+import ru.moysklad.remap_1_2.utils.IdleConnectionReaper;
 import ru.moysklad.remap_1_2.utils.NoAuthRedirectStrategy;
+import ru.moysklad.remap_1_2.utils.RateLimiter;
+import ru.moysklad.remap_1_2.utils.RetryPolicy;
 import ru.moysklad.remap_1_2.utils.json.*;
 
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_PARALLEL_REQUESTS;
+
 
 @Getter
-public final class ApiClient {
+public final class ApiClient implements Closeable {
+    /**
+     * Пул потоков по умолчанию для фоновых запросов. В нём не больше
+     * {@link ru.moysklad.remap_1_2.utils.Constants#MAX_PARALLEL_REQUESTS} потоков, остальные задачи ждут
+     * в очереди. Потоки создаются по требованию, завершаются после минуты простоя и не мешают
+     * завершению приложения
+     */
+    private static final ExecutorService DEFAULT_EXECUTOR = defaultExecutor();
+
     private final String host;
     private String login;
     private String password;
@@ -39,6 +76,72 @@ public final class ApiClient {
     private boolean pricePrecision = false;
     private boolean withoutWebhookContent = false;
 
+    /**
+     * Строки списков разбираются при первом обращении к ним
+     */
+    private boolean lazyLists = false;
+
+    /**
+     * Пул общих экземпляров ссылок в строках списков (<code>null</code>, если ссылки не объединяются)
+     */
+    @Getter(AccessLevel.NONE)
+    private ReferenceInterner referenceInterner;
+
+    /**
+     * Сжатие тел запросов и ответов gzip
+     */
+    private boolean compression = false;
+
+    /**
+     * Минимальный размер тела запроса в байтах, начиная с которого оно сжимается
+     */
+    private int compressionThreshold = 1024;
+
+    /**
+     * Экземпляр GSON, общий для всех запросов этого коннектора. Создаётся один раз (и заново только при
+     * вызове {@link #internReferences(boolean)} и {@link #lazyLists(boolean)}), так как Gson неизменяем,
+     * потокобезопасен и кэширует построенные адаптеры типов. Поле изменчиво, чтобы запросы из других потоков
+     * сразу видели экземпляр, созданный при смене настроек разбора
+     */
+    private volatile Gson gson = createGson();
+
+    /**
+     * Пул потоков, в котором выполняются фоновые запросы (например, упреждающая загрузка следующей
+     * страницы списка)
+     */
+    private Executor executor = DEFAULT_EXECUTOR;
+
+    /**
+     * Ограничитель запросов этого коннектора. Если не задан, используется ограничитель, общий для
+     * всех коннекторов с той же учётной записью
+     */
+    @Getter(AccessLevel.NONE)
+    private RateLimiter rateLimiter;
+
+    /**
+     * Общий ограничитель учётной записи коннектора. Запоминается при первом запросе и сбрасывается
+     * при смене данных доступа
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile RateLimiter accountRateLimiter;
+
+    /**
+     * Пул соединений HTTP-клиента, созданного коннектором (<code>null</code> для пользовательского клиента)
+     */
+    @Getter(AccessLevel.NONE)
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * Задача фонового закрытия простаивающих соединений пула коннектора
+     */
+    @Getter(AccessLevel.NONE)
+    private ScheduledFuture<?> connectionReaper;
+
+    /**
+     * Политика повтора запросов при временных ошибках
+     */
+    private RetryPolicy retryPolicy = new RetryPolicy();
+
     /**
      * Создаёт экземпляр коннектора API
      *
@@ -48,7 +151,7 @@ public final class ApiClient {
      * @param password   пароль пользователя
      */
     public ApiClient(String host, boolean forceHttps, String login, String password) {
-        this(host, forceHttps, login, password, createHttpClient());
+        this(builder(host).forceHttps(forceHttps).credentials(login, password));
     }
 
     /**
@@ -86,13 +189,27 @@ public final class ApiClient {
     }
 
     public static ApiClient createWithBearerToken(String host, boolean forceHttps, String token) {
-        return createWithBearerToken(host, forceHttps, token, createHttpClient());
+        return builder(host).forceHttps(forceHttps).token(token).build();
     }
 
-    private static CloseableHttpClient createHttpClient() {
-        return HttpClients.custom()
-                .setRedirectStrategy(new NoAuthRedirectStrategy())
-                .build();
+    private ApiClient(Builder builder) {
+        this(builder.host, builder.forceHttps, builder.login, builder.password, builder.client);
+        setToken(builder.token);
+
+        if (client == null) {
+            connectionManager = builder.createConnectionManager();
+            connectionReaper = IdleConnectionReaper.register(connectionManager, builder.idleTimeoutMillis, TimeUnit.MILLISECONDS);
+            client = builder.createHttpClient(connectionManager);
+        }
+    }
+
+    /**
+     * Создаёт билдер коннектора API с настройкой пула соединений
+     *
+     * @param host хост, на котором располагается API
+     */
+    public static Builder builder(String host) {
+        return new Builder(host);
     }
 
 
@@ -106,6 +223,7 @@ public final class ApiClient {
     public void setCredentials(String login, String password) {
         this.login = login;
         this.password = password;
+        this.accountRateLimiter = null;
     }
 
 
@@ -116,6 +234,7 @@ public final class ApiClient {
      */
     public void setToken(String token) {
         this.token = token;
+        this.accountRateLimiter = null;
     }
 
     /**
@@ -123,6 +242,32 @@ public final class ApiClient {
      */
     public void setHttpClient(CloseableHttpClient client) {
         this.client = client;
+        this.connectionManager = null;
+        stopConnectionReaper();
+    }
+
+    /**
+     * Статистика пула соединений: количество занятых, свободных соединений и ожидающих запросов.
+     * Возвращает <code>null</code>, если коннектор использует пользовательский HTTP-клиент
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager == null ? null : connectionManager.getTotalStats();
+    }
+
+    /**
+     * Закрывает HTTP-клиент коннектора вместе с пулом соединений
+     */
+    @Override
+    public void close() throws IOException {
+        stopConnectionReaper();
+        if (client != null) client.close();
+    }
+
+    private void stopConnectionReaper() {
+        if (connectionReaper != null) {
+            connectionReaper.cancel(false);
+            connectionReaper = null;
+        }
     }
 
     /**
@@ -159,6 +304,29 @@ public final class ApiClient {
      * вывод)
      */
     public static Gson createGson(boolean prettyPrinting) {
+        return createGson(prettyPrinting, null);
+    }
+
+    /**
+     * Создаёт экземпляр GSON с настроенными сериализаторами и десериализаторами
+     *
+     * @param prettyPrinting форматированный вывод
+     * @param interner       пул, через который объединяются ссылки на одни и те же сущности в строках
+     *                       списков, или <code>null</code> (см. {@link ReferenceInterner})
+     */
+    public static Gson createGson(boolean prettyPrinting, ReferenceInterner interner) {
+        return createGson(prettyPrinting, interner, false);
+    }
+
+    /**
+     * Создаёт экземпляр GSON с настроенными сериализаторами и десериализаторами
+     *
+     * @param prettyPrinting форматированный вывод
+     * @param interner       пул, через который объединяются ссылки на одни и те же сущности в строках
+     *                       списков, или <code>null</code> (см. {@link ReferenceInterner})
+     * @param lazyLists      разбирать строки списков, в том числе вложенных, при первом обращении к ним
+     */
+    public static Gson createGson(boolean prettyPrinting, ReferenceInterner interner, boolean lazyLists) {
         GsonBuilder gb = new GsonBuilder();
 
         if (prettyPrinting) {
@@ -181,10 +349,10 @@ public final class ApiClient {
 
         gb.registerTypeAdapter(DocumentEntity.class, new DocumentEntitySerializer());
         gb.registerTypeAdapter(Agent.class, new AgentDeserializer());
-        gb.registerTypeAdapter(Attribute.class, new AttributeSerializer());
+        gb.registerTypeAdapterFactory(new AttributeSerializer());
         gb.registerTypeAdapter(Currency.MultiplicityType.class, new Currency.MultiplicityType.Serializer());
         gb.registerTypeAdapter(Discount.class, new DiscountDeserializer());
-        gb.registerTypeAdapter(ListEntity.class, new ListEntityDeserializer());
+        gb.registerTypeAdapter(ListEntity.class, new ListEntityDeserializer(interner, lazyLists));
         gb.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeSerializer());
         gb.registerTypeAdapter(CompanySettingsMetadata.CustomEntityMetadata.class, new CustomEntityMetadataDeserializer());
         gb.registerTypeAdapter(Barcode.class, new Barcode.Serializer());
@@ -227,4 +395,312 @@ public final class ApiClient {
         this.withoutWebhookContent = without;
         return this;
     }
+
+    public ApiClient internReferences() {
+        return internReferences(true);
+    }
+
+    /**
+     * Включает объединение ссылок при разборе списков: вложенные сущности, у которых есть только
+     * метаданные (организация, склад, владелец, статус и т. п.), заменяются одним общим экземпляром на
+     * каждую сущность в пределах этого коннектора. Общие экземпляры нельзя изменять
+     * (см. {@link ReferenceInterner})
+     */
+    public ApiClient internReferences(boolean value) {
+        this.referenceInterner = value ? new ReferenceInterner() : null;
+        this.gson = createGson(false, referenceInterner, lazyLists);
+        return this;
+    }
+
+    public ApiClient lazyLists() {
+        return lazyLists(true);
+    }
+
+    /**
+     * Включает отложенный разбор списков: строки списков, в том числе вложенных (позиции документов,
+     * изображения товара, счета контрагента), разбираются при первом обращении к ним. Это ускоряет обработку
+     * больших выгрузок, в которых читается только часть полей, но до разбора строк в памяти хранится их JSON.
+     * Ошибка разбора строки выбрасывается при обращении к ней (<code>getRows().get(i)</code>), а не при
+     * выполнении запроса
+     */
+    public ApiClient lazyLists(boolean value) {
+        this.lazyLists = value;
+        this.gson = createGson(false, referenceInterner, lazyLists);
+        return this;
+    }
+
+    public ApiClient compression() {
+        return compression(true);
+    }
+
+    /**
+     * Включает сжатие gzip: запросы отправляются с заголовком <code>Accept-Encoding: gzip</code>,
+     * а тела запросов не меньше {@link #compressionThreshold(int)} байт сжимаются
+     * (<code>Content-Encoding: gzip</code>)
+     */
+    public ApiClient compression(boolean value) {
+        this.compression = value;
+        return this;
+    }
+
+    /**
+     * Устанавливает минимальный размер тела запроса в байтах, начиная с которого оно сжимается.
+     * Короткие тела отправляются без сжатия, так как выигрыш в размере не окупает затрат на сжатие
+     */
+    public ApiClient compressionThreshold(int bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Порог сжатия не может быть отрицательным!");
+        this.compressionThreshold = bytes;
+        return this;
+    }
+
+    /**
+     * Устанавливает пул потоков, в котором выполняются фоновые запросы. Пул по умолчанию общий для всех
+     * коннекторов, поэтому при работе с несколькими учётными записями одновременно стоит задать
+     * каждому коннектору свой пул
+     */
+    public ApiClient executor(Executor executor) {
+        if (executor == null) throw new IllegalArgumentException("Пул потоков не может быть null!");
+        this.executor = executor;
+        return this;
+    }
+
+    private static ExecutorService defaultExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_PARALLEL_REQUESTS, MAX_PARALLEL_REQUESTS,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new DaemonThreadFactory("moysklad-api")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Выполняет вызов API асинхронно в пуле потоков коннектора ({@link #executor(Executor)}). Например:
+     * <pre>
+     * CompletableFuture&lt;Product&gt; product = api.async(() -&gt; api.entity().product().get(id));
+     * </pre>
+     *
+     * @see ApiFuture
+     */
+    public <T> CompletableFuture<T> async(ApiCall<T> call) {
+        return ApiFuture.supplyAsync(call, executor);
+    }
+
+    /**
+     * Устанавливает ограничитель запросов этого коннектора
+     *
+     * @see RateLimiter#unlimited()
+     * @see AdaptiveRateLimiter
+     */
+    public ApiClient rateLimiter(RateLimiter rateLimiter) {
+        if (rateLimiter == null) throw new IllegalArgumentException("Ограничитель запросов не может быть null!");
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    /**
+     * Устанавливает политику повтора запросов при временных ошибках
+     *
+     * @see RetryPolicy#none()
+     */
+    public ApiClient retryPolicy(RetryPolicy retryPolicy) {
+        if (retryPolicy == null) throw new IllegalArgumentException("Политика повтора запросов не может быть null!");
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Ограничитель запросов коннектора. По умолчанию — {@link AdaptiveRateLimiter}, общий для всех
+     * коннекторов, которые работают с тем же хостом от имени той же учётной записи. Через него же
+     * можно узнать оставшийся лимит запросов ({@link RateLimiter#getRemaining()})
+     */
+    public RateLimiter getRateLimiter() {
+        if (rateLimiter != null) return rateLimiter;
+
+        RateLimiter limiter = accountRateLimiter;
+        if (limiter == null) {
+            limiter = AdaptiveRateLimiter.forAccount(accountKey(host + "#" + (isBlank(token) ? login : token)));
+            accountRateLimiter = limiter;
+        }
+        return limiter;
+    }
+
+    /**
+     * Хеш учётных данных, по которому общий ограничитель запросов находит учётную запись. Токен не
+     * хранится в статическом реестре ограничителей в открытом виде
+     */
+    private static String accountKey(String account) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(account.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Алгоритм SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Билдер коннектора API. Если HTTP-клиент не задан явно, создаётся клиент с пулом соединений,
+     * настройки которого по умолчанию соответствуют ограничениям API: не более
+     * {@link ru.moysklad.remap_1_2.utils.Constants#MAX_PARALLEL_REQUESTS} соединений с хостом API,
+     * таймауты соединения и чтения, ограниченное время жизни простаивающих соединений и проверка
+     * соединения перед повторным использованием. Простаивающие соединения закрываются в фоне
+     * ({@link IdleConnectionReaper})
+     */
+    public static final class Builder {
+        private final String host;
+        private boolean forceHttps = true;
+        private String login;
+        private String password;
+        private String token;
+        private CloseableHttpClient client;
+
+        private int maxConnections = 2 * MAX_PARALLEL_REQUESTS;
+        private int maxConnectionsPerRoute = MAX_PARALLEL_REQUESTS;
+        private int connectTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(10);
+        private int socketTimeoutMillis = (int) TimeUnit.MINUTES.toMillis(2);
+        private int connectionRequestTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(30);
+        private long keepAliveMillis = TimeUnit.SECONDS.toMillis(30);
+        private long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        private int validateAfterInactivityMillis = (int) TimeUnit.SECONDS.toMillis(2);
+
+        private Builder(String host) {
+            this.host = host;
+        }
+
+        /**
+         * Форсировать запросы через HTTPS (по умолчанию — <code>true</code>)
+         */
+        public Builder forceHttps(boolean forceHttps) {
+            this.forceHttps = forceHttps;
+            return this;
+        }
+
+        /**
+         * Логин в формате <code>[имя_пользователя]@[название_компании]</code> и пароль
+         */
+        public Builder credentials(String login, String password) {
+            this.login = login;
+            this.password = password;
+            return this;
+        }
+
+        /**
+         * Bearer токен авторизации
+         */
+        public Builder token(String token) {
+            this.token = token;
+            return this;
+        }
+
+        /**
+         * Пользовательский HTTP-клиент. Настройки пула соединений в этом случае не применяются
+         */
+        public Builder httpClient(CloseableHttpClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Максимальное количество соединений в пуле и максимальное количество соединений с одним хостом
+         */
+        public Builder maxConnections(int total, int perRoute) {
+            if (total <= 0 || perRoute <= 0) throw new IllegalArgumentException("Количество соединений должно быть положительным!");
+            this.maxConnections = total;
+            this.maxConnectionsPerRoute = perRoute;
+            return this;
+        }
+
+        /**
+         * Таймаут установки соединения
+         */
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = toIntMillis(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Таймаут ожидания данных от сервера
+         */
+        public Builder socketTimeout(long timeout, TimeUnit unit) {
+            this.socketTimeoutMillis = toIntMillis(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Таймаут ожидания свободного соединения в пуле
+         */
+        public Builder connectionRequestTimeout(long timeout, TimeUnit unit) {
+            this.connectionRequestTimeoutMillis = toIntMillis(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Максимальное время, в течение которого соединение сохраняется для повторного использования.
+         * Если сервер указал меньшее время в заголовке <code>Keep-Alive</code>, используется оно
+         */
+        public Builder keepAlive(long keepAlive, TimeUnit unit) {
+            if (keepAlive <= 0) throw new IllegalArgumentException("Время жизни соединения должно быть положительным!");
+            this.keepAliveMillis = unit.toMillis(keepAlive);
+            return this;
+        }
+
+        /**
+         * Время простоя, после которого соединение закрывается в фоне
+         */
+        public Builder idleTimeout(long idleTimeout, TimeUnit unit) {
+            if (idleTimeout <= 0) throw new IllegalArgumentException("Время простоя соединения должно быть положительным!");
+            this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+            return this;
+        }
+
+        /**
+         * Время простоя, после которого соединение проверяется перед повторным использованием
+         */
+        public Builder validateAfterInactivity(long inactivity, TimeUnit unit) {
+            this.validateAfterInactivityMillis = toIntMillis(inactivity, unit);
+            return this;
+        }
+
+        public ApiClient build() {
+            return new ApiClient(this);
+        }
+
+        private PoolingHttpClientConnectionManager createConnectionManager() {
+            PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+            manager.setMaxTotal(maxConnections);
+            manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            manager.setValidateAfterInactivity(validateAfterInactivityMillis);
+            manager.setDefaultSocketConfig(SocketConfig.custom()
+                    .setSoTimeout(socketTimeoutMillis)
+                    .setTcpNoDelay(true)
+                    .build()
+            );
+            return manager;
+        }
+
+        private CloseableHttpClient createHttpClient(PoolingHttpClientConnectionManager manager) {
+            long keepAlive = keepAliveMillis;
+            return HttpClients.custom()
+                    .setConnectionManager(manager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectTimeout(connectTimeoutMillis)
+                            .setSocketTimeout(socketTimeoutMillis)
+                            .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+                            .build()
+                    )
+                    .setKeepAliveStrategy((response, context) -> {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+                    })
+                    .setRedirectStrategy(new NoAuthRedirectStrategy())
+                    .build();
+        }
+
+        private static int toIntMillis(long value, TimeUnit unit) {
+            long millis = unit.toMillis(value);
+            if (millis < 0 || millis > Integer.MAX_VALUE) throw new IllegalArgumentException("Некорректное значение таймаута!");
+            return (int) millis;
+        }
+    }
 }
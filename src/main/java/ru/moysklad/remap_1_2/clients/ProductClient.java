@@ -3,7 +3,17 @@ package ru.moysklad.remap_1_2.clients;
 import ru.moysklad.remap_1_2.clients.endpoints.*;
 import ru.moysklad.remap_1_2.entities.MetaEntity;
 import ru.moysklad.remap_1_2.entities.products.Product;
+import ru.moysklad.remap_1_2.entities.views.ProductView;
+import ru.moysklad.remap_1_2.responses.ViewListEntity;
 import ru.moysklad.remap_1_2.responses.metadata.MetadataAttributeSharedPriceTypesResponse;
+import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
+import ru.moysklad.remap_1_2.utils.ViewPages;
+import ru.moysklad.remap_1_2.utils.params.ApiParam;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public final class ProductClient
         extends EntityClientBase
@@ -33,4 +43,28 @@ public final class ProductClient
         return MetadataAttributeSharedPriceTypesResponse.class;
     }
 
+    /**
+     * Список товаров в виде облегчённых моделей, в которых заполнены только указанные поля
+     *
+     * @see ProductView
+     */
+    @ApiEndpoint
+    public ViewListEntity<ProductView> getViews(Set<ProductView.Field> fields, ApiParam... params) throws IOException, ApiClientException {
+        return HttpRequestExecutor.
+                path(api(), path()).
+                apiParams(params).
+                list(ProductView.decoder(fields));
+    }
+
+    /**
+     * Загружает все страницы списка товаров в виде облегчённых моделей и передаёт их обработчику по мере
+     * загрузки, не накапливая в памяти
+     *
+     * @return количество прочитанных товаров
+     * @see ViewPages
+     */
+    @ApiEndpoint
+    public int forEachView(Set<ProductView.Field> fields, Consumer<? super ProductView> consumer, ApiParam... params) throws IOException, ApiClientException {
+        return ViewPages.forEach(api(), path(), ProductView.decoder(fields), consumer, params);
+    }
 }
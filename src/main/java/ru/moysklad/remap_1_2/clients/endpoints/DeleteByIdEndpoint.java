@@ -5,6 +5,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface DeleteByIdEndpoint extends Endpoint {
     @ApiEndpoint
@@ -18,4 +19,21 @@ public interface DeleteByIdEndpoint extends Endpoint {
     default void delete(MetaEntity entity) throws IOException, ApiClientException {
         delete(entity.getId());
     }
+
+    /**
+     * Асинхронный вариант {@link #delete(String)}
+     */
+    default CompletableFuture<Void> deleteAsync(String id) {
+        return api().async(() -> {
+            delete(id);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #delete(MetaEntity)}
+     */
+    default CompletableFuture<Void> deleteAsync(MetaEntity entity) {
+        return deleteAsync(entity.getId());
+    }
 }
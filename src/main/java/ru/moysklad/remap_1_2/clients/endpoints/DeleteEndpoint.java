@@ -4,6 +4,7 @@ import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface DeleteEndpoint extends Endpoint {
     @ApiEndpoint
@@ -12,4 +13,14 @@ public interface DeleteEndpoint extends Endpoint {
                 path(api(), path()).
                 delete();
     }
+
+    /**
+     * Асинхронный вариант {@link #delete()}
+     */
+    default CompletableFuture<Void> deleteAsync() {
+        return api().async(() -> {
+            delete();
+            return null;
+        });
+    }
 }
@@ -2,16 +2,22 @@ package ru.moysklad.remap_1_2.clients.endpoints;
 
 import ru.moysklad.remap_1_2.entities.documents.DocumentEntity;
 import ru.moysklad.remap_1_2.entities.documents.DocumentPosition;
+import ru.moysklad.remap_1_2.entities.views.PositionView;
 import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.responses.ViewListEntity;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
+import ru.moysklad.remap_1_2.utils.ViewPages;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
@@ -65,6 +71,41 @@ public interface DocumentPositionsEndpoint<T extends DocumentPosition> extends E
         return getPositions(document.getId(), params);
     }
 
+    /**
+     * Страница позиций документа в виде облегчённых моделей, в которых заполнены только указанные поля
+     *
+     * @see PositionView
+     */
+    @ApiEndpoint
+    default ViewListEntity<PositionView> getPositionViews(String documentId, Set<PositionView.Field> fields, ApiParam... params) throws IOException, ApiClientException {
+        return HttpRequestExecutor.
+                path(api(), path() + documentId + "/positions").
+                apiParams(params).
+                list(PositionView.decoder(fields));
+    }
+
+    @ApiEndpoint
+    default ViewListEntity<PositionView> getPositionViews(DocumentEntity document, Set<PositionView.Field> fields, ApiParam... params) throws IOException, ApiClientException {
+        return getPositionViews(document.getId(), fields, params);
+    }
+
+    /**
+     * Загружает все страницы позиций документа в виде облегчённых моделей и передаёт их обработчику по мере
+     * загрузки
+     *
+     * @return количество прочитанных позиций
+     * @see ViewPages
+     */
+    @ApiEndpoint
+    default int forEachPositionView(String documentId, Set<PositionView.Field> fields, Consumer<? super PositionView> consumer, ApiParam... params) throws IOException, ApiClientException {
+        return ViewPages.forEach(api(), path() + documentId + "/positions", PositionView.decoder(fields), consumer, params);
+    }
+
+    @ApiEndpoint
+    default int forEachPositionView(DocumentEntity document, Set<PositionView.Field> fields, Consumer<? super PositionView> consumer, ApiParam... params) throws IOException, ApiClientException {
+        return forEachPositionView(document.getId(), fields, consumer, params);
+    }
+
     @ApiEndpoint
     default T getPosition(String documentId, String positionId, ApiParam... params) throws IOException, ApiClientException {
         return HttpRequestExecutor.
@@ -121,5 +162,53 @@ public interface DocumentPositionsEndpoint<T extends DocumentPosition> extends E
         deletePosition(document, position.getId());
     }
 
+    /**
+     * Асинхронный вариант {@link #createPositions(String, List)}
+     */
+    default CompletableFuture<List<T>> createPositionsAsync(String documentId, List<T> updatedEntities) {
+        return api().async(() -> createPositions(documentId, updatedEntities));
+    }
+
+    /**
+     * Асинхронный вариант {@link #createPosition(String, DocumentPosition)}
+     */
+    default CompletableFuture<T> createPositionAsync(String documentId, T updatedEntity) {
+        return api().async(() -> createPosition(documentId, updatedEntity));
+    }
+
+    /**
+     * Асинхронный вариант {@link #getPositions(String, ApiParam...)}
+     */
+    default CompletableFuture<ListEntity<T>> getPositionsAsync(String documentId, ApiParam... params) {
+        return api().async(() -> getPositions(documentId, params));
+    }
+
+    /**
+     * Асинхронный вариант {@link #getPosition(String, String, ApiParam...)}
+     */
+    default CompletableFuture<T> getPositionAsync(String documentId, String positionId, ApiParam... params) {
+        return api().async(() -> getPosition(documentId, positionId, params));
+    }
+
+    /**
+     * Асинхронный вариант {@link #updatePosition(String, String, DocumentPosition)}
+     */
+    default CompletableFuture<Void> updatePositionAsync(String documentId, String positionId, T updatedEntity) {
+        return api().async(() -> {
+            updatePosition(documentId, positionId, updatedEntity);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #deletePosition(String, String)}
+     */
+    default CompletableFuture<Void> deletePositionAsync(String documentId, String positionId) {
+        return api().async(() -> {
+            deletePosition(documentId, positionId);
+            return null;
+        });
+    }
+
     Class<? extends DocumentPosition> documentPositionClass();
 }
@@ -5,14 +5,13 @@ import ru.moysklad.remap_1_2.entities.ExportRequest;
 import ru.moysklad.remap_1_2.entities.ExportRequest.ExportRequestItem;
 import ru.moysklad.remap_1_2.entities.Template;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
-import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
-import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
-
-import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
+import java.util.concurrent.CompletableFuture;
 
 public interface ExportEndpoint extends Endpoint {
     @ApiEndpoint
@@ -66,19 +65,109 @@ public interface ExportEndpoint extends Endpoint {
 
     @ApiEndpoint
     default void export(String id, ExportRequest exportRequest, File file, boolean addPrintDocumentContentHeader) throws IOException, ApiClientException {
-        if (exportRequest.getTemplate() != null) {
-            MetaHrefUtils.fillMeta(exportRequest.getTemplate(), api().getHost() + API_PATH);
-        } else if (exportRequest.getTemplates() != null) {
-            exportRequest.getTemplates()
-                .forEach(t -> MetaHrefUtils.fillMeta(t.getTemplate(), api().getHost() + API_PATH));
-        }
-        HttpRequestExecutor req = HttpRequestExecutor.
-                path(api(), path() + id + "/export/").
-                body(exportRequest);
+        ExportRequests.executor(this, id, exportRequest, addPrintDocumentContentHeader).postAndSaveTo(file);
+    }
+
+    /**
+     * Выполняет экспорт и записывает полученный файл в поток по мере загрузки, не сохраняя его в памяти.
+     * Поток не закрывается
+     *
+     * @return количество записанных байт
+     */
+    @ApiEndpoint
+    default long export(String id, ExportRequest exportRequest, OutputStream out, boolean addPrintDocumentContentHeader) throws IOException, ApiClientException {
+        return ExportRequests.executor(this, id, exportRequest, addPrintDocumentContentHeader).postAndWriteTo(out);
+    }
+
+    /**
+     * Выполняет экспорт и записывает полученный файл в канал по мере загрузки, не сохраняя его в памяти.
+     * Канал не закрывается
+     *
+     * @return количество записанных байт
+     */
+    @ApiEndpoint
+    default long export(String id, ExportRequest exportRequest, WritableByteChannel channel, boolean addPrintDocumentContentHeader) throws IOException, ApiClientException {
+        return ExportRequests.executor(this, id, exportRequest, addPrintDocumentContentHeader).postAndWriteTo(channel);
+    }
+
+    /**
+     * Асинхронный вариант {@link #export(String, Template, File)}
+     */
+    default CompletableFuture<File> exportAsync(String id, Template template, File file) {
+        return api().async(() -> {
+            export(id, template, file);
+            return file;
+        });
+    }
 
-        if (addPrintDocumentContentHeader) req.header("X-Lognex-Get-Content", "true");
+    /**
+     * Асинхронный вариант {@link #export(String, ExportRequest, File, boolean)}
+     */
+    default CompletableFuture<File> exportAsync(String id, ExportRequest exportRequest, File file, boolean addPrintDocumentContentHeader) {
+        return api().async(() -> {
+            export(id, exportRequest, file, addPrintDocumentContentHeader);
+            return file;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #export(String, Template, ExportExtension, File)}
+     */
+    default CompletableFuture<File> exportAsync(String id, Template template, ExportExtension extension, File file) {
+        return api().async(() -> {
+            export(id, template, extension, file);
+            return file;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #export(String, File, PrintRequest...)}
+     */
+    default CompletableFuture<File> exportAsync(String id, File file, PrintRequest... printRequests) {
+        return api().async(() -> {
+            export(id, file, printRequests);
+            return file;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #export(String, ExportRequest, File)}
+     */
+    default CompletableFuture<File> exportAsync(String id, ExportRequest exportRequest, File file) {
+        return api().async(() -> {
+            export(id, exportRequest, file);
+            return file;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #export(String, Template, File, boolean)}
+     */
+    default CompletableFuture<File> exportAsync(String id, Template template, File file, boolean addPrintDocumentContentHeader) {
+        return api().async(() -> {
+            export(id, template, file, addPrintDocumentContentHeader);
+            return file;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #export(String, Template, ExportExtension, File, boolean)}
+     */
+    default CompletableFuture<File> exportAsync(String id, Template template, ExportExtension extension, File file, boolean addPrintDocumentContentHeader) {
+        return api().async(() -> {
+            export(id, template, extension, file, addPrintDocumentContentHeader);
+            return file;
+        });
+    }
 
-        req.postAndSaveTo(file);
+    /**
+     * Асинхронный вариант {@link #export(String, File, boolean, PrintRequest...)}
+     */
+    default CompletableFuture<File> exportAsync(String id, File file, boolean addPrintDocumentContentHeader, PrintRequest... printRequests) {
+        return api().async(() -> {
+            export(id, file, addPrintDocumentContentHeader, printRequests);
+            return file;
+        });
     }
 
     public static class PrintRequest {
@@ -0,0 +1,35 @@
+package ru.moysklad.remap_1_2.clients.endpoints;
+
+import lombok.NoArgsConstructor;
+import ru.moysklad.remap_1_2.entities.ExportRequest;
+import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
+import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
+
+import static lombok.AccessLevel.PRIVATE;
+import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
+
+/**
+ * Подготовка запросов на экспорт для {@link ExportEndpoint}
+ */
+@NoArgsConstructor(access = PRIVATE)
+final class ExportRequests {
+    /**
+     * Подготавливает запрос на экспорт: заполняет метаданные шаблонов и заголовки
+     */
+    static HttpRequestExecutor executor(ExportEndpoint endpoint, String id, ExportRequest exportRequest, boolean addPrintDocumentContentHeader) {
+        String host = endpoint.api().getHost() + API_PATH;
+        if (exportRequest.getTemplate() != null) {
+            MetaHrefUtils.fillMeta(exportRequest.getTemplate(), host);
+        } else if (exportRequest.getTemplates() != null) {
+            exportRequest.getTemplates()
+                .forEach(t -> MetaHrefUtils.fillMeta(t.getTemplate(), host));
+        }
+        HttpRequestExecutor req = HttpRequestExecutor.
+                path(endpoint.api(), endpoint.path() + id + "/export/").
+                body(exportRequest);
+
+        if (addPrintDocumentContentHeader) req.header("X-Lognex-Get-Content", "true");
+
+        return req;
+    }
+}
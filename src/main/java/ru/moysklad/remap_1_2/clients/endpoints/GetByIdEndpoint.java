@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface GetByIdEndpoint<T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -20,4 +21,18 @@ public interface GetByIdEndpoint<T extends MetaEntity> extends Endpoint {
     default T get(MetaEntity entity, ApiParam... params) throws IOException, ApiClientException {
         return get(entity.getId(), params);
     }
+
+    /**
+     * Асинхронный вариант {@link #get(String, ApiParam...)}
+     */
+    default CompletableFuture<T> getAsync(String id, ApiParam... params) {
+        return api().async(() -> get(id, params));
+    }
+
+    /**
+     * Асинхронный вариант {@link #get(MetaEntity, ApiParam...)}
+     */
+    default CompletableFuture<T> getAsync(MetaEntity entity, ApiParam... params) {
+        return api().async(() -> get(entity, params));
+    }
 }
@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface GetBySyncIdEndpoint<T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -15,4 +16,11 @@ public interface GetBySyncIdEndpoint<T extends MetaEntity> extends Endpoint {
                 apiParams(params).
                 get((Class<T>) entityClass());
     }
+
+    /**
+     * Асинхронный вариант {@link #getBySyncId(String, ApiParam...)}
+     */
+    default CompletableFuture<T> getBySyncIdAsync(String syncId, ApiParam... params) {
+        return api().async(() -> getBySyncId(syncId, params));
+    }
 }
@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface GetEndpoint<T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -15,4 +16,11 @@ public interface GetEndpoint<T extends MetaEntity> extends Endpoint {
                 apiParams(params).
                 get((Class<T>) entityClass());
     }
+
+    /**
+     * Асинхронный вариант {@link #get(ApiParam...)}
+     */
+    default CompletableFuture<T> getAsync(ApiParam... params) {
+        return api().async(() -> get(params));
+    }
 }
@@ -4,9 +4,16 @@ import ru.moysklad.remap_1_2.entities.MetaEntity;
 import ru.moysklad.remap_1_2.responses.ListEntity;
 import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.PageSpliterator;
+import ru.moysklad.remap_1_2.utils.PagingIterator;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
 import java.io.IOException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.CompletableFuture;
+
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_PARALLEL_REQUESTS;
 
 public interface GetListEndpoint<T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -16,4 +23,61 @@ public interface GetListEndpoint<T extends MetaEntity> extends Endpoint {
                 apiParams(params).
                 list((Class<T>) entityClass());
     }
+
+    /**
+     * Все элементы списка. Страницы загружаются по мере перебора с максимальным допустимым
+     * <code>limit</code>, следующая страница загружается в фоне, пока обрабатывается текущая.
+     * Каждый вызов <code>iterator()</code> начинает перебор заново.
+     * <br>
+     * Цикл <code>for</code> не закрывает итератор, поэтому при досрочном выходе из него фоновая загрузка
+     * следующей страницы завершится впустую. Если перебор может прерваться, используйте {@link #stream(ApiParam...)}
+     * в <code>try-with-resources</code> или закройте итератор ({@link PagingIterator#close()})
+     *
+     * @see PagingIterator
+     */
+    @ApiEndpoint
+    default Iterable<T> iterate(ApiParam... params) {
+        return () -> PagingIterator.of(api(), path(), (Class<T>) entityClass(), params);
+    }
+
+    /**
+     * Все элементы списка в виде последовательного потока. Страницы загружаются по мере чтения,
+     * закрытие потока отменяет фоновую загрузку
+     *
+     * @see PagingIterator
+     */
+    @ApiEndpoint
+    default Stream<T> stream(ApiParam... params) {
+        return PagingIterator.of(api(), path(), (Class<T>) entityClass(), params).stream();
+    }
+
+    /**
+     * Все элементы списка в виде параллельного потока. После загрузки первой страницы
+     * оставшиеся страницы делятся на диапазоны и загружаются параллельно, не более
+     * {@link ru.moysklad.remap_1_2.utils.Constants#MAX_PARALLEL_REQUESTS} запросов одновременно
+     *
+     * @see PageSpliterator
+     */
+    @ApiEndpoint
+    default Stream<T> parallelStream(ApiParam... params) {
+        return parallelStream(MAX_PARALLEL_REQUESTS, params);
+    }
+
+    /**
+     * Все элементы списка в виде параллельного потока, не более <code>parallelism</code>
+     * одновременных запросов
+     *
+     * @see PageSpliterator
+     */
+    @ApiEndpoint
+    default Stream<T> parallelStream(int parallelism, ApiParam... params) {
+        return StreamSupport.stream(PageSpliterator.of(api(), path(), (Class<T>) entityClass(), parallelism, params), true);
+    }
+
+    /**
+     * Асинхронный вариант {@link #get(ApiParam...)}
+     */
+    default CompletableFuture<ListEntity<T>> getAsync(ApiParam... params) {
+        return api().async(() -> get(params));
+    }
 }
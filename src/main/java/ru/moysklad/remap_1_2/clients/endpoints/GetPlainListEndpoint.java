@@ -7,6 +7,7 @@ import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface GetPlainListEndpoint<T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -16,4 +17,11 @@ public interface GetPlainListEndpoint<T extends MetaEntity> extends Endpoint {
                 apiParams(params).
                 plainList((Class<T>) entityClass());
     }
+
+    /**
+     * Асинхронный вариант {@link #get(ApiParam...)}
+     */
+    default CompletableFuture<List<T>> getAsync(ApiParam... params) {
+        return api().async(() -> get(params));
+    }
 }
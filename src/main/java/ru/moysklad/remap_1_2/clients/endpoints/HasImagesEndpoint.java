@@ -10,6 +10,7 @@ import ru.moysklad.remap_1_2.utils.params.ApiParam;
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 public interface HasImagesEndpoint <T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -91,4 +92,45 @@ public interface HasImagesEndpoint <T extends MetaEntity> extends Endpoint {
     default void deleteImages(T entity, List<Image> images) throws IOException, ApiClientException {
         deleteImages(entity.getId(), images);
     }
+
+    /**
+     * Асинхронный вариант {@link #getImages(String, ApiParam...)}
+     */
+    default CompletableFuture<ListEntity<Image>> getImagesAsync(String entityId, ApiParam... params) {
+        return api().async(() -> getImages(entityId, params));
+    }
+
+    /**
+     * Асинхронный вариант {@link #addImage(String, Image)}
+     */
+    default CompletableFuture<List<Image>> addImageAsync(String entityId, Image image) {
+        return api().async(() -> addImage(entityId, image));
+    }
+
+    /**
+     * Асинхронный вариант {@link #updateImages(String, List)}
+     */
+    default CompletableFuture<List<Image>> updateImagesAsync(String entityId, List<Image> images) {
+        return api().async(() -> updateImages(entityId, images));
+    }
+
+    /**
+     * Асинхронный вариант {@link #deleteImage(String, String)}
+     */
+    default CompletableFuture<Void> deleteImageAsync(String entityId, String imageId) {
+        return api().async(() -> {
+            deleteImage(entityId, imageId);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #deleteImages(String, List)}
+     */
+    default CompletableFuture<Void> deleteImagesAsync(String entityId, List<Image> images) {
+        return api().async(() -> {
+            deleteImages(entityId, images);
+            return null;
+        });
+    }
 }
@@ -1,15 +1,19 @@
 package ru.moysklad.remap_1_2.clients.endpoints;
 
 import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.responses.BulkResult;
 import ru.moysklad.remap_1_2.responses.MassDeleteResponse;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.BulkExecutor;
 import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
+import static ru.moysklad.remap_1_2.utils.Constants.*;
 
 public interface MassCreateUpdateDeleteEndpoint<T extends MetaEntity> extends MassCreateUpdateEndpoint<T> {
 
@@ -19,7 +23,37 @@ public interface MassCreateUpdateDeleteEndpoint<T extends MetaEntity> extends Ma
 
         return HttpRequestExecutor
                 .path(api(), path() + "delete")
-                .body(entities)
+                .streamBody(entities)
                 .postList(MassDeleteResponse.class);
     }
+
+    /**
+     * Удаляет любое количество сущностей, разбивая их на запросы, которые укладываются в ограничения API,
+     * и отправляя их параллельно
+     *
+     * @return результаты в порядке переданных сущностей, включая ошибки по отдельным сущностям
+     * @see #createOrUpdateBulk(List)
+     */
+    default BulkResult<MassDeleteResponse> deleteBulk(List<T> entities) throws InterruptedIOException {
+        return deleteBulk(entities, MAX_MASS_OPERATION_SIZE, MAX_MASS_OPERATION_BYTES);
+    }
+
+    /**
+     * Вариант {@link #deleteBulk(List)} с заданным размером одного запроса
+     *
+     * @param chunkSize  максимальное количество сущностей в одном запросе
+     * @param chunkBytes максимальный размер тела одного запроса в байтах
+     */
+    default BulkResult<MassDeleteResponse> deleteBulk(List<T> entities, int chunkSize, long chunkBytes) throws InterruptedIOException {
+        entities.forEach(newEntity -> MetaHrefUtils.fillMeta(newEntity, api().getHost() + API_PATH));
+
+        return BulkExecutor.execute(api(), path() + "delete", entities, MassDeleteResponse.class, chunkSize, chunkBytes);
+    }
+
+    /**
+     * Асинхронный вариант {@link #delete(List)}
+     */
+    default CompletableFuture<List<MassDeleteResponse>> deleteAsync(List<T> entities) {
+        return api().async(() -> delete(entities));
+    }
 }
@@ -1,14 +1,21 @@
 package ru.moysklad.remap_1_2.clients.endpoints;
 
 import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.responses.BulkResult;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.BulkExecutor;
+import ru.moysklad.remap_1_2.utils.Constants;
 import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
-import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
+import static ru.moysklad.remap_1_2.utils.Constants.*;
 
 public interface MassCreateUpdateEndpoint<T extends MetaEntity> extends Endpoint {
 
@@ -18,7 +25,89 @@ public interface MassCreateUpdateEndpoint<T extends MetaEntity> extends Endpoint
 
         return HttpRequestExecutor.
                 path(api(), path()).
-                body(entities).
+                streamBody(entities).
                 postList((Class<T>) entityClass());
     }
+
+    /**
+     * Создаёт или обновляет сущности, перебирая их из итератора по мере отправки запроса. Список
+     * сущностей целиком в памяти не строится, но запрос нельзя повторить, поэтому при временной
+     * ошибке он не повторяется
+     *
+     * @param entities итератор сущностей; перебирается один раз
+     * @return созданные или обновлённые сущности
+     */
+    default List<T> createOrUpdate(Iterator<T> entities) throws IOException, ApiClientException {
+        String hostApiPath = api().getHost() + API_PATH;
+        Iterator<T> filled = new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return entities.hasNext();
+            }
+
+            @Override
+            public T next() {
+                T entity = entities.next();
+                MetaHrefUtils.fillMeta(entity, hostApiPath);
+                return entity;
+            }
+        };
+
+        return HttpRequestExecutor.
+                path(api(), path()).
+                body(filled).
+                postList((Class<T>) entityClass());
+    }
+
+    /**
+     * Создаёт или обновляет любое количество сущностей, разбивая их на запросы, которые укладываются в
+     * ограничения API ({@link Constants#MAX_MASS_OPERATION_SIZE} сущностей и
+     * {@link Constants#MAX_MASS_OPERATION_BYTES} байт), и отправляя их параллельно
+     *
+     * @return результаты в порядке переданных сущностей, включая ошибки по отдельным сущностям
+     * @see BulkExecutor
+     */
+    default BulkResult<T> createOrUpdateBulk(List<T> entities) throws InterruptedIOException {
+        return createOrUpdateBulk(entities, MAX_MASS_OPERATION_SIZE, MAX_MASS_OPERATION_BYTES);
+    }
+
+    /**
+     * Вариант {@link #createOrUpdateBulk(List)} с заданным размером одного запроса
+     *
+     * @param chunkSize  максимальное количество сущностей в одном запросе
+     * @param chunkBytes максимальный размер тела одного запроса в байтах
+     */
+    default BulkResult<T> createOrUpdateBulk(List<T> entities, int chunkSize, long chunkBytes) throws InterruptedIOException {
+        entities.forEach(newEntity -> MetaHrefUtils.fillMeta(newEntity, api().getHost() + API_PATH));
+
+        return BulkExecutor.execute(api(), path(), entities, (Class<T>) entityClass(), chunkSize, chunkBytes);
+    }
+
+    /**
+     * Создаёт очередь отложенной записи, которая отправляет сущности этого эндпоинта пачками раз в
+     * 100 мс или по накоплении {@link Constants#MAX_MASS_OPERATION_SIZE} сущностей
+     *
+     * @see WriteBehindBatcher
+     */
+    default WriteBehindBatcher<T> writeBehind() {
+        return writeBehind(100, TimeUnit.MILLISECONDS, MAX_MASS_OPERATION_SIZE);
+    }
+
+    /**
+     * Создаёт очередь отложенной записи сущностей этого эндпоинта
+     *
+     * @param window       максимальное время ожидания сущности перед отправкой
+     * @param maxBatchSize количество сущностей, при накоплении которого пачка отправляется сразу
+     * @see WriteBehindBatcher
+     */
+    default WriteBehindBatcher<T> writeBehind(long window, TimeUnit unit, int maxBatchSize) {
+        return new WriteBehindBatcher<>(this, window, unit, maxBatchSize);
+    }
+
+    /**
+     * Асинхронный вариант {@link #createOrUpdate(List)}
+     */
+    default CompletableFuture<List<T>> createOrUpdateAsync(List<T> entities) {
+        return api().async(() -> createOrUpdate(entities));
+    }
 }
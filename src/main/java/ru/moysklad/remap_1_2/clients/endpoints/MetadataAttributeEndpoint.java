@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface MetadataAttributeEndpoint extends Endpoint {
     @ApiEndpoint
@@ -59,4 +60,42 @@ public interface MetadataAttributeEndpoint extends Endpoint {
     default void deleteMetadataAttribute(Attribute entity) throws IOException, ApiClientException {
         deleteMetadataAttribute(entity.getId());
     }
+
+    /**
+     * Асинхронный вариант {@link #metadataAttributes(String)}
+     */
+    default CompletableFuture<Attribute> metadataAttributesAsync(String id) {
+        return api().async(() -> metadataAttributes(id));
+    }
+
+    /**
+     * Асинхронный вариант {@link #metadataAttributes()}
+     */
+    default CompletableFuture<ListEntity<Attribute>> metadataAttributesAsync() {
+        return api().async(() -> metadataAttributes());
+    }
+
+    /**
+     * Асинхронный вариант {@link #createMetadataAttribute(Attribute)}
+     */
+    default CompletableFuture<Attribute> createMetadataAttributeAsync(Attribute newEntity) {
+        return api().async(() -> createMetadataAttribute(newEntity));
+    }
+
+    /**
+     * Асинхронный вариант {@link #updateMetadataAttribute(String, Attribute)}
+     */
+    default CompletableFuture<Attribute> updateMetadataAttributeAsync(String id, Attribute newEntity) {
+        return api().async(() -> updateMetadataAttribute(id, newEntity));
+    }
+
+    /**
+     * Асинхронный вариант {@link #deleteMetadataAttribute(String)}
+     */
+    default CompletableFuture<Void> deleteMetadataAttributeAsync(String id) {
+        return api().async(() -> {
+            deleteMetadataAttribute(id);
+            return null;
+        });
+    }
 }
@@ -5,6 +5,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface MetadataEndpoint<T extends MetaEntity> extends Endpoint {
     @ApiEndpoint
@@ -13,4 +14,11 @@ public interface MetadataEndpoint<T extends MetaEntity> extends Endpoint {
                 path(api(), path() + "metadata").
                 get((Class<T>) metaEntityClass());
     }
+
+    /**
+     * Асинхронный вариант {@link #metadata()}
+     */
+    default CompletableFuture<T> metadataAsync() {
+        return api().async(() -> metadata());
+    }
 }
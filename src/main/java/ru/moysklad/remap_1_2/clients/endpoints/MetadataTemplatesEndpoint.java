@@ -8,6 +8,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public interface MetadataTemplatesEndpoint extends Endpoint {
@@ -47,6 +48,34 @@ public interface MetadataTemplatesEndpoint extends Endpoint {
         return template;
     }
 
+    /**
+     * Асинхронный вариант {@link #embeddedtemplate()}
+     */
+    default CompletableFuture<ListEntity<Template>> embeddedtemplateAsync() {
+        return api().async(() -> embeddedtemplate());
+    }
+
+    /**
+     * Асинхронный вариант {@link #embeddedtemplate(String)}
+     */
+    default CompletableFuture<Template> embeddedtemplateAsync(String id) {
+        return api().async(() -> embeddedtemplate(id));
+    }
+
+    /**
+     * Асинхронный вариант {@link #customtemplate()}
+     */
+    default CompletableFuture<ListEntity<Template>> customtemplateAsync() {
+        return api().async(() -> customtemplate());
+    }
+
+    /**
+     * Асинхронный вариант {@link #customtemplate(String)}
+     */
+    default CompletableFuture<Template> customtemplateAsync(String id) {
+        return api().async(() -> customtemplate(id));
+    }
+
     default ListEntity<Template> setEntityType(ListEntity<Template> templates) {
         Meta.Type entityType = getEntityType();
         List<Template> rows = templates.getRows();
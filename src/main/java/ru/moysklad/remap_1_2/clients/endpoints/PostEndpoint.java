@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
 
@@ -21,4 +22,11 @@ public interface PostEndpoint<T extends MetaEntity> extends Endpoint {
         newEntity.set(responseEntity);
         return newEntity;
     }
+
+    /**
+     * Асинхронный вариант {@link #create(MetaEntity)}
+     */
+    default CompletableFuture<T> createAsync(T newEntity) {
+        return api().async(() -> create(newEntity));
+    }
 }
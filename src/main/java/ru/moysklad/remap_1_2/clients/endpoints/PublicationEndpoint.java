@@ -10,6 +10,7 @@ import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface PublicationEndpoint extends Endpoint {
     @ApiEndpoint
@@ -41,6 +42,37 @@ public interface PublicationEndpoint extends Endpoint {
                 delete();
     }
 
+    /**
+     * Асинхронный вариант {@link #getPublications(String)}
+     */
+    default CompletableFuture<ListEntity<Publication>> getPublicationsAsync(String documentId) {
+        return api().async(() -> getPublications(documentId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #getPublication(String, String)}
+     */
+    default CompletableFuture<Publication> getPublicationAsync(String documentId, String publicationId) {
+        return api().async(() -> getPublication(documentId, publicationId));
+    }
+
+    /**
+     * Асинхронный вариант {@link #publish(String, Template)}
+     */
+    default CompletableFuture<Publication> publishAsync(String documentId, Template template) {
+        return api().async(() -> publish(documentId, template));
+    }
+
+    /**
+     * Асинхронный вариант {@link #delelePublication(String, String)}
+     */
+    default CompletableFuture<Void> deletePublicationAsync(String documentId, String publicationId) {
+        return api().async(() -> {
+            delelePublication(documentId, publicationId);
+            return null;
+        });
+    }
+
     @Getter
     @Setter
     @NoArgsConstructor
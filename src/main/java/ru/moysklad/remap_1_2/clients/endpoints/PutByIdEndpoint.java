@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.HttpRequestExecutor;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
 
@@ -25,4 +26,21 @@ public interface PutByIdEndpoint<T extends MetaEntity> extends Endpoint {
     default void update(T updatedEntity) throws IOException, ApiClientException {
         update(updatedEntity.getId(), updatedEntity);
     }
+
+    /**
+     * Асинхронный вариант {@link #update(String, MetaEntity)}
+     */
+    default CompletableFuture<Void> updateAsync(String id, T updatedEntity) {
+        return api().async(() -> {
+            update(id, updatedEntity);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронный вариант {@link #update(MetaEntity)}
+     */
+    default CompletableFuture<Void> updateAsync(T updatedEntity) {
+        return updateAsync(updatedEntity.getId(), updatedEntity);
+    }
 }
@@ -6,6 +6,7 @@ import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
 
@@ -20,4 +21,14 @@ public interface PutEndpoint<T extends MetaEntity> extends Endpoint {
 
         updatedEntity.set(responseEntity);
     }
+
+    /**
+     * Асинхронный вариант {@link #update(MetaEntity)}
+     */
+    default CompletableFuture<Void> updateAsync(T updatedEntity) {
+        return api().async(() -> {
+            update(updatedEntity);
+            return null;
+        });
+    }
 }
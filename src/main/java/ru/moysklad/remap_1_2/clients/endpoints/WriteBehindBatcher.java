@@ -0,0 +1,209 @@
+package ru.moysklad.remap_1_2.clients.endpoints;
+
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.responses.BulkResult;
+import ru.moysklad.remap_1_2.responses.ErrorResponse;
+import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.DaemonThreadFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
+
+/**
+ * Отложенная запись сущностей пачками.
+ * <br>
+ * Отдельные вызовы {@link #create(MetaEntity)} и {@link #update(String, MetaEntity)} накапливаются
+ * в течение заданного окна (или до заданного количества сущностей) и отправляются одним массовым
+ * запросом {@link MassCreateUpdateEndpoint#createOrUpdateBulk(List)}. Если до отправки одна и та же
+ * сущность (по <code>id</code>) записана несколько раз, отправляется только последняя версия,
+ * а future всех этих вызовов завершаются её результатом. Пачки отправляются строго по очереди, поэтому
+ * более поздняя запись сущности не может быть перезаписана более ранней.
+ * <br>
+ * Ошибка, которую API вернуло для отдельной сущности, завершает её future исключением
+ * {@link ApiClientException} с кодом 400 и списком ошибок; ошибка всего запроса — исключением этого запроса.
+ * <br>
+ * Экземпляр потокобезопасен. После использования его нужно закрыть: {@link #close()} отправляет
+ * оставшиеся сущности и дожидается завершения записи
+ */
+public final class WriteBehindBatcher<T extends MetaEntity> implements Closeable {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("moysklad-write-behind")
+    );
+
+    private final MassCreateUpdateEndpoint<T> endpoint;
+    private final long windowMillis;
+    private final int maxBatchSize;
+
+    /**
+     * Ожидающие отправки сущности: по <code>id</code> или, для новых сущностей, по уникальному ключу
+     */
+    private Map<Object, Pending<T>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduled;
+    private CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+    private boolean closed;
+
+    /**
+     * @param endpoint     эндпоинт, в который записываются сущности
+     * @param window       максимальное время ожидания сущности перед отправкой
+     * @param maxBatchSize количество сущностей, при накоплении которого пачка отправляется сразу
+     */
+    public WriteBehindBatcher(MassCreateUpdateEndpoint<T> endpoint, long window, TimeUnit unit, int maxBatchSize) {
+        if (endpoint == null) throw new IllegalArgumentException("Эндпоинт не может быть null!");
+        if (window <= 0) throw new IllegalArgumentException("Время ожидания должно быть положительным!");
+        if (maxBatchSize <= 0) throw new IllegalArgumentException("Размер пачки должен быть положительным!");
+
+        this.endpoint = endpoint;
+        this.windowMillis = Math.max(1, unit.toMillis(window));
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Добавляет сущность в очередь на создание
+     *
+     * @return future с созданной сущностью
+     */
+    public CompletableFuture<T> create(T newEntity) {
+        return submit(newEntity);
+    }
+
+    /**
+     * Добавляет сущность в очередь на обновление. Если сущность с тем же <code>id</code> уже ожидает
+     * отправки, она заменяется новой версией
+     *
+     * @return future с обновлённой сущностью
+     */
+    public CompletableFuture<T> update(String id, T updatedEntity) {
+        if (updatedEntity == null) throw new IllegalArgumentException("Сущность не может быть null!");
+
+        updatedEntity.setId(id);
+        return submit(updatedEntity);
+    }
+
+    /**
+     * Добавляет сущность в очередь на создание или обновление (в зависимости от наличия <code>id</code>)
+     */
+    public CompletableFuture<T> submit(T entity) {
+        if (entity == null) throw new IllegalArgumentException("Сущность не может быть null!");
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Очередь записи закрыта!");
+
+            Object key = entity.getId() != null ? entity.getId() : new Object();
+            Pending<T> existing = pending.get(key);
+            if (existing != null) {
+                existing.entity = entity;
+                existing.futures.add(future);
+            } else {
+                pending.put(key, new Pending<>(entity, future));
+            }
+
+            if (pending.size() >= maxBatchSize) {
+                flushPending();
+            } else if (scheduled == null) {
+                scheduled = SCHEDULER.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Отправляет ожидающие сущности, не дожидаясь окончания окна
+     *
+     * @return future, которое завершается после записи всех отправленных к этому моменту сущностей
+     */
+    public synchronized CompletableFuture<Void> flush() {
+        flushPending();
+        return lastFlush;
+    }
+
+    /**
+     * Количество сущностей, ожидающих отправки
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Отправляет оставшиеся сущности и дожидается завершения записи. Новые сущности после закрытия
+     * не принимаются
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> last;
+        synchronized (this) {
+            closed = true;
+            flushPending();
+            last = lastFlush;
+        }
+
+        try {
+            last.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ignored) {
+            // Ошибки записи переданы в future отдельных сущностей
+        }
+    }
+
+    private void flushPending() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+        if (pending.isEmpty()) return;
+
+        List<Pending<T>> batch = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+        lastFlush = lastFlush.thenRunAsync(() -> write(batch), endpoint.api().getExecutor());
+    }
+
+    private void write(List<Pending<T>> batch) {
+        List<T> entities = new ArrayList<>(batch.size());
+        batch.forEach(p -> entities.add(p.entity));
+
+        try {
+            BulkResult<T> result = endpoint.createOrUpdateBulk(entities);
+            for (int i = 0; i < batch.size(); i++) {
+                BulkResult.Item<T> item = result.getItems().get(i);
+                if (item.isSuccess()) {
+                    batch.get(i).complete(item.getResult());
+                } else if (item.getException() != null) {
+                    batch.get(i).fail(item.getException());
+                } else {
+                    ErrorResponse errorResponse = new ErrorResponse();
+                    errorResponse.setErrors(item.getErrors());
+                    batch.get(i).fail(new ApiClientException(
+                            endpoint.api().getHost() + API_PATH + endpoint.path(), 400, "Bad Request", errorResponse
+                    ));
+                }
+            }
+        } catch (Exception e) {
+            batch.forEach(p -> p.fail(e));
+        }
+    }
+
+    private static final class Pending<T> {
+        private T entity;
+        private final List<CompletableFuture<T>> futures = new ArrayList<>(1);
+
+        Pending(T entity, CompletableFuture<T> future) {
+            this.entity = entity;
+            futures.add(future);
+        }
+
+        void complete(T result) {
+            futures.forEach(f -> f.complete(result));
+        }
+
+        void fail(Throwable e) {
+            futures.forEach(f -> f.completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.moysklad.remap_1_2.entities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * План копирования полей одного класса сущности в другой для {@link Entity#set(Entity)}.
+ * <br>
+ * Геттеры источника и соответствующие им сеттеры приёмника находятся через рефлексию один раз для
+ * каждой пары классов и сохраняются в виде {@link MethodHandle}, поэтому повторное копирование
+ * сводится к вызову пар «геттер — сеттер»
+ */
+final class CopyPlan {
+    private static final Logger logger = LoggerFactory.getLogger(CopyPlan.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    /**
+     * Планы по классу приёмника и классу источника
+     */
+    private static final ClassValue<ConcurrentMap<Class<?>, CopyPlan>> PLANS = new ClassValue<ConcurrentMap<Class<?>, CopyPlan>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, CopyPlan> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Конструкторы без параметров для {@link Entity#clone(Entity)}; <code>null</code>, если конструктора нет
+     */
+    private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                logger.error("Ошибка при клонировании сущности", e);
+                return null;
+            }
+        }
+    };
+
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+
+    private CopyPlan(List<MethodHandle> getters, List<MethodHandle> setters) {
+        this.getters = getters.toArray(new MethodHandle[0]);
+        this.setters = setters.toArray(new MethodHandle[0]);
+    }
+
+    static CopyPlan of(Class<?> target, Class<?> source) {
+        return PLANS.get(target).computeIfAbsent(source, s -> build(target, s));
+    }
+
+    /**
+     * Создаёт пустой экземпляр класса сущности или возвращает <code>null</code>, если это невозможно
+     */
+    static Object newInstance(Class<?> type) {
+        MethodHandle constructor = CONSTRUCTORS.get(type);
+        if (constructor == null) return null;
+
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            logger.error("Ошибка при клонировании сущности", e);
+            return null;
+        }
+    }
+
+    void copy(Object source, Object target) {
+        for (int i = 0; i < getters.length; i++) {
+            try {
+                Object value = (Object) getters[i].invokeExact(source);
+                if (value instanceof Entity) {
+                    value = Entity.clone((Entity) value);
+                }
+                setters[i].invokeExact(target, value);
+            } catch (Throwable e) {
+                logger.error("Ошибка при копировании полей сущности", e);
+            }
+        }
+    }
+
+    private static CopyPlan build(Class<?> target, Class<?> source) {
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+
+        for (Method getter : source.getMethods()) {
+            if (!getter.getName().startsWith("get") || getter.getParameterCount() != 0 || Modifier.isStatic(getter.getModifiers())) {
+                continue;
+            }
+
+            String setterName = "set" + getter.getName().substring(3);
+            Method setter;
+            try {
+                setter = target.getMethod(setterName, getter.getReturnType());
+            } catch (NoSuchMethodException e) {
+                logger.trace("Не удалось найти метод " + setterName + ". Поле не будет скопировано.");
+                continue;
+            }
+
+            try {
+                getters.add(unreflect(getter).asType(GETTER_TYPE));
+                setters.add(unreflect(setter).asType(SETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                if (getters.size() > setters.size()) getters.remove(getters.size() - 1);
+                logger.trace("Нет доступа к методам " + getter.getName() + "/" + setterName + ". Поле не будет скопировано.");
+            }
+        }
+
+        return new CopyPlan(getters, setters);
+    }
+
+    /**
+     * Публичные методы, объявленные в непубличных классах, доступны только после {@link Method#setAccessible(boolean)}
+     */
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+}
@@ -1,6 +1,10 @@
 package ru.moysklad.remap_1_2.entities;
 
 import com.google.gson.*;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import ru.moysklad.remap_1_2.entities.agents.Counterparty;
 import ru.moysklad.remap_1_2.entities.agents.Employee;
 import ru.moysklad.remap_1_2.entities.agents.Organization;
@@ -15,34 +19,80 @@ import ru.moysklad.remap_1_2.entities.products.Service;
 import ru.moysklad.remap_1_2.entities.products.Variant;
 import ru.moysklad.remap_1_2.responses.metadata.CompanySettingsMetadata;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
+import ru.moysklad.remap_1_2.utils.UuidUtils;
+import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static lombok.AccessLevel.NONE;
+import static ru.moysklad.remap_1_2.utils.UuidUtils.UUID_LENGTH;
+
 
 /**
  * Метаданные
+ * <br>
+ * Ссылки хранятся в компактном виде: если ссылка на объект заканчивается на UUID, хранится общий для многих
+ * объектов префикс ссылки и UUID в виде двух чисел, а строка ссылки собирается при обращении к ней или при
+ * сериализации. Префиксы ссылок и ссылки на метаданные, в которых нет UUID (хост и тип сущности), разделяются
+ * между всеми экземплярами. Сравнение метаданных не собирает строки ссылок: сравниваются префиксы и UUID
  */
 @Getter
 @Setter
 @NoArgsConstructor
-@EqualsAndHashCode
+@EqualsAndHashCode(doNotUseGetters = true)
+@JsonAdapter(Meta.Serializer.class)
 public final class Meta {
+    /**
+     * Общие экземпляры префиксов ссылок без UUID. Их число ограничено числом хостов и типов сущностей,
+     * поэтому они хранятся постоянно
+     */
+    private static final ConcurrentHashMap<String, String> HREF_PREFIXES = new ConcurrentHashMap<>();
+
+    /**
+     * Предельный размер пула префиксов: если приложение работает с необычно большим числом хостов,
+     * новые префиксы перестают разделяться, но память не растёт
+     */
+    private static final int MAX_HREF_PREFIXES = 4096;
+
     public Meta(MetaEntity entity, String host) {
         if (entity == null || entity.getId() == null || host == null) {
             return;
         }
         type = Type.find(entity);
-        href = MetaHrefUtils.makeHref(type, entity, host);
+        setHref(MetaHrefUtils.makeHref(type, entity, host));
         if (type != Type.CUSTOM_TEMPLATE && type != Type.EMBEDDED_TEMPLATE) {
-            metadataHref = MetaHrefUtils.makeMetadataHref(type, entity, host);
+            setMetadataHref(MetaHrefUtils.makeMetadataHref(type, entity, host));
         }
     }
 
     /**
-     * Ссылка на объект
+     * Часть ссылки на объект до его UUID. Заполнена, только если ссылка заканчивается на UUID
+     */
+    @Getter(NONE)
+    @Setter(NONE)
+    private String hrefPrefix;
+
+    /**
+     * Старшие 64 бита UUID из ссылки на объект или <code>0</code>, если ссылка не заканчивается на UUID
+     */
+    @Getter(NONE)
+    @Setter(NONE)
+    private long idMostSigBits;
+
+    /**
+     * Младшие 64 бита UUID из ссылки на объект или <code>0</code>, если ссылка не заканчивается на UUID
+     */
+    @Getter(NONE)
+    @Setter(NONE)
+    private long idLeastSigBits;
+
+    /**
+     * Ссылка на объект, если она не заканчивается на UUID
      */
     private String href;
 
@@ -61,6 +111,13 @@ public final class Meta {
      */
     private MediaType mediaType;
 
+    /**
+     * Часть ссылки на объект на UI до его UUID, если ссылка заканчивается на тот же UUID, что и ссылка на объект
+     */
+    @Getter(NONE)
+    @Setter(NONE)
+    private String uuidHrefPrefix;
+
     /**
      * Ссылка на объект на UI. Присутствует не во всех сущностях. Может быть использована для получения uuid
      */
@@ -81,6 +138,216 @@ public final class Meta {
      */
     private Integer offset;
 
+    /**
+     * Ссылка на объект
+     */
+    public String getHref() {
+        if (hrefPrefix == null) return href;
+        return appendUuid(new StringBuilder(hrefPrefix.length() + UUID_LENGTH).append(hrefPrefix)).toString();
+    }
+
+    public void setHref(String href) {
+        // Ссылка на UI хранится относительно UUID из ссылки на объект, поэтому восстанавливается до смены UUID
+        if (uuidHrefPrefix != null) {
+            uuidHref = getUuidHref();
+            uuidHrefPrefix = null;
+        }
+
+        int idStart = href == null ? -1 : href.length() - UUID_LENGTH;
+        if (idStart > 0 && href.charAt(idStart - 1) == '/' && UuidUtils.isUuid(href, idStart)) {
+            hrefPrefix = intern(href.substring(0, idStart));
+            idMostSigBits = UuidUtils.mostSigBits(href, idStart);
+            idLeastSigBits = UuidUtils.leastSigBits(href, idStart);
+            this.href = null;
+        } else {
+            hrefPrefix = null;
+            idMostSigBits = 0;
+            idLeastSigBits = 0;
+            this.href = href;
+        }
+        compactUuidHref();
+    }
+
+    public void setMetadataHref(String metadataHref) {
+        this.metadataHref = metadataHref == null ? null : intern(metadataHref);
+    }
+
+    /**
+     * Ссылка на объект на UI. Присутствует не во всех сущностях. Может быть использована для получения uuid
+     */
+    public String getUuidHref() {
+        if (uuidHrefPrefix == null) return uuidHref;
+        return appendUuid(new StringBuilder(uuidHrefPrefix.length() + UUID_LENGTH).append(uuidHrefPrefix)).toString();
+    }
+
+    public void setUuidHref(String uuidHref) {
+        this.uuidHref = uuidHref;
+        this.uuidHrefPrefix = null;
+        compactUuidHref();
+    }
+
+    /**
+     * Идентификатор объекта — последний сегмент ссылки на объект
+     *
+     * @return идентификатор или <code>null</code>, если ссылки нет
+     */
+    public String getId() {
+        if (hrefPrefix != null) return appendUuid(new StringBuilder(UUID_LENGTH)).toString();
+        return href == null ? null : MetaHrefUtils.getIdFromHref(href).orElse(null);
+    }
+
+    /**
+     * Проверяет, что ссылка на объект указывает на объект с этим идентификатором. Не создаёт новых объектов
+     */
+    public boolean hasId(String id) {
+        if (id == null) return false;
+        if (hrefPrefix == null) return href != null && MetaHrefUtils.hrefHasId(href, id);
+
+        return id.length() == UUID_LENGTH && UuidUtils.isUuid(id, 0)
+                && idMostSigBits == UuidUtils.mostSigBits(id, 0)
+                && idLeastSigBits == UuidUtils.leastSigBits(id, 0);
+    }
+
+    /**
+     * Ключ объекта, на который указывают метаданные: тип сущности и UUID из ссылки на объект (строка ссылки
+     * используется, только если она не заканчивается на UUID). Ключи метаданных одного объекта равны.
+     * Не собирает строку ссылки
+     */
+    public Object referenceKey() {
+        return new ReferenceKey(type, idMostSigBits, idLeastSigBits, hrefPrefix == null ? href : null);
+    }
+
+    /**
+     * Если ссылка на UI заканчивается на UUID из ссылки на объект, сохраняет только её префикс
+     */
+    private void compactUuidHref() {
+        if (uuidHref == null || hrefPrefix == null) return;
+
+        int idStart = uuidHref.length() - UUID_LENGTH;
+        if (UuidUtils.isUuid(uuidHref, idStart) && uuidHref.endsWith(getId())) {
+            uuidHrefPrefix = intern(uuidHref.substring(0, idStart));
+            uuidHref = null;
+        }
+    }
+
+    private StringBuilder appendUuid(StringBuilder sb) {
+        return UuidUtils.appendUuid(sb, idMostSigBits, idLeastSigBits);
+    }
+
+    /**
+     * Общий экземпляр ссылки, если в ней нет UUID. Ссылки с UUID (например, префиксы ссылок на позиции
+     * конкретного документа) не разделяются, чтобы пул не рос вместе с числом объектов
+     */
+    private static String intern(String value) {
+        String shared = HREF_PREFIXES.get(value);
+        if (shared != null) return shared;
+        if (containsUuid(value) || HREF_PREFIXES.size() >= MAX_HREF_PREFIXES) return value;
+
+        shared = HREF_PREFIXES.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    private static boolean containsUuid(String value) {
+        for (int i = value.indexOf('/'); i >= 0; i = value.indexOf('/', i + 1)) {
+            if (UuidUtils.isUuid(value, i + 1)) return true;
+        }
+        return false;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class ReferenceKey {
+        private final Type type;
+        private final long idMostSigBits;
+        private final long idLeastSigBits;
+        private final String href;
+    }
+
+    /**
+     * Сериализует метаданные в том же виде, что и рефлективный адаптер GSON для несжатого представления
+     */
+    public static class Serializer implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (type.getRawType() != Meta.class) return null;
+            return (TypeAdapter<T>) new Adapter(gson).nullSafe();
+        }
+
+        private static final class Adapter extends TypeAdapter<Meta> {
+            private final TypeAdapter<String> stringAdapter;
+            private final TypeAdapter<Type> typeAdapter;
+            private final TypeAdapter<MediaType> mediaTypeAdapter;
+            private final TypeAdapter<Integer> integerAdapter;
+
+            Adapter(Gson gson) {
+                stringAdapter = gson.getAdapter(String.class);
+                typeAdapter = gson.getAdapter(Type.class);
+                mediaTypeAdapter = gson.getAdapter(MediaType.class);
+                integerAdapter = gson.getAdapter(Integer.class);
+            }
+
+            @Override
+            public void write(JsonWriter out, Meta meta) throws IOException {
+                out.beginObject();
+                writeField(out, "href", stringAdapter, meta.getHref());
+                writeField(out, "metadataHref", stringAdapter, meta.metadataHref);
+                writeField(out, "type", typeAdapter, meta.type);
+                writeField(out, "mediaType", mediaTypeAdapter, meta.mediaType);
+                writeField(out, "uuidHref", stringAdapter, meta.getUuidHref());
+                writeField(out, "size", integerAdapter, meta.size);
+                writeField(out, "limit", integerAdapter, meta.limit);
+                writeField(out, "offset", integerAdapter, meta.offset);
+                out.endObject();
+            }
+
+            @Override
+            public Meta read(JsonReader in) throws IOException {
+                Meta meta = new Meta();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "href":
+                            meta.setHref(stringAdapter.read(in));
+                            break;
+                        case "metadataHref":
+                            meta.setMetadataHref(stringAdapter.read(in));
+                            break;
+                        case "type":
+                            meta.type = typeAdapter.read(in);
+                            break;
+                        case "mediaType":
+                            meta.mediaType = mediaTypeAdapter.read(in);
+                            break;
+                        case "uuidHref":
+                            meta.setUuidHref(stringAdapter.read(in));
+                            break;
+                        case "size":
+                            meta.size = integerAdapter.read(in);
+                            break;
+                        case "limit":
+                            meta.limit = integerAdapter.read(in);
+                            break;
+                        case "offset":
+                            meta.offset = integerAdapter.read(in);
+                            break;
+                        default:
+                            in.skipValue();
+                    }
+                }
+                in.endObject();
+                return meta;
+            }
+
+            private static <V> void writeField(JsonWriter out, String name, TypeAdapter<V> adapter, V value) throws IOException {
+                if (value == null) return;
+
+                out.name(name);
+                adapter.write(out, value);
+            }
+        }
+    }
+
     /**
      * Тип сущности
      */
@@ -239,16 +506,26 @@ public final class Meta {
             return find(entity.getClass());
         }
 
-        private static Type find(Class<? extends MetaEntity> clazz) {
-            return Arrays.stream(values())
-                    .filter(t -> t.modelClass.getSimpleName().equals(clazz.getSimpleName()))
-                    .findFirst().orElseThrow(() -> new IllegalArgumentException("No type found for class: " + clazz.getSimpleName()));
+        /**
+         * Тип по классу сущности или её ближайшего зарегистрированного суперкласса
+         *
+         * @see MetaTypeRegistry#byClass(Class)
+         */
+        public static Type find(Class<? extends MetaEntity> clazz) {
+            Type type = MetaTypeRegistry.byClass(clazz);
+            if (type == null) throw new IllegalArgumentException("No type found for class: " + clazz.getSimpleName());
+            return type;
         }
 
+        /**
+         * Тип по имени в API
+         *
+         * @see MetaTypeRegistry#byApiName(String)
+         */
         public static Type find(String apiName) {
-            return Arrays.stream(values())
-                    .filter(t -> t.apiName.equals(apiName))
-                    .findFirst().orElseThrow(() -> new IllegalArgumentException("No type found for string: " + apiName));
+            Type type = MetaTypeRegistry.byApiName(apiName);
+            if (type == null) throw new IllegalArgumentException("No type found for string: " + apiName);
+            return type;
         }
 
         public static class Serializer implements JsonSerializer<Type>, JsonDeserializer<Type> {
@@ -0,0 +1,85 @@
+package ru.moysklad.remap_1_2.entities;
+
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Справочник типов {@link Meta.Type} по имени типа в API и по классу сущности.
+ * <br>
+ * Таблицы строятся один раз при загрузке класса, поиск выполняется за константное время.
+ * <ul>
+ *     <li>Имя типа в API однозначно определяет тип.</li>
+ *     <li>Если один класс соответствует нескольким типам (например, {@link Template} или позиции
+ *     отчётов комиссионера), по классу возвращается первый из них в порядке объявления {@link Meta.Type}.
+ *     Для {@link Template} и {@link Publication} тип уточняется по полям сущности в {@link Meta.Type#find(MetaEntity)}.</li>
+ *     <li>Для подклассов зарегистрированных классов возвращается тип ближайшего зарегистрированного
+ *     суперкласса.</li>
+ * </ul>
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class MetaTypeRegistry {
+    private static final Map<String, Meta.Type> BY_API_NAME = new HashMap<>();
+    private static final Map<Class<?>, Meta.Type> BY_CLASS = new HashMap<>();
+
+    /**
+     * Классы, которые соответствуют нескольким типам. Тип их подклассов по классу не определить
+     */
+    private static final Set<Class<?>> AMBIGUOUS_CLASSES = new HashSet<>();
+
+    /**
+     * Тип по классу с учётом суперклассов; {@link Optional#empty()}, если класс не зарегистрирован
+     */
+    private static final ClassValue<Optional<Meta.Type>> BY_CLASS_HIERARCHY = new ClassValue<Optional<Meta.Type>>() {
+        @Override
+        protected Optional<Meta.Type> computeValue(Class<?> type) {
+            Meta.Type exact = BY_CLASS.get(type);
+            if (exact != null) return Optional.of(exact);
+
+            for (Class<?> c = type.getSuperclass(); c != null && c != MetaEntity.class; c = c.getSuperclass()) {
+                if (AMBIGUOUS_CLASSES.contains(c)) return Optional.empty();
+
+                Meta.Type found = BY_CLASS.get(c);
+                if (found != null) return Optional.of(found);
+            }
+            return Optional.empty();
+        }
+    };
+
+    static {
+        for (Meta.Type type : Meta.Type.values()) {
+            if (BY_API_NAME.put(type.getApiName(), type) != null) {
+                throw new IllegalStateException("Имя типа " + type.getApiName() + " указано для нескольких типов");
+            }
+            if (BY_CLASS.putIfAbsent(type.getModelClass(), type) != null) AMBIGUOUS_CLASSES.add(type.getModelClass());
+        }
+    }
+
+    /**
+     * Тип по имени в API (например, <code>customerorder</code>) или <code>null</code>, если тип неизвестен
+     */
+    public static Meta.Type byApiName(String apiName) {
+        return apiName == null ? null : BY_API_NAME.get(apiName);
+    }
+
+    /**
+     * Тип по классу сущности или <code>null</code>, если ни класс, ни его суперклассы не соответствуют типу
+     */
+    public static Meta.Type byClass(Class<?> clazz) {
+        return clazz == null ? null : BY_CLASS_HIERARCHY.get(clazz).orElse(null);
+    }
+
+    /**
+     * Класс сущности по имени типа в API или <code>null</code>, если тип неизвестен
+     */
+    public static Class<? extends MetaEntity> modelClass(String apiName) {
+        Meta.Type type = byApiName(apiName);
+        return type == null ? null : type.getModelClass();
+    }
+}
@@ -23,7 +23,7 @@ public class Publication extends MetaEntity {
     }
 
     public static class Deserializer implements JsonDeserializer<Publication> {
-        private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
+        private final Gson gson = JsonUtils.getGsonWithMetaAdapter();
 
         @Override
         public Publication deserialize(JsonElement json, java.lang.reflect.Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
@@ -40,7 +40,7 @@ public class Template extends MetaEntity {
     private transient Boolean isEmbedded;
 
     public static class Deserializer implements JsonDeserializer<Template> {
-        private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
+        private final Gson gson = JsonUtils.getGsonWithMetaAdapter();
 
         @Override
         public Template deserialize(JsonElement json, java.lang.reflect.Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
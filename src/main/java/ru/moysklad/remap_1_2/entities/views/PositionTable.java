@@ -0,0 +1,333 @@
+package ru.moysklad.remap_1_2.entities.views;
+
+import ru.moysklad.remap_1_2.utils.json.ViewDecoder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Таблица позиций документов для аналитики, хранящая данные по столбцам.
+ * <br>
+ * Цена, количество, скидка и НДС хранятся в массивах примитивов, а товар, склад и день документа — в виде
+ * номеров в словарях, поэтому одна позиция занимает около 40 байт. Группировка и суммирование выполняются
+ * последовательным проходом по массивам, без обращения к объектам позиций
+ * <pre>
+ * PositionTable table = new PositionTable();
+ * for (Demand demand : api.entity().demand().iterate()) {
+ *     String storeId = demand.getStore().getId();
+ *     LocalDate day = demand.getMoment().toLocalDate();
+ *     api.entity().demand().forEachPositionView(demand, PositionTable.FIELDS, p -&gt; table.append(p, storeId, day));
+ * }
+ * Map&lt;String, Double&gt; sums = table.sumByAssortment(PositionTable.Measure.SUM);
+ * </pre>
+ * Таблица не потокобезопасна
+ */
+public final class PositionTable {
+    /**
+     * Поля позиций, которые хранит таблица. Остальные поля при разборе ответа можно не читать
+     */
+    public static final Set<PositionView.Field> FIELDS = Collections.unmodifiableSet(EnumSet.of(
+            PositionView.Field.ASSORTMENT,
+            PositionView.Field.QUANTITY,
+            PositionView.Field.PRICE,
+            PositionView.Field.DISCOUNT,
+            PositionView.Field.VAT
+    ));
+
+    /**
+     * Количество строк, которые обрабатываются за один проход при группировке. Блок значений помещается в
+     * кэш процессора, а вычисление значений не смешивается с разбросом по группам
+     */
+    private static final int BLOCK_SIZE = 1024;
+
+    private final ViewDecoder<PositionView> decoder = PositionView.decoder(FIELDS);
+
+    private final Codes<String> assortments = new Codes<>();
+    private final Codes<String> stores = new Codes<>();
+    private final Codes<LocalDate> days = new Codes<>();
+
+    private int size;
+    private int[] assortment;
+    private int[] store;
+    private int[] day;
+    private long[] price;
+    private double[] quantity;
+    private double[] discount;
+    private int[] vat;
+
+    public PositionTable() {
+        this(1024);
+    }
+
+    /**
+     * @param capacity ожидаемое количество позиций
+     */
+    public PositionTable(int capacity) {
+        assortment = new int[capacity];
+        store = new int[capacity];
+        day = new int[capacity];
+        price = new long[capacity];
+        quantity = new double[capacity];
+        discount = new double[capacity];
+        vat = new int[capacity];
+    }
+
+    /**
+     * Количество позиций в таблице
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Добавляет позицию документа
+     *
+     * @param storeId ID склада документа или <code>null</code>
+     * @param day     день документа или <code>null</code>
+     */
+    public void append(PositionView position, String storeId, LocalDate day) {
+        append(position, stores.code(storeId), days.code(day));
+    }
+
+    /**
+     * Добавляет позиции одного документа
+     *
+     * @param storeId ID склада документа или <code>null</code>
+     * @param day     день документа или <code>null</code>
+     */
+    public void appendAll(Iterable<PositionView> positions, String storeId, LocalDate day) {
+        int storeCode = stores.code(storeId);
+        int dayCode = days.code(day);
+        for (PositionView position : positions) {
+            append(position, storeCode, dayCode);
+        }
+    }
+
+    /**
+     * Добавляет позиции одного документа, разбирая их по одной прямо из ответа API на запрос списка позиций
+     *
+     * @param storeId ID склада документа или <code>null</code>
+     * @param day     день документа или <code>null</code>
+     * @return количество добавленных позиций
+     */
+    public int read(Reader json, String storeId, LocalDate day) throws IOException {
+        int before = size;
+        int storeCode = stores.code(storeId);
+        int dayCode = days.code(day);
+        decoder.readRows(json, position -> append(position, storeCode, dayCode));
+        return size - before;
+    }
+
+    private void append(PositionView position, int storeCode, int dayCode) {
+        if (size == price.length) grow();
+
+        assortment[size] = assortments.code(position.getAssortmentId());
+        store[size] = storeCode;
+        day[size] = dayCode;
+        price[size] = position.getPrice();
+        quantity[size] = position.getQuantity();
+        discount[size] = position.getDiscount();
+        vat[size] = position.getVat();
+        size++;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, price.length * 2);
+        assortment = Arrays.copyOf(assortment, capacity);
+        store = Arrays.copyOf(store, capacity);
+        day = Arrays.copyOf(day, capacity);
+        price = Arrays.copyOf(price, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        discount = Arrays.copyOf(discount, capacity);
+        vat = Arrays.copyOf(vat, capacity);
+    }
+
+    public String getAssortmentId(int row) {
+        return assortments.value(assortment[checkRow(row)]);
+    }
+
+    public String getStoreId(int row) {
+        return stores.value(store[checkRow(row)]);
+    }
+
+    public LocalDate getDay(int row) {
+        return days.value(day[checkRow(row)]);
+    }
+
+    public long getPrice(int row) {
+        return price[checkRow(row)];
+    }
+
+    public double getQuantity(int row) {
+        return quantity[checkRow(row)];
+    }
+
+    public double getDiscount(int row) {
+        return discount[checkRow(row)];
+    }
+
+    public int getVat(int row) {
+        return vat[checkRow(row)];
+    }
+
+    /**
+     * Итог по всем позициям
+     */
+    public double total(Measure measure) {
+        double total = 0;
+        double[] block = new double[BLOCK_SIZE];
+        for (int from = 0; from < size; from += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, size - from);
+            measure.compute(this, from, length, block);
+            for (int i = 0; i < length; i++) {
+                total += block[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Итоги по товарам. Позиции без товара не учитываются
+     */
+    public Map<String, Double> sumByAssortment(Measure measure) {
+        return toMap(assortments, sumBy(assortment, assortments.size(), measure), new HashMap<>());
+    }
+
+    /**
+     * Итоги по складам. Позиции документов без склада не учитываются
+     */
+    public Map<String, Double> sumByStore(Measure measure) {
+        return toMap(stores, sumBy(store, stores.size(), measure), new HashMap<>());
+    }
+
+    /**
+     * Итоги по дням в порядке возрастания дат. Позиции документов без даты не учитываются
+     */
+    public SortedMap<LocalDate, Double> sumByDay(Measure measure) {
+        return toMap(days, sumBy(day, days.size(), measure), new TreeMap<>());
+    }
+
+    /**
+     * Итоги по номерам групп: значения считаются блоками в отдельном цикле по массивам, затем добавляются
+     * к итогам своих групп
+     */
+    private double[] sumBy(int[] codes, int groups, Measure measure) {
+        double[] sums = new double[groups];
+        double[] block = new double[BLOCK_SIZE];
+        for (int from = 0; from < size; from += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, size - from);
+            measure.compute(this, from, length, block);
+            for (int i = 0; i < length; i++) {
+                int code = codes[from + i];
+                if (code >= 0) sums[code] += block[i];
+            }
+        }
+        return sums;
+    }
+
+    private static <K, M extends Map<K, Double>> M toMap(Codes<K> codes, double[] sums, M map) {
+        for (int code = 0; code < sums.length; code++) {
+            map.put(codes.value(code), sums[code]);
+        }
+        return map;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Строка: " + row + ", размер: " + size);
+        return row;
+    }
+
+    /**
+     * Суммируемая величина
+     */
+    public enum Measure {
+        /**
+         * Количество
+         */
+        QUANTITY {
+            @Override
+            void compute(PositionTable table, int from, int length, double[] out) {
+                System.arraycopy(table.quantity, from, out, 0, length);
+            }
+        },
+
+        /**
+         * Сумма с учётом скидки (в копейках)
+         */
+        SUM {
+            @Override
+            void compute(PositionTable table, int from, int length, double[] out) {
+                long[] price = table.price;
+                double[] quantity = table.quantity;
+                double[] discount = table.discount;
+                for (int i = 0; i < length; i++) {
+                    out[i] = price[from + i] * quantity[from + i] * (1 - discount[from + i] / 100);
+                }
+            }
+        },
+
+        /**
+         * НДС, включённый в сумму с учётом скидки (в копейках). Для документов, в которых НДС включён в цену
+         * (<code>vatEnabled</code> и <code>vatIncluded</code>)
+         */
+        INCLUDED_VAT_SUM {
+            @Override
+            void compute(PositionTable table, int from, int length, double[] out) {
+                SUM.compute(table, from, length, out);
+                int[] vat = table.vat;
+                for (int i = 0; i < length; i++) {
+                    out[i] = out[i] * vat[from + i] / (100 + vat[from + i]);
+                }
+            }
+        },
+
+        /**
+         * НДС сверх суммы с учётом скидки (в копейках). Для документов, в которых НДС начисляется сверх цены
+         * (<code>vatEnabled</code> без <code>vatIncluded</code>)
+         */
+        ADDED_VAT_SUM {
+            @Override
+            void compute(PositionTable table, int from, int length, double[] out) {
+                SUM.compute(table, from, length, out);
+                int[] vat = table.vat;
+                for (int i = 0; i < length; i++) {
+                    out[i] = out[i] * vat[from + i] / 100;
+                }
+            }
+        };
+
+        /**
+         * Записывает значения строк <code>[from, from + length)</code> в начало массива <code>out</code>
+         */
+        abstract void compute(PositionTable table, int from, int length, double[] out);
+    }
+
+    /**
+     * Словарь значений столбца: каждому значению соответствует номер, <code>null</code> соответствует <code>-1</code>
+     */
+    private static final class Codes<T> {
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        int code(T value) {
+            if (value == null) return -1;
+
+            Integer code = codes.get(value);
+            if (code != null) return code;
+
+            codes.put(value, values.size());
+            values.add(value);
+            return values.size() - 1;
+        }
+
+        T value(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package ru.moysklad.remap_1_2.entities.views;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.MetaTypeRegistry;
+import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
+import ru.moysklad.remap_1_2.utils.json.ViewDecoder;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Облегчённая модель позиции документа для чтения больших списков, например для расчёта сумм и остатков.
+ * <br>
+ * Числовые поля хранятся в примитивных типах, цена — в копейках. Разбираются только поля, выбранные при
+ * создании декодера; остальные, как и пустые поля ответа, равны <code>0</code> или <code>null</code>
+ * <pre>
+ * ViewListEntity&lt;PositionView&gt; positions = api.entity().customerorder().getPositionViews(
+ *         orderId, EnumSet.of(PositionView.Field.ASSORTMENT, PositionView.Field.QUANTITY, PositionView.Field.PRICE)
+ * );
+ * </pre>
+ *
+ * @see ru.moysklad.remap_1_2.entities.documents.DocumentPosition
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PositionView {
+    private String id;
+
+    /**
+     * ID товара, услуги, модификации или комплекта позиции
+     */
+    private String assortmentId;
+
+    /**
+     * Тип товара, услуги, модификации или комплекта позиции
+     */
+    private Meta.Type assortmentType;
+
+    private double quantity;
+
+    /**
+     * Цена за единицу (в копейках)
+     */
+    private long price;
+
+    /**
+     * Скидка в процентах
+     */
+    private double discount;
+
+    /**
+     * НДС в процентах
+     */
+    private int vat;
+
+    /**
+     * Зарезервированное количество
+     */
+    private double reserve;
+
+    /**
+     * Отгруженное количество
+     */
+    private double shipped;
+
+    /**
+     * Декодер, который разбирает указанные поля
+     */
+    public static ViewDecoder<PositionView> decoder(Set<Field> fields) {
+        return new Decoder(fields);
+    }
+
+    /**
+     * Декодер, который разбирает все поля
+     */
+    public static ViewDecoder<PositionView> decoder() {
+        return decoder(EnumSet.allOf(Field.class));
+    }
+
+    /**
+     * Поля модели и соответствующие им поля JSON
+     */
+    @RequiredArgsConstructor
+    public enum Field {
+        ID("id"),
+        /**
+         * ID и тип товара позиции
+         */
+        ASSORTMENT("assortment"),
+        QUANTITY("quantity"),
+        PRICE("price"),
+        DISCOUNT("discount"),
+        VAT("vat"),
+        RESERVE("reserve"),
+        SHIPPED("shipped");
+
+        private final String jsonName;
+    }
+
+    private static final class Decoder extends ViewDecoder<PositionView> {
+        private final Map<String, Field> fields = new HashMap<>();
+
+        Decoder(Set<Field> fields) {
+            for (Field field : fields) {
+                this.fields.put(field.jsonName, field);
+            }
+        }
+
+        @Override
+        public PositionView read(JsonReader in) throws IOException {
+            PositionView view = new PositionView();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                Field field = fields.get(in.nextName());
+                if (field == null) {
+                    in.skipValue();
+                    continue;
+                }
+
+                switch (field) {
+                    case ID:
+                        view.id = nextString(in);
+                        break;
+                    case ASSORTMENT:
+                        readAssortment(in, view);
+                        break;
+                    case QUANTITY:
+                        view.quantity = nextDouble(in);
+                        break;
+                    case PRICE:
+                        view.price = nextLong(in);
+                        break;
+                    case DISCOUNT:
+                        view.discount = nextDouble(in);
+                        break;
+                    case VAT:
+                        view.vat = nextInt(in);
+                        break;
+                    case RESERVE:
+                        view.reserve = nextDouble(in);
+                        break;
+                    case SHIPPED:
+                        view.shipped = nextDouble(in);
+                        break;
+                }
+            }
+            in.endObject();
+            return view;
+        }
+
+        /**
+         * Читает ID и тип из метаданных товара позиции; остальные поля товара (если он раскрыт) пропускаются
+         */
+        private static void readAssortment(JsonReader in, PositionView view) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return;
+            }
+
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!"meta".equals(in.nextName()) || in.peek() != JsonToken.BEGIN_OBJECT) {
+                    in.skipValue();
+                    continue;
+                }
+
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "href":
+                            String href = nextString(in);
+                            view.assortmentId = href == null ? null : MetaHrefUtils.getIdFromHref(href).orElse(null);
+                            break;
+                        case "type":
+                            String type = nextString(in);
+                            view.assortmentType = type == null ? null : MetaTypeRegistry.byApiName(type);
+                            break;
+                        default:
+                            in.skipValue();
+                    }
+                }
+                in.endObject();
+            }
+            in.endObject();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ru.moysklad.remap_1_2.entities.views;
+
+import com.google.gson.stream.JsonReader;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
+import ru.moysklad.remap_1_2.utils.json.ViewDecoder;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Облегчённая модель товара для чтения больших списков, например для расчёта цен.
+ * <br>
+ * Числовые поля хранятся в примитивных типах, цены — в копейках. Разбираются только поля, выбранные при
+ * создании декодера; остальные, как и пустые поля ответа, равны <code>0</code>, <code>false</code> или
+ * <code>null</code> для строк
+ * <pre>
+ * api.entity().product().forEachView(
+ *         EnumSet.of(ProductView.Field.ID, ProductView.Field.BUY_PRICE, ProductView.Field.SALE_PRICES),
+ *         product -&gt; buyPrices.put(product.getId(), product.getBuyPrice())
+ * );
+ * </pre>
+ *
+ * @see ru.moysklad.remap_1_2.entities.products.Product
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ProductView {
+    private static final long[] NO_PRICES = new long[0];
+
+    private String id;
+    private String name;
+    private String code;
+    private String article;
+    private String externalCode;
+    private boolean archived;
+
+    /**
+     * ID группы товара
+     */
+    private String folderId;
+
+    /**
+     * НДС в процентах
+     */
+    private int vat;
+    private double weight;
+    private double volume;
+
+    /**
+     * Неснижаемый остаток
+     */
+    private double minimumBalance;
+
+    /**
+     * Закупочная цена
+     */
+    private long buyPrice;
+
+    /**
+     * Минимальная цена
+     */
+    private long minPrice;
+
+    /**
+     * Цены продажи в порядке типов цен. Массив не копируется, изменять его нельзя
+     */
+    private long[] salePrices = NO_PRICES;
+
+    /**
+     * Цена продажи с указанным номером или <code>0</code>, если её нет
+     */
+    public long getSalePrice(int index) {
+        return index < salePrices.length ? salePrices[index] : 0;
+    }
+
+    /**
+     * Декодер, который разбирает указанные поля
+     */
+    public static ViewDecoder<ProductView> decoder(Set<Field> fields) {
+        return new Decoder(fields);
+    }
+
+    /**
+     * Декодер, который разбирает все поля
+     */
+    public static ViewDecoder<ProductView> decoder() {
+        return decoder(EnumSet.allOf(Field.class));
+    }
+
+    /**
+     * Поля модели и соответствующие им поля JSON
+     */
+    @RequiredArgsConstructor
+    public enum Field {
+        ID("id"),
+        NAME("name"),
+        CODE("code"),
+        ARTICLE("article"),
+        EXTERNAL_CODE("externalCode"),
+        ARCHIVED("archived"),
+        FOLDER_ID("productFolder"),
+        VAT("vat"),
+        WEIGHT("weight"),
+        VOLUME("volume"),
+        MINIMUM_BALANCE("minimumBalance"),
+        BUY_PRICE("buyPrice"),
+        MIN_PRICE("minPrice"),
+        SALE_PRICES("salePrices");
+
+        private final String jsonName;
+    }
+
+    private static final class Decoder extends ViewDecoder<ProductView> {
+        private final Map<String, Field> fields = new HashMap<>();
+
+        Decoder(Set<Field> fields) {
+            for (Field field : fields) {
+                this.fields.put(field.jsonName, field);
+            }
+        }
+
+        @Override
+        public ProductView read(JsonReader in) throws IOException {
+            ProductView view = new ProductView();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                Field field = fields.get(in.nextName());
+                if (field == null) {
+                    in.skipValue();
+                    continue;
+                }
+
+                switch (field) {
+                    case ID:
+                        view.id = nextString(in);
+                        break;
+                    case NAME:
+                        view.name = nextString(in);
+                        break;
+                    case CODE:
+                        view.code = nextString(in);
+                        break;
+                    case ARTICLE:
+                        view.article = nextString(in);
+                        break;
+                    case EXTERNAL_CODE:
+                        view.externalCode = nextString(in);
+                        break;
+                    case ARCHIVED:
+                        view.archived = nextBoolean(in);
+                        break;
+                    case FOLDER_ID:
+                        String href = nextReferenceHref(in);
+                        view.folderId = href == null ? null : MetaHrefUtils.getIdFromHref(href).orElse(null);
+                        break;
+                    case VAT:
+                        view.vat = nextInt(in);
+                        break;
+                    case WEIGHT:
+                        view.weight = nextDouble(in);
+                        break;
+                    case VOLUME:
+                        view.volume = nextDouble(in);
+                        break;
+                    case MINIMUM_BALANCE:
+                        view.minimumBalance = nextDouble(in);
+                        break;
+                    case BUY_PRICE:
+                        view.buyPrice = nextPriceValue(in);
+                        break;
+                    case MIN_PRICE:
+                        view.minPrice = nextPriceValue(in);
+                        break;
+                    case SALE_PRICES:
+                        view.salePrices = nextPriceValues(in);
+                        break;
+                }
+            }
+            in.endObject();
+            return view;
+        }
+    }
+}
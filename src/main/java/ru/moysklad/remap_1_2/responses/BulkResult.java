@@ -0,0 +1,70 @@
+package ru.moysklad.remap_1_2.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static lombok.AccessLevel.PUBLIC;
+
+/**
+ * Результат массовой операции, разбитой на несколько запросов. Элементы результата идут в том же
+ * порядке, что и переданные сущности; ошибка в одном из запросов не прерывает выполнение остальных
+ *
+ * @param <R> тип результата для одной сущности
+ */
+@Getter
+public final class BulkResult<R> {
+    private final List<Item<R>> items;
+
+    public BulkResult(List<Item<R>> items) {
+        this.items = Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Результаты в порядке переданных сущностей; для сущностей с ошибкой — <code>null</code>
+     */
+    public List<R> getResults() {
+        return items.stream().map(Item::getResult).collect(Collectors.toList());
+    }
+
+    /**
+     * Элементы, для которых операция не выполнена
+     */
+    public List<Item<R>> getFailures() {
+        return items.stream().filter(i -> !i.isSuccess()).collect(Collectors.toList());
+    }
+
+    public boolean hasFailures() {
+        return items.stream().anyMatch(i -> !i.isSuccess());
+    }
+
+    /**
+     * Результат операции для одной сущности
+     */
+    @Getter
+    @AllArgsConstructor(access = PUBLIC)
+    public static final class Item<R> {
+        /**
+         * Индекс сущности в переданном списке
+         */
+        private final int index;
+        private final R result;
+
+        /**
+         * Ошибки API, возвращённые для этой сущности
+         */
+        private final List<ErrorResponse.Error> errors;
+
+        /**
+         * Исключение, с которым завершился весь запрос, содержавший эту сущность
+         */
+        private final Exception exception;
+
+        public boolean isSuccess() {
+            return exception == null && (errors == null || errors.isEmpty());
+        }
+    }
+}
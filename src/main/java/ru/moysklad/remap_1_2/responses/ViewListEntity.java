@@ -0,0 +1,22 @@
+package ru.moysklad.remap_1_2.responses;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.moysklad.remap_1_2.entities.Meta;
+
+import java.util.List;
+
+/**
+ * Страница списка облегчённых моделей для чтения: строки и метаданные списка (общий размер, отступ и размер
+ * страницы)
+ *
+ * @see ru.moysklad.remap_1_2.utils.json.ViewDecoder
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public final class ViewListEntity<V> {
+    private Meta meta;
+    private List<V> rows;
+}
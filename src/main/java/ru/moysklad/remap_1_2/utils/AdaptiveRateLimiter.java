@@ -0,0 +1,272 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_PARALLEL_REQUESTS;
+
+/**
+ * Ограничитель запросов, который учитывает лимит запросов за период и количество одновременно
+ * выполняемых запросов.
+ * <br>
+ * Лимит за период работает как «ведро токенов»: ведро вмещает <code>limit</code> запросов и равномерно
+ * пополняется за <code>window</code>, поэтому после исчерпания лимита запросы отправляются с постоянной
+ * максимально допустимой частотой, а не пачками. Лимит и период уточняются по заголовкам ответов API:
+ * <ul>
+ *     <li><code>X-RateLimit-Limit</code> — количество запросов за период</li>
+ *     <li><code>X-Lognex-Retry-TimeInterval</code> — длительность периода в миллисекундах</li>
+ *     <li><code>X-RateLimit-Remaining</code> — количество запросов, оставшихся до ошибки 429</li>
+ *     <li><code>X-Lognex-Reset</code> — время до сброса ограничения в миллисекундах</li>
+ *     <li><code>X-Lognex-Retry-After</code> — время, через которое можно повторить запрос после ошибки 429</li>
+ * </ul>
+ * Если лимит за период не задан при создании, он не применяется до первого ответа с заголовком
+ * <code>X-RateLimit-Limit</code>; ограничение количества одновременных запросов действует всегда.
+ */
+public final class AdaptiveRateLimiter implements RateLimiter {
+    /**
+     * Ограничители учётных записей. Хранятся по слабым ссылкам: ограничитель удерживают коннекторы, которые
+     * им пользуются, и после их сборки запись удаляется
+     */
+    private static final ConcurrentMap<String, AccountReference> ACCOUNTS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<AdaptiveRateLimiter> RELEASED = new ReferenceQueue<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final int maxInFlight;
+
+    /**
+     * Количество запросов за период, <code>0</code> — лимит неизвестен и не применяется
+     */
+    private int limit;
+    private long windowNanos;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private boolean blocked;
+    private long blockedUntil;
+    private int inFlight;
+
+    /**
+     * Создаёт ограничитель, лимит запросов за период которого определяется по заголовкам ответов API
+     *
+     * @param maxInFlight максимальное количество одновременно выполняемых запросов
+     */
+    public AdaptiveRateLimiter(int maxInFlight) {
+        this(0, TimeUnit.SECONDS.toMillis(3), maxInFlight);
+    }
+
+    /**
+     * @param limit        количество запросов за период
+     * @param windowMillis длительность периода в миллисекундах
+     * @param maxInFlight  максимальное количество одновременно выполняемых запросов
+     */
+    public AdaptiveRateLimiter(int limit, long windowMillis, int maxInFlight) {
+        if (limit < 0) throw new IllegalArgumentException("Лимит запросов не может быть отрицательным!");
+        if (windowMillis <= 0) throw new IllegalArgumentException("Период лимита запросов должен быть положительным!");
+        if (maxInFlight <= 0) throw new IllegalArgumentException("Количество параллельных запросов должно быть положительным!");
+
+        this.limit = limit;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.tokens = limit;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Ограничитель, общий для всех коннекторов, работающих от имени одной учётной записи. Лимит
+     * запросов за период определяется по заголовкам ответов API, одновременно выполняется не более
+     * {@link Constants#MAX_PARALLEL_REQUESTS} запросов
+     *
+     * @param account идентификатор учётной записи (например, хост и логин). Хранится в статическом реестре,
+     *                поэтому секреты (токен, пароль) передаются только в виде хеша
+     */
+    public static AdaptiveRateLimiter forAccount(String account) {
+        for (Reference<? extends AdaptiveRateLimiter> ref; (ref = RELEASED.poll()) != null; ) {
+            ACCOUNTS.remove(((AccountReference) ref).account, ref);
+        }
+
+        while (true) {
+            AccountReference ref = ACCOUNTS.get(account);
+            AdaptiveRateLimiter limiter = ref == null ? null : ref.get();
+            if (limiter != null) return limiter;
+
+            limiter = new AdaptiveRateLimiter(MAX_PARALLEL_REQUESTS);
+            AccountReference added = new AccountReference(account, limiter);
+            if (ref == null ? ACCOUNTS.putIfAbsent(account, added) == null : ACCOUNTS.replace(account, ref, added)) {
+                return limiter;
+            }
+        }
+    }
+
+    @Override
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                // await() может вернуться без исключения, если сигнал пришёл одновременно с прерыванием
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                long now = System.nanoTime();
+                refill(now);
+
+                long wait = waitNanos(now);
+                if (wait == 0) {
+                    if (limit > 0) tokens -= 1;
+                    inFlight++;
+                    return;
+                }
+
+                if (wait < 0) changed.await();
+                else changed.awaitNanos(wait);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(HttpResponse response) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (response != null) update(response, System.nanoTime());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getRemaining() {
+        lock.lock();
+        try {
+            if (limit == 0) return -1;
+
+            refill(System.nanoTime());
+            return (int) tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Количество запросов за период, <code>0</code> — если лимит ещё неизвестен
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Количество запросов, выполняемых в данный момент
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Время ожидания до возможности отправить запрос: <code>0</code> — можно отправлять сразу,
+     * <code>-1</code> — нужно дождаться завершения одного из выполняемых запросов
+     */
+    private long waitNanos(long now) {
+        if (inFlight >= maxInFlight) return -1;
+
+        if (blocked) {
+            if (blockedUntil - now > 0) return blockedUntil - now;
+            blocked = false;
+        }
+
+        if (limit > 0 && tokens < 1) {
+            return Math.max(1, (long) Math.ceil((1 - tokens) * windowNanos / limit));
+        }
+        return 0;
+    }
+
+    private void refill(long now) {
+        if (limit > 0) {
+            tokens = Math.min(limit, tokens + (double) (now - refilledAt) * limit / windowNanos);
+        }
+        refilledAt = now;
+    }
+
+    private void update(HttpResponse response, long now) {
+        Long headerLimit = header(response, "X-RateLimit-Limit");
+        Long interval = header(response, "X-Lognex-Retry-TimeInterval");
+        Long remaining = header(response, "X-RateLimit-Remaining");
+        Long reset = header(response, "X-Lognex-Reset");
+        Long retryAfter = header(response, "X-Lognex-Retry-After");
+
+        refill(now);
+
+        if (interval != null && interval > 0) windowNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+
+        if (headerLimit != null && headerLimit > 0 && headerLimit != limit) {
+            if (limit == 0) tokens = headerLimit;
+            limit = headerLimit.intValue();
+            tokens = Math.min(tokens, limit);
+        }
+
+        if (remaining != null && limit > 0) tokens = Math.min(tokens, Math.max(0, remaining));
+
+        if (response.getStatusLine() != null && response.getStatusLine().getStatusCode() == 429) {
+            tokens = 0;
+            Long after = retryAfter != null ? retryAfter : reset;
+            block(now, after != null ? after : TimeUnit.NANOSECONDS.toMillis(windowNanos));
+        } else if (remaining != null && remaining <= 0 && reset != null) {
+            block(now, reset);
+        }
+    }
+
+    private void block(long now, long millis) {
+        if (millis <= 0) return;
+
+        long until = now + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (!blocked || until - blockedUntil > 0) {
+            blockedUntil = until;
+            blocked = true;
+        }
+    }
+
+    private static Long header(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        if (header == null || header.getValue() == null) return null;
+
+        try {
+            return Long.valueOf(header.getValue().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Слабая ссылка на ограничитель учётной записи, помнящая свой ключ
+     */
+    private static final class AccountReference extends WeakReference<AdaptiveRateLimiter> {
+        private final String account;
+
+        AccountReference(String account, AdaptiveRateLimiter limiter) {
+            super(limiter, RELEASED);
+            this.account = account;
+        }
+    }
+}
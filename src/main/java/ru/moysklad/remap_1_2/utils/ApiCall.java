@@ -0,0 +1,13 @@
+package ru.moysklad.remap_1_2.utils;
+
+import java.io.IOException;
+
+/**
+ * Вызов метода API, который можно выполнить асинхронно
+ *
+ * @see ApiFuture
+ */
+@FunctionalInterface
+public interface ApiCall<T> {
+    T call() throws IOException, ApiClientException;
+}
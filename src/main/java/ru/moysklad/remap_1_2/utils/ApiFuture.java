@@ -0,0 +1,98 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Результат асинхронного вызова API.
+ * <br>
+ * Вызов выполняется в указанном пуле потоков и проходит через ограничитель и политику повтора запросов
+ * коннектора так же, как синхронный. Ошибки вызова завершают future исключением {@link ApiClientException}
+ * или {@link java.io.IOException}.
+ * <br>
+ * Отмена через {@link #cancel(boolean)} прерывает выполняемый HTTP-запрос (или ожидание лимита
+ * запросов и паузу перед повтором), если вызов уже начался, и не даёт ему начаться, если ещё нет.
+ * Отмена зависимых стадий (<code>thenApply()</code> и т. п.) на исходный вызов не влияет
+ */
+public final class ApiFuture<T> extends CompletableFuture<T> {
+    private static final ThreadLocal<ApiFuture<?>> CURRENT = new ThreadLocal<>();
+
+    private Thread runner;
+    private HttpUriRequest request;
+
+    private ApiFuture() {
+    }
+
+    /**
+     * Выполняет вызов API в указанном пуле потоков
+     */
+    public static <T> ApiFuture<T> supplyAsync(ApiCall<T> call, Executor executor) {
+        ApiFuture<T> future = new ApiFuture<>();
+        try {
+            executor.execute(() -> future.run(call));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            synchronized (this) {
+                if (request != null) request.abort();
+                if (runner != null) runner.interrupt();
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Связывает HTTP-запрос с асинхронным вызовом, который выполняется в текущем потоке, чтобы его
+     * можно было прервать при отмене вызова
+     */
+    static void attach(HttpUriRequest request) {
+        ApiFuture<?> future = CURRENT.get();
+        if (future == null) return;
+
+        synchronized (future) {
+            future.request = request;
+            if (future.isCancelled()) request.abort();
+        }
+    }
+
+    static void detach() {
+        ApiFuture<?> future = CURRENT.get();
+        if (future == null) return;
+
+        synchronized (future) {
+            future.request = null;
+        }
+    }
+
+    private void run(ApiCall<T> call) {
+        synchronized (this) {
+            if (isDone()) return;
+            runner = Thread.currentThread();
+        }
+
+        CURRENT.set(this);
+        try {
+            complete(call.call());
+        } catch (Throwable e) {
+            completeExceptionally(e);
+        } finally {
+            CURRENT.remove();
+            synchronized (this) {
+                runner = null;
+                request = null;
+            }
+            // Сбрасываем прерывание, выставленное отменой, чтобы оно не досталось следующей задаче пула
+            if (isCancelled()) Thread.interrupted();
+        }
+    }
+}
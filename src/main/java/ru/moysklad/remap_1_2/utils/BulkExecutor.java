@@ -0,0 +1,282 @@
+package ru.moysklad.remap_1_2.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.responses.BulkResult;
+import ru.moysklad.remap_1_2.responses.ErrorResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static lombok.AccessLevel.PRIVATE;
+import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_PARALLEL_REQUESTS;
+
+/**
+ * Выполнение массовых операций, которые не помещаются в один запрос.
+ * <br>
+ * Сущности разбиваются на части, каждая из которых не превышает заданного количества сущностей и
+ * размера тела запроса в байтах. Части отправляются параллельно, не более
+ * {@link Constants#MAX_PARALLEL_REQUESTS} запросов одновременно (с учётом ограничителя запросов
+ * коннектора). Ошибка при выполнении одного запроса отмечается в результатах его сущностей и не
+ * прерывает выполнение остальных
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class BulkExecutor {
+    private static final Type ERRORS_TYPE = new TypeToken<List<ErrorResponse.Error>>() {}.getType();
+
+    /**
+     * Выполняет массовую операцию, отправляя POST-запросы с частями списка сущностей
+     *
+     * @param api         коннектор
+     * @param path        путь к методу API массовой операции
+     * @param entities    сущности с заполненными метаданными
+     * @param resultClass класс результата для одной сущности
+     * @param maxCount    максимальное количество сущностей в одном запросе
+     * @param maxBytes    максимальный размер тела одного запроса в байтах (сущность, которая
+     *                    превышает его сама по себе, отправляется отдельным запросом)
+     * @throws InterruptedIOException когда поток был прерван во время ожидания результатов
+     */
+    public static <T, R> BulkResult<R> execute(ApiClient api, String path, List<T> entities, Class<R> resultClass,
+                                               int maxCount, long maxBytes) throws InterruptedIOException {
+        if (maxCount <= 0) throw new IllegalArgumentException("Количество сущностей в запросе должно быть положительным!");
+        if (maxBytes <= 0) throw new IllegalArgumentException("Размер запроса должен быть положительным!");
+
+        Chunks<T> chunks = new Chunks<>(api.getGson(), entities, maxCount, maxBytes);
+
+        @SuppressWarnings("unchecked")
+        BulkResult.Item<R>[] items = new BulkResult.Item[entities.size()];
+        AtomicReference<InterruptedIOException> interrupted = new AtomicReference<>();
+
+        Worker worker = () -> {
+            // Каждый обработчик забирает следующую часть, пока они не закончатся
+            Chunk chunk;
+            while ((chunk = chunks.claim()) != null) {
+                try {
+                    if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+                    executeChunk(api, path, chunk, resultClass, items);
+                } catch (InterruptedIOException e) {
+                    interrupted.compareAndSet(null, e);
+                    chunks.stop();
+                    throw e;
+                } finally {
+                    chunks.release();
+                }
+            }
+        };
+
+        // Вызывающий поток обрабатывает части наравне с потоками пула, поэтому операция завершается,
+        // даже если все потоки пула заняты (например, когда она сама выполняется в этом пуле).
+        // Частей не меньше, чем получается при разбиении только по количеству сущностей
+        int minChunks = (int) ((entities.size() + (long) maxCount - 1) / maxCount);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int w = 1; w < Math.min(MAX_PARALLEL_REQUESTS, minChunks); w++) {
+            futures.add(api.async(() -> {
+                worker.run();
+                return null;
+            }));
+        }
+        try {
+            worker.run();
+            chunks.await();
+        } catch (InterruptedIOException e) {
+            // Выполняемые запросы прерываются отменой
+            chunks.stop();
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        if (interrupted.get() != null) throw interrupted.get();
+
+        return new BulkResult<>(Arrays.asList(items));
+    }
+
+    /**
+     * Разбивает сущности на части, каждая из которых содержит не более <code>maxCount</code> сущностей
+     * и сериализуется в JSON-массив размером не более <code>maxBytes</code> байт. В отличие от
+     * {@link #execute}, собирает тела всех частей сразу
+     */
+    public static <T> List<Chunk> chunk(Gson gson, List<T> entities, int maxCount, long maxBytes) {
+        Chunks<T> chunks = new Chunks<>(gson, entities, maxCount, maxBytes);
+        List<Chunk> result = new ArrayList<>();
+        for (Chunk chunk; (chunk = chunks.claim()) != null; chunks.release()) {
+            result.add(chunk);
+        }
+        return result;
+    }
+
+    private static <R> void executeChunk(ApiClient api, String path, Chunk chunk,
+                                         Class<R> resultClass, BulkResult.Item<R>[] items) throws InterruptedIOException {
+        int offset = chunk.getOffset();
+        try {
+            List<JsonElement> response = HttpRequestExecutor.path(api, path).jsonBody(chunk.getBody()).postList(JsonElement.class);
+            if (response == null || response.size() != chunk.getSize()) {
+                throw new ApiClientException(api.getHost() + API_PATH + path, 200,
+                        "Количество элементов ответа (" + (response == null ? 0 : response.size()) +
+                                ") не совпадает с количеством сущностей в запросе (" + chunk.getSize() + ")");
+            }
+
+            Gson gson = api.getGson();
+            for (int i = 0; i < chunk.getSize(); i++) {
+                JsonElement element = response.get(i);
+                List<ErrorResponse.Error> errors = errors(gson, element);
+                R result = errors == null && element != null && !element.isJsonNull() ? gson.fromJson(element, resultClass) : null;
+                items[offset + i] = new BulkResult.Item<>(offset + i, result, errors, null);
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
+        } catch (IOException | ApiClientException | RuntimeException e) {
+            for (int i = 0; i < chunk.getSize(); i++) {
+                items[offset + i] = new BulkResult.Item<>(offset + i, null, null, e);
+            }
+        }
+    }
+
+    /**
+     * Ошибки, которые API вернуло на месте сущности, или <code>null</code>, если их нет
+     */
+    private static List<ErrorResponse.Error> errors(Gson gson, JsonElement element) {
+        if (element == null || !element.isJsonObject()) return null;
+
+        JsonObject object = element.getAsJsonObject();
+        if (!object.has("errors") || !object.get("errors").isJsonArray() || object.getAsJsonArray("errors").size() == 0) {
+            return null;
+        }
+        return gson.fromJson(object.get("errors"), ERRORS_TYPE);
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run() throws InterruptedIOException;
+    }
+
+    /**
+     * Части массовой операции, которые собираются по одной, когда обработчик забирает следующую часть:
+     * в памяти находятся только тела выполняемых запросов, а первый запрос отправляется, не дожидаясь
+     * сериализации остальных сущностей. Каждая сущность сериализуется один раз: сущность, которая не
+     * поместилась в часть по размеру, переносится в следующую
+     */
+    private static final class Chunks<T> {
+        private final Gson gson;
+        private final List<T> entities;
+        private final int maxCount;
+        private final long maxBytes;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        /**
+         * Номер следующей несериализованной сущности
+         */
+        private int cursor;
+
+        /**
+         * Сущность <code>cursor - 1</code>, которая не поместилась в предыдущую часть
+         */
+        private byte[] carried;
+
+        private boolean stopped;
+
+        /**
+         * Количество забранных, но ещё не обработанных частей
+         */
+        private int running;
+
+        Chunks(Gson gson, List<T> entities, int maxCount, long maxBytes) {
+            this.gson = gson;
+            this.entities = entities;
+            this.maxCount = maxCount;
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Собирает следующую часть и отмечает её как обрабатываемую
+         *
+         * @return часть или <code>null</code>, если части закончились или обработка остановлена
+         */
+        synchronized Chunk claim() {
+            if (stopped) return null;
+
+            int offset = carried == null ? cursor : cursor - 1;
+            int size = 0;
+            body.reset();
+            while (size < maxCount) {
+                byte[] json;
+                if (carried != null) {
+                    json = carried;
+                    carried = null;
+                } else if (cursor < entities.size()) {
+                    json = gson.toJson(entities.get(cursor++)).getBytes(StandardCharsets.UTF_8);
+                } else {
+                    break;
+                }
+
+                // Размер части с этой сущностью: открывающая скобка и сущности через запятую, плюс закрывающая скобка
+                if (size > 0 && body.size() + 1 + json.length + 1 > maxBytes) {
+                    carried = json;
+                    break;
+                }
+
+                body.write(size == 0 ? '[' : ',');
+                body.write(json, 0, json.length);
+                size++;
+            }
+            if (size == 0) return null;
+
+            body.write(']');
+            running++;
+            return new Chunk(offset, size, body.toByteArray());
+        }
+
+        /**
+         * Отмечает забранную часть обработанной
+         */
+        synchronized void release() {
+            running--;
+            notifyAll();
+        }
+
+        /**
+         * Останавливает обработку: оставшиеся части больше не собираются
+         */
+        synchronized void stop() {
+            stopped = true;
+            carried = null;
+        }
+
+        /**
+         * Дожидается обработки забранных частей. Вызывается, когда части закончились, поэтому задачи пула,
+         * которые так и не начали выполняться, не ожидаются
+         */
+        synchronized void await() throws InterruptedIOException {
+            try {
+                while (running > 0) wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ожидание результатов массовой операции прервано");
+            }
+        }
+    }
+
+    /**
+     * Часть массовой операции: номер первой сущности, количество сущностей и тело запроса
+     */
+    @Getter
+    @AllArgsConstructor(access = PRIVATE)
+    public static final class Chunk {
+        private final int offset;
+        private final int size;
+        private final byte[] body;
+    }
+}
@@ -8,4 +8,30 @@ import static lombok.AccessLevel.PRIVATE;
 public final class Constants {
     public static final String DATE_FORMAT_PATTERN = "yyyy-MM-dd HH:mm:ss.SSS";
     public static final String API_PATH = "/api/remap/1.2";
+
+    /**
+     * Максимальное значение параметра <code>limit</code> при запросе списка
+     */
+    public static final int MAX_LIST_LIMIT = 1000;
+
+    /**
+     * Максимальное значение параметра <code>limit</code> при запросе списка с параметром <code>expand</code>
+     */
+    public static final int MAX_EXPANDED_LIST_LIMIT = 100;
+
+    /**
+     * Максимальное количество параллельных запросов от одного пользователя
+     */
+    public static final int MAX_PARALLEL_REQUESTS = 5;
+
+    /**
+     * Максимальное количество сущностей в одном массовом запросе
+     */
+    public static final int MAX_MASS_OPERATION_SIZE = 1000;
+
+    /**
+     * Размер тела массового запроса в байтах, при превышении которого сущности разбиваются на несколько
+     * запросов (с запасом от ограничения API на размер тела запроса в 20 МБ)
+     */
+    public static final long MAX_MASS_OPERATION_BYTES = 16L * 1024 * 1024;
 }
@@ -1,11 +1,16 @@
 package ru.moysklad.remap_1_2.utils;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
-import org.apache.commons.io.FileUtils;
+import com.google.gson.stream.MalformedJsonException;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.slf4j.LoggerFactory;
@@ -14,16 +19,35 @@ import ru.moysklad.remap_1_2.ApiClient;
 import ru.moysklad.remap_1_2.entities.MetaEntity;
 import ru.moysklad.remap_1_2.responses.ErrorResponse;
 import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.responses.ViewListEntity;
+import ru.moysklad.remap_1_2.utils.json.ViewDecoder;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import static java.nio.file.StandardOpenOption.*;
 import static ru.moysklad.remap_1_2.utils.Constants.API_PATH;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
@@ -32,6 +56,7 @@ public final class HttpRequestExecutor {
     private static final Logger logger = LoggerFactory.getLogger(HttpRequestExecutor.class);
     private static final Base64.Encoder b64enc = Base64.getEncoder();
     private static Charset queryParamsCharset = Charset.forName("UTF-8");
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
 
     private final String hostApiPath;
     private final String url;
@@ -40,7 +65,17 @@ public final class HttpRequestExecutor {
     private Map<String, Object> headers;
     private final Gson gson;
     private final CloseableHttpClient client;
+    private final RateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Минимальный размер тела запроса в байтах, начиная с которого оно сжимается gzip,
+     * <code>-1</code> — сжатие выключено
+     */
+    private final int compressionThreshold;
     private Object body;
+    private boolean streamBody;
+    private boolean rawBody;
 
     private HttpRequestExecutor(ApiClient api, String url) {
         if (api == null) {
@@ -58,11 +93,15 @@ public final class HttpRequestExecutor {
         if (api.isPrettyPrintJson()) header("Lognex-Pretty-Print-JSON", "true");
         if (api.isPricePrecision()) header("X-Lognex-Precision", "true");
         if (api.isWithoutWebhookContent()) header("X-Lognex-WebHook-Disable", "true");
+        if (api.isCompression()) header("Accept-Encoding", "gzip");
 
-        gson = ApiClient.createGson();
+        gson = api.getGson();
+        rateLimiter = api.getRateLimiter();
+        retryPolicy = api.getRetryPolicy();
+        compressionThreshold = api.isCompression() ? api.getCompressionThreshold() : -1;
     }
 
-    private HttpRequestExecutor(CloseableHttpClient client, String url) {
+    private HttpRequestExecutor(CloseableHttpClient client, ApiClient api, String url) {
         if (client == null)
             throw new IllegalArgumentException("Для выполнения запроса нужен проинициализированный экземпляр CloseableHttpClient!");
 
@@ -72,7 +111,12 @@ public final class HttpRequestExecutor {
         query = new HashMap<>();
         headers = new HashMap<>();
         body = null;
-        gson = ApiClient.createGson();
+        if (api.isCompression()) header("Accept-Encoding", "gzip");
+
+        this.gson = api.getGson();
+        this.rateLimiter = api.getRateLimiter();
+        this.retryPolicy = api.getRetryPolicy();
+        this.compressionThreshold = api.isCompression() ? api.getCompressionThreshold() : -1;
     }
 
     /**
@@ -86,7 +130,7 @@ public final class HttpRequestExecutor {
      * Создаёт билдер запроса к URL
      */
     public static HttpRequestExecutor url(ApiClient api, String url) {
-        return new HttpRequestExecutor(api.getClient(), url).auth(api);
+        return new HttpRequestExecutor(api.getClient(), api, url).auth(api);
     }
 
     /**
@@ -143,10 +187,37 @@ public final class HttpRequestExecutor {
     }
 
     /**
-     * Добавить тело запроса (для запросов, поддерживающих отправку данных в теле)
+     * Добавить тело запроса (для запросов, поддерживающих отправку данных в теле).
+     * Если передан {@link Iterator}, его элементы отправляются JSON-массивом по мере перебора
      */
     public HttpRequestExecutor body(Object o) {
         body = o;
+        streamBody = false;
+        rawBody = false;
+        return this;
+    }
+
+    /**
+     * Добавить тело запроса, уже сериализованное в JSON в кодировке UTF-8
+     */
+    public HttpRequestExecutor jsonBody(byte[] json) {
+        body = json;
+        streamBody = false;
+        rawBody = true;
+        return this;
+    }
+
+    /**
+     * Добавить тело запроса, которое сериализуется в поток соединения по мере отправки, без построения
+     * всего тела в памяти (для больших тел массовых операций). Размер такого тела заранее неизвестен,
+     * поэтому оно отправляется без <code>Content-Length</code> и при включённом сжатии сжимается всегда
+     *
+     * @see JsonStreamEntity
+     */
+    public HttpRequestExecutor streamBody(Object o) {
+        body = o;
+        streamBody = true;
+        rawBody = false;
         return this;
     }
 
@@ -198,64 +269,105 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     private String executeRequest(HttpUriRequest request) throws IOException, ApiClientException {
-        logger.debug("Выполнение запроса  {} {}...", request.getMethod(), request.getURI());
-        try (CloseableHttpResponse response = client.execute(request)) {
-            String json = response.getStatusLine().getStatusCode() == 204 ?
+        return executeRequest(request, (response, entity) -> {
+            String json = response.getStatusLine().getStatusCode() == 204 || entity == null ?
                     "" :
-                    EntityUtils.toString(response.getEntity());
+                    EntityUtils.toString(entity);
 
-            if (isOkResponse(response)) {
-                logger.debug(
-                        "Ответ на запрос     {} {}: ({}) {}",
-                        request.getMethod(),
-                        request.getURI(),
-                        response.getStatusLine().getStatusCode(),
-                        json
-                );
-            } else {
-                logger.info(
-                        "Ошибка при запросе {} {}: ({}) {}",
-                        request.getMethod(),
-                        request.getURI(),
-                        response.getStatusLine().getStatusCode(),
-                        json
-                );
+            logResponse(request, response, json);
+            return json;
+        });
+    }
 
-                ErrorResponse er = gson.fromJson(json, ErrorResponse.class);
+    /**
+     * Выполняет созданный запрос и конвертирует тело ответа в объект указанного типа, читая его
+     * напрямую из потока ответа, без промежуточной строки
+     *
+     * @param type тип, в который нужно сконвертировать ответ на запрос
+     * @throws IOException        когда возникла сетевая ошибка
+     * @throws ApiClientException когда возникла ошибка API
+     */
+    private <T> T executeRequest(HttpUriRequest request, Type type) throws IOException, ApiClientException {
+        return executeRequest(request, (BodyReader<T>) reader -> gson.fromJson(reader, type));
+    }
 
-                throw new ApiClientException(
-                        request.getMethod() + " " + request.getURI(),
-                        response.getStatusLine().getStatusCode(),
-                        response.getStatusLine().getReasonPhrase(),
-                        er
-                );
+    /**
+     * Выполняет созданный запрос и передаёт тело ответа обработчику в виде потока символов
+     *
+     * @throws IOException        когда возникла сетевая ошибка
+     * @throws ApiClientException когда возникла ошибка API
+     */
+    private <T> T executeRequest(HttpUriRequest request, BodyReader<T> bodyReader) throws IOException, ApiClientException {
+        return executeRequest(request, (response, entity) -> {
+            if (response.getStatusLine().getStatusCode() == 204 || entity == null) {
+                logResponse(request, response, "");
+                return null;
             }
 
-            return json;
-        }
+            if (logger.isDebugEnabled()) {
+                // Для отладочного лога тело ответа всё равно нужно целиком
+                String json = EntityUtils.toString(entity);
+                logResponse(request, response, json);
+                return bodyReader.read(new StringReader(json));
+            }
+
+            logResponse(request, response, "[stream...]");
+            try (Reader reader = new InputStreamReader(entity.getContent(), getCharset(entity))) {
+                return bodyReader.read(reader);
+            } catch (JsonParseException e) {
+                // GSON оборачивает ошибки чтения потока; сетевая ошибка посреди тела ответа должна остаться
+                // IOException, чтобы запрос можно было повторить
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException && !(cause instanceof MalformedJsonException)) throw (IOException) cause;
+                throw e;
+            }
+        });
     }
 
     /**
-     * Выполняет созданный запрос и возвращает ответ в виде массива байтов
+     * Выполняет созданный запрос и передаёт успешный ответ обработчику. Тело ответа с ошибкой
+     * читается целиком и конвертируется в {@link ErrorResponse}. При временных ошибках запрос повторяется
+     * согласно {@link ApiClient#getRetryPolicy()}
      *
-     * @return тело ответа в виде массива байтов
      * @throws IOException        когда возникла сетевая ошибка
      * @throws ApiClientException когда возникла ошибка API
      */
-    private byte[] executeByteRequest(HttpUriRequest request) throws IOException, ApiClientException {
+    private <T> T executeRequest(HttpUriRequest request, ResponseReader<T> reader) throws IOException, ApiClientException {
+        RetryPolicy.Attempts attempts = retryPolicy.start(request);
+        while (true) {
+            try {
+                return executeAttempt(request, reader, attempts);
+            } catch (ApiClientException e) {
+                if (request.isAborted() || !attempts.retry(e.getStatusCode())) throw e;
+            } catch (IOException e) {
+                if (request.isAborted() || !attempts.retry(e)) throw e;
+            }
+
+            if (request instanceof HttpRequestBase) ((HttpRequestBase) request).reset();
+        }
+    }
+
+    /**
+     * Одна попытка выполнения запроса. Запрос занимает место в ограничителе запросов
+     * {@link ApiClient#getRateLimiter()} до тех пор, пока ответ не будет прочитан
+     */
+    private <T> T executeAttempt(HttpUriRequest request, ResponseReader<T> reader, RetryPolicy.Attempts attempts) throws IOException, ApiClientException {
+        try {
+            rateLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ожидание лимита запросов прервано: " + request.getMethod() + " " + request.getURI());
+        }
+
+        HttpResponse limitedResponse = null;
         logger.debug("Выполнение запроса  {} {}...", request.getMethod(), request.getURI());
+        ApiFuture.attach(request);
         try (CloseableHttpResponse response = client.execute(request)) {
-            byte[] bytes = EntityUtils.toByteArray(response.getEntity());
+            limitedResponse = response;
+            HttpEntity entity = decode(response.getEntity());
 
-            if (isOkResponse(response)) {
-                logger.debug(
-                        "Ответ на запрос     {} {}: ({}) [bytes...]",
-                        request.getMethod(),
-                        request.getURI(),
-                        response.getStatusLine().getStatusCode()
-                );
-            } else {
-                String json = new String(bytes);
+            if (!isOkResponse(response)) {
+                String json = entity == null ? "" : EntityUtils.toString(entity);
 
                 logger.info(
                         "Ошибка при запросе {} {}: ({}) {}",
@@ -265,7 +377,17 @@ public final class HttpRequestExecutor {
                         json
                 );
 
-                ErrorResponse er = gson.fromJson(json, ErrorResponse.class);
+                attempts.onResponse(response);
+
+                ErrorResponse er = parseErrorResponse(json);
+                if (er == null) {
+                    // Ответы прокси (например, 502 или 503) могут содержать HTML вместо JSON
+                    throw new ApiClientException(
+                            request.getMethod() + " " + request.getURI(),
+                            response.getStatusLine().getStatusCode(),
+                            response.getStatusLine().getReasonPhrase()
+                    );
+                }
 
                 throw new ApiClientException(
                         request.getMethod() + " " + request.getURI(),
@@ -275,17 +397,162 @@ public final class HttpRequestExecutor {
                 );
             }
 
-            return bytes;
+            T result = reader.read(response, entity);
+            // Дочитываем остаток тела, чтобы соединение можно было переиспользовать
+            EntityUtils.consume(entity);
+            return result;
+        } finally {
+            ApiFuture.detach();
+            rateLimiter.release(limitedResponse);
         }
     }
 
-    private boolean isOkResponse(CloseableHttpResponse response) {
+    /**
+     * Выполняет созданный запрос и записывает тело ответа в канал. Если ответ был записан
+     * частично, сетевая ошибка не приводит к повтору запроса, чтобы данные в канале не дублировались
+     *
+     * @return количество записанных байт
+     * @throws IOException        когда возникла сетевая ошибка
+     * @throws ApiClientException когда возникла ошибка API
+     */
+    private long executeTransferRequest(HttpUriRequest request, WritableByteChannel target) throws IOException, ApiClientException {
+        return executeRequest(request, (response, entity) -> {
+            logResponse(request, response, "[stream...]");
+            if (entity == null) return 0L;
+
+            long written = 0;
+            try (ReadableByteChannel source = Channels.newChannel(entity.getContent())) {
+                ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+                while (source.read(buffer) >= 0 || buffer.position() > 0) {
+                    buffer.flip();
+                    written += target.write(buffer);
+                    buffer.compact();
+                }
+            } catch (IOException e) {
+                if (written > 0) throw new IOException("Ответ на запрос " + request.getMethod() + " " + request.getURI() + " записан не полностью", e);
+                throw e;
+            }
+            return written;
+        });
+    }
+
+    private void logResponse(HttpUriRequest request, HttpResponse response, String body) {
+        logger.debug(
+                "Ответ на запрос     {} {}: ({}) {}",
+                request.getMethod(),
+                request.getURI(),
+                response.getStatusLine().getStatusCode(),
+                body
+        );
+    }
+
+    private ErrorResponse parseErrorResponse(String json) {
+        try {
+            ErrorResponse er = gson.fromJson(json, ErrorResponse.class);
+            return er == null || er.getErrors() == null ? null : er;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static Charset getCharset(HttpEntity entity) {
+        ContentType contentType = ContentType.get(entity);
+        return contentType == null || contentType.getCharset() == null ?
+                StandardCharsets.UTF_8 :
+                contentType.getCharset();
+    }
+
+    private boolean isOkResponse(HttpResponse response) {
         final int statusCode = response.getStatusLine().getStatusCode();
         return statusCode == 200 ||
                 statusCode == 201 ||
                 statusCode == 204;
     }
 
+    private HttpGet buildGetRequest() {
+        HttpGet request = new HttpGet(getFullUrl());
+        applyHeaders(request);
+        return request;
+    }
+
+    private HttpPost buildPostRequest() {
+        HttpPost request = new HttpPost(getFullUrl());
+        applyHeaders(request);
+        applyBody(request);
+        return request;
+    }
+
+    private HttpPut buildPutRequest() {
+        HttpPut request = new HttpPut(getFullUrl());
+        applyHeaders(request);
+        applyBody(request);
+        return request;
+    }
+
+    /**
+     * Добавляет в запрос тело, если оно было задано. Тела, переданные в {@link #streamBody(Object)}, и
+     * итераторы сериализуются в поток соединения по мере отправки, остальные тела — в массив байтов,
+     * чтобы был известен размер запроса и к нему применялся порог сжатия
+     */
+    private void applyBody(HttpEntityEnclosingRequestBase request) {
+        if (body == null) return;
+
+        if (streamBody || body instanceof Iterator) {
+            logger.debug("Тело запроса        {} {}: [stream...]", request.getMethod(), request.getURI());
+
+            // Размер потокового тела заранее неизвестен, поэтому при включённом сжатии оно сжимается всегда
+            request.setEntity(new JsonStreamEntity(gson, body, compressionThreshold >= 0));
+            return;
+        }
+
+        byte[] bytes;
+        if (rawBody) {
+            bytes = (byte[]) body;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Тело запроса        {} {}: {}", request.getMethod(), request.getURI(), new String(bytes, StandardCharsets.UTF_8));
+            }
+        } else {
+            String strBody = gson.toJson(body);
+            logger.debug("Тело запроса        {} {}: {}", request.getMethod(), request.getURI(), strBody);
+            bytes = strBody.getBytes(StandardCharsets.UTF_8);
+        }
+        if (compressionThreshold >= 0 && bytes.length >= compressionThreshold) {
+            request.setEntity(gzip(bytes));
+        } else {
+            request.setEntity(new ByteArrayEntity(bytes, ContentType.APPLICATION_JSON));
+        }
+    }
+
+    /**
+     * Сжимает тело запроса в памяти, чтобы у запроса был известен размер и его можно было повторить
+     */
+    private static HttpEntity gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteArrayEntity entity = new ByteArrayEntity(out.toByteArray(), ContentType.APPLICATION_JSON);
+        entity.setContentEncoding("gzip");
+        return entity;
+    }
+
+    /**
+     * Распаковывает сжатое тело ответа, если HTTP-клиент не сделал этого сам
+     */
+    private static HttpEntity decode(HttpEntity entity) {
+        if (entity == null || entity.getContentEncoding() == null) return entity;
+
+        for (HeaderElement element : entity.getContentEncoding().getElements()) {
+            if ("gzip".equalsIgnoreCase(element.getName()) || "x-gzip".equalsIgnoreCase(element.getName())) {
+                return new GzipDecompressingEntity(entity);
+            }
+        }
+        return entity;
+    }
+
     /**
      * Выполняет GET-запрос с указанными ранее параметрами
      *
@@ -294,9 +561,7 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public String get() throws IOException, ApiClientException {
-        HttpGet request = new HttpGet(getFullUrl());
-        applyHeaders(request);
-        return executeRequest(request);
+        return executeRequest(buildGetRequest());
     }
 
     /**
@@ -307,7 +572,7 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public <T> T get(Class<T> cl) throws IOException, ApiClientException {
-        return gson.fromJson(get(), cl);
+        return executeRequest(buildGetRequest(), (Type) cl);
     }
 
     /**
@@ -318,7 +583,7 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public <T extends MetaEntity> ListEntity<T> list(Class<T> cl) throws IOException, ApiClientException {
-        return gson.fromJson(get(), TypeToken.getParameterized(ListEntity.class, cl).getType());
+        return executeRequest(buildGetRequest(), TypeToken.getParameterized(ListEntity.class, cl).getType());
     }
 
     /**
@@ -329,7 +594,21 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public <T extends MetaEntity> List<T> plainList(Class<T> cl) throws IOException, ApiClientException {
-        return gson.fromJson(get(), TypeToken.getParameterized(List.class, cl).getType());
+        return executeRequest(buildGetRequest(), TypeToken.getParameterized(List.class, cl).getType());
+    }
+
+    /**
+     * Выполняет GET-запрос с указанными ранее параметрами и разбирает страницу списка из ответа в облегчённые
+     * модели для чтения
+     *
+     * @param decoder декодер строк списка
+     * @throws IOException        когда возникла сетевая ошибка
+     * @throws ApiClientException когда возникла ошибка API
+     * @see ru.moysklad.remap_1_2.entities.views.ProductView
+     * @see ru.moysklad.remap_1_2.entities.views.PositionView
+     */
+    public <V> ViewListEntity<V> list(ViewDecoder<V> decoder) throws IOException, ApiClientException {
+        return executeRequest(buildGetRequest(), (BodyReader<ViewListEntity<V>>) reader -> decoder.readPage(reader, gson));
     }
 
     /**
@@ -340,40 +619,64 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public String post() throws IOException, ApiClientException {
-        HttpPost request = new HttpPost(getFullUrl());
-        applyHeaders(request);
-
-        if (body != null) {
-            String strBody = gson.toJson(body);
-            logger.debug("Тело запроса        {} {}: {}", request.getMethod(), request.getURI(), strBody);
-            StringEntity requestEntity = new StringEntity(strBody, ContentType.APPLICATION_JSON);
-            request.setEntity(requestEntity);
-        }
-
-        return executeRequest(request);
+        return executeRequest(buildPostRequest());
     }
 
     /**
-     * Выполняет POST-запрос с указанными ранее параметрами и сохраняет ответ в указанный файл
+     * Выполняет POST-запрос с указанными ранее параметрами и сохраняет ответ в указанный файл.
+     * Ответ записывается в файл по мере получения, без загрузки в память целиком
      *
-     * @return тело ответа
+     * @return файл с телом ответа
      * @throws IOException        когда возникла сетевая ошибка
      * @throws ApiClientException когда возникла ошибка API
      */
     public File postAndSaveTo(File file) throws IOException, ApiClientException {
-        HttpPost request = new HttpPost(getFullUrl());
-        applyHeaders(request);
+        HttpPost request = buildPostRequest();
+        executeRequest(request, (response, entity) -> {
+            logResponse(request, response, "[file " + file + "]");
+
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) Files.createDirectories(parent.toPath());
+
+            // Файл открывается заново при каждой попытке, поэтому повтор запроса перезаписывает его целиком
+            try (FileChannel channel = FileChannel.open(file.toPath(), CREATE, TRUNCATE_EXISTING, WRITE)) {
+                if (entity == null) return file;
+
+                try (ReadableByteChannel source = Channels.newChannel(entity.getContent())) {
+                    long position = 0;
+                    long transferred;
+                    while ((transferred = channel.transferFrom(source, position, TRANSFER_BUFFER_SIZE)) > 0) {
+                        position += transferred;
+                    }
+                }
+            }
+            return file;
+        });
+        return file;
+    }
 
-        if (body != null) {
-            String strBody = gson.toJson(body);
-            logger.debug("Тело запроса        {} {}: {}", request.getMethod(), request.getURI(), strBody);
-            StringEntity requestEntity = new StringEntity(strBody, ContentType.APPLICATION_JSON);
-            request.setEntity(requestEntity);
-        }
+    /**
+     * Выполняет POST-запрос с указанными ранее параметрами и записывает ответ в поток по мере получения.
+     * Поток не закрывается
+     *
+     * @return количество записанных байт
+     * @throws IOException        когда возникла сетевая ошибка
+     * @throws ApiClientException когда возникла ошибка API
+     */
+    public long postAndWriteTo(OutputStream out) throws IOException, ApiClientException {
+        return executeTransferRequest(buildPostRequest(), Channels.newChannel(out));
+    }
 
-        byte[] data = executeByteRequest(request);
-        FileUtils.writeByteArrayToFile(file, data);
-        return file;
+    /**
+     * Выполняет POST-запрос с указанными ранее параметрами и записывает ответ в канал по мере получения.
+     * Канал не закрывается
+     *
+     * @return количество записанных байт
+     * @throws IOException        когда возникла сетевая ошибка
+     * @throws ApiClientException когда возникла ошибка API
+     */
+    public long postAndWriteTo(WritableByteChannel channel) throws IOException, ApiClientException {
+        return executeTransferRequest(buildPostRequest(), channel);
     }
 
     /**
@@ -384,7 +687,7 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public <T> T post(Class<T> cl) throws IOException, ApiClientException {
-        return gson.fromJson(post(), cl);
+        return executeRequest(buildPostRequest(), (Type) cl);
     }
 
     /**
@@ -395,7 +698,7 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public <T> List<T> postList(Class<T> cl) throws IOException, ApiClientException {
-        return gson.fromJson(post(), TypeToken.getParameterized(List.class, cl).getType());
+        return executeRequest(buildPostRequest(), TypeToken.getParameterized(List.class, cl).getType());
     }
 
     /**
@@ -418,17 +721,7 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public String put() throws IOException, ApiClientException {
-        HttpPut request = new HttpPut(getFullUrl());
-        applyHeaders(request);
-
-        if (body != null) {
-            String strBody = gson.toJson(body);
-            logger.debug("Тело запроса        {} {}: {}", request.getMethod(), request.getURI(), strBody);
-            StringEntity requestEntity = new StringEntity(strBody, ContentType.APPLICATION_JSON);
-            request.setEntity(requestEntity);
-        }
-
-        return executeRequest(request);
+        return executeRequest(buildPutRequest());
     }
 
     /**
@@ -439,6 +732,22 @@ public final class HttpRequestExecutor {
      * @throws ApiClientException когда возникла ошибка API
      */
     public <T> T put(Class<? extends T> cl) throws IOException, ApiClientException {
-        return gson.fromJson(put(), cl);
+        return executeRequest(buildPutRequest(), (Type) cl);
+    }
+
+    /**
+     * Обработчик успешного ответа на запрос
+     */
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(HttpResponse response, HttpEntity entity) throws IOException;
+    }
+
+    /**
+     * Обработчик тела успешного ответа на запрос
+     */
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(Reader reader) throws IOException;
     }
 }
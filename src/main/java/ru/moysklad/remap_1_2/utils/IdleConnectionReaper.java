@@ -0,0 +1,69 @@
+package ru.moysklad.remap_1_2.utils;
+
+import lombok.NoArgsConstructor;
+import org.apache.http.conn.HttpClientConnectionManager;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Фоновое закрытие простаивающих и просроченных соединений в пулах HTTP-клиентов.
+ * <br>
+ * Все пулы обслуживаются одним daemon-потоком. Пул хранится по слабой ссылке, поэтому
+ * коннектор, который перестал использоваться и не был закрыт, не удерживается в памяти: задача
+ * обслуживания его пула отменяется после сборки мусора. Закрытый коннектор отменяет задачу сразу
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class IdleConnectionReaper {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+            new DaemonThreadFactory("moysklad-connection-reaper")
+    );
+
+    /**
+     * Регистрирует пул соединений: каждые <code>idleTime / 2</code> (но не реже раза в 5 секунд)
+     * из него удаляются просроченные соединения и соединения, простаивающие дольше <code>idleTime</code>
+     *
+     * @return задача обслуживания пула; её нужно отменить при закрытии пула
+     */
+    public static ScheduledFuture<?> register(HttpClientConnectionManager manager, long idleTime, TimeUnit unit) {
+        long idleMillis = unit.toMillis(idleTime);
+        if (idleMillis <= 0) throw new IllegalArgumentException("Время простоя соединения должно быть положительным!");
+
+        long period = Math.max(10, Math.min(idleMillis / 2, TimeUnit.SECONDS.toMillis(5)));
+        Task task = new Task(manager, idleMillis);
+        task.future = SCHEDULER.scheduleWithFixedDelay(task, period, period, TimeUnit.MILLISECONDS);
+        return task.future;
+    }
+
+    private static final class Task implements Runnable {
+        private final WeakReference<HttpClientConnectionManager> manager;
+        private final long idleMillis;
+        private volatile ScheduledFuture<?> future;
+
+        Task(HttpClientConnectionManager manager, long idleMillis) {
+            this.manager = new WeakReference<>(manager);
+            this.idleMillis = idleMillis;
+        }
+
+        @Override
+        public void run() {
+            HttpClientConnectionManager manager = this.manager.get();
+            if (manager == null) {
+                if (future != null) future.cancel(false);
+                return;
+            }
+
+            try {
+                manager.closeExpiredConnections();
+                manager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException ignored) {
+                // Исключение отменило бы дальнейшие запуски задачи
+            }
+        }
+    }
+}
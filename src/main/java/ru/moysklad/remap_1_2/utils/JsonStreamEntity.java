@@ -0,0 +1,111 @@
+package ru.moysklad.remap_1_2.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Тело запроса, которое сериализуется в JSON непосредственно в поток соединения, без построения
+ * строки и массива байтов со всем телом. Размер тела заранее неизвестен, поэтому запрос
+ * отправляется с <code>Transfer-Encoding: chunked</code>.
+ * <br>
+ * Источником может быть любой объект или {@link Iterator}, элементы которого записываются
+ * в JSON-массив по мере перебора. Тело из итератора можно отправить только один раз, поэтому
+ * такие запросы не повторяются при временных ошибках
+ */
+public final class JsonStreamEntity extends AbstractHttpEntity {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Gson gson;
+    private final Object source;
+    private final boolean gzip;
+    private final AtomicBoolean consumed = new AtomicBoolean();
+
+    /**
+     * @param gson   экземпляр GSON, которым сериализуется тело
+     * @param source объект или {@link Iterator} элементов JSON-массива
+     * @param gzip   сжимать ли тело gzip
+     */
+    public JsonStreamEntity(Gson gson, Object source, boolean gzip) {
+        if (gson == null) throw new IllegalArgumentException("Для сериализации тела запроса нужен экземпляр Gson!");
+        if (source == null) throw new IllegalArgumentException("Тело запроса не может быть пустым!");
+
+        this.gson = gson;
+        this.source = source;
+        this.gzip = gzip;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+        setChunked(true);
+        if (gzip) setContentEncoding("gzip");
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return !(source instanceof Iterator);
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Сериализует тело в память. Используется только клиентами, которые читают тело запроса
+     * вместо записи в поток через {@link #writeTo(OutputStream)}
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (source instanceof Iterator && !consumed.compareAndSet(false, true)) {
+            throw new IOException("Тело запроса из итератора уже было отправлено!");
+        }
+
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(compressed != null ? compressed : out, StandardCharsets.UTF_8),
+                BUFFER_SIZE
+        );
+        JsonWriter jsonWriter = gson.newJsonWriter(writer);
+
+        try {
+            if (source instanceof Iterator) {
+                jsonWriter.beginArray();
+                Iterator<?> iterator = (Iterator<?>) source;
+                while (iterator.hasNext()) {
+                    Object element = iterator.next();
+                    if (element == null) jsonWriter.nullValue();
+                    else gson.toJson(element, element.getClass(), jsonWriter);
+                }
+                jsonWriter.endArray();
+            } else {
+                gson.toJson(source, source.getClass(), jsonWriter);
+            }
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+
+        // Поток соединения закрывает HTTP-клиент, здесь достаточно дописать буферы
+        jsonWriter.flush();
+        if (compressed != null) compressed.finish();
+        out.flush();
+    }
+}
@@ -3,11 +3,13 @@ package ru.moysklad.remap_1_2.utils;
 import lombok.NoArgsConstructor;
 import ru.moysklad.remap_1_2.entities.*;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static lombok.AccessLevel.PRIVATE;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
@@ -16,9 +18,33 @@ import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 @NoArgsConstructor(access = PRIVATE)
 public final class MetaHrefUtils {
 
+    /**
+     * Идентификатор из ссылки — её последний непустой сегмент
+     */
     public static Optional<String> getIdFromHref(String href) {
-        String[] split = href.split("/");
-        return split.length == 0 ? Optional.empty() : Optional.of(split[split.length-1]);
+        int end = idEnd(href);
+        if (end == 0) return href.isEmpty() ? Optional.of(href) : Optional.empty();
+        return Optional.of(href.substring(idStart(href, end), end));
+    }
+
+    /**
+     * Проверяет, что последний непустой сегмент ссылки совпадает с идентификатором. В отличие от
+     * {@link #getIdFromHref(String)} не создаёт новых объектов
+     */
+    public static boolean hrefHasId(String href, String id) {
+        int end = idEnd(href);
+        int start = idStart(href, end);
+        return end - start == id.length() && href.regionMatches(start, id, 0, id.length());
+    }
+
+    private static int idEnd(String href) {
+        int end = href.length();
+        while (end > 0 && href.charAt(end - 1) == '/') end--;
+        return end;
+    }
+
+    private static int idStart(String href, int end) {
+        return href.lastIndexOf('/', end - 1) + 1;
     }
 
     public static <T extends MetaEntity> String makeHref(Meta.Type type, T entity, String host) {
@@ -91,64 +117,112 @@ public final class MetaHrefUtils {
         return hrefSplit[hrefSplit.length - 2];
     }
 
+    /**
+     * Заполняет метаданные сущности (если у неё есть <code>id</code>), а также вложенных сущностей
+     * и сущностей из списков, у которых есть <code>id</code>, но ещё нет метаданных. Поля с вложенными
+     * сущностями ищутся по всей иерархии класса, поля-списки — только в самом классе. Набор таких полей
+     * определяется один раз для каждого класса (см. {@link MetaFields})
+     */
     public static <T extends MetaEntity> T fillMeta(T entity, String host) {
         if (entity != null && entity.getClass() != MetaEntity.class) {
             if (entity.getId() != null && entity.getMeta() == null) {
                 entity.setMeta(new Meta(entity, host));
             }
-            Class<? extends MetaEntity> clazz = entity.getClass();
-            List<MetaEntity> fields = getAllMetaFields(clazz, entity);
-            fields.addAll(getAllListMetaFields(clazz, entity));
-            fields.forEach(f -> f.setMeta(new Meta(f, host)));
+            MetaFields.of(entity.getClass()).fill(entity, host);
         }
         return entity;
     }
 
-    private static <T extends MetaEntity> List<MetaEntity> getAllMetaFields(Class<?> clazz, T entity) {
-        if (clazz == null || entity == null || clazz == MetaEntity.class) {
-            return Collections.emptyList();
+    /**
+     * Методы доступа к полям класса сущности, которые содержат вложенные сущности или их списки
+     */
+    private static final class MetaFields {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        private static final ClassValue<MetaFields> CACHE = new ClassValue<MetaFields>() {
+            @Override
+            protected MetaFields computeValue(Class<?> type) {
+                return new MetaFields(type);
+            }
+        };
+
+        private final MethodHandle[] entityGetters;
+        private final MethodHandle[] listGetters;
+
+        private MetaFields(Class<?> clazz) {
+            List<MethodHandle> entityGetters = new ArrayList<>();
+            collectEntityGetters(clazz, entityGetters);
+            this.entityGetters = entityGetters.toArray(new MethodHandle[0]);
+
+            this.listGetters = Arrays.stream(clazz.getDeclaredFields())
+                    .filter(f -> List.class.isAssignableFrom(f.getType()))
+                    .map(f -> getter(f, clazz))
+                    .toArray(MethodHandle[]::new);
         }
 
-        List<MetaEntity> result = new ArrayList<>(getAllMetaFields(clazz.getSuperclass(), entity));
-        List<MetaEntity> filteredFields = Arrays.stream(clazz.getDeclaredFields())
-                .filter(f -> MetaEntity.class.isAssignableFrom(f.getType()))
-                .map(f -> (MetaEntity) getFieldValueByName(f, clazz, entity))
-                .filter(f -> f != null && isNotEmpty(f.getId()) && f.getMeta() == null)
-                .collect(Collectors.toList());
-        result.addAll(filteredFields);
-        return result;
-    }
+        static MetaFields of(Class<?> clazz) {
+            return CACHE.get(clazz);
+        }
+
+        /**
+         * Поля с вложенными сущностями, начиная с суперклассов (без полей самого {@link MetaEntity})
+         */
+        private static void collectEntityGetters(Class<?> clazz, List<MethodHandle> getters) {
+            if (clazz == null || clazz == MetaEntity.class) return;
+
+            collectEntityGetters(clazz.getSuperclass(), getters);
+            for (Field f : clazz.getDeclaredFields()) {
+                if (MetaEntity.class.isAssignableFrom(f.getType())) getters.add(getter(f, clazz));
+            }
+        }
 
-    private static <T extends MetaEntity> Object getFieldValueByName(Field f, Class<?> clazz, T entity) {
-        try {
-            String fieldName = f.getName().substring(0, 1).toUpperCase() + f.getName().substring(1);
-            return clazz.getDeclaredMethod("get" + fieldName).invoke(entity);
-        } catch (IllegalAccessException e) {
-            throw new IllegalArgumentException("Cannot access getter for field " + f.getName() + " of class " + clazz.getName(), e);
-        } catch (InvocationTargetException e) {
-            throw new IllegalArgumentException("Cannot invoke getter for field " + f.getName() + " of class " + clazz.getName(), e);
-        } catch (NoSuchMethodException e) {
-            throw new IllegalArgumentException("Cannot find getter for field " + f.getName() + " of class " + clazz.getName(), e);
+        private static MethodHandle getter(Field f, Class<?> clazz) {
+            try {
+                String fieldName = f.getName().substring(0, 1).toUpperCase() + f.getName().substring(1);
+                Method method = clazz.getDeclaredMethod("get" + fieldName);
+                if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(clazz.getModifiers())) {
+                    method.setAccessible(true);
+                }
+                return MethodHandles.lookup().unreflect(method).asType(GETTER_TYPE);
+            } catch (IllegalAccessException | SecurityException e) {
+                throw new IllegalArgumentException("Cannot access getter for field " + f.getName() + " of class " + clazz.getName(), e);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Cannot find getter for field " + f.getName() + " of class " + clazz.getName(), e);
+            }
         }
-    }
 
-    private static <T extends MetaEntity> List<MetaEntity> getAllListMetaFields(Class<?> clazz, T entity) {
-        if (clazz == null || entity == null) {
-            return Collections.emptyList();
+        void fill(Object entity, String host) {
+            for (MethodHandle getter : entityGetters) {
+                fillField(invoke(getter, entity), host);
+            }
+
+            for (MethodHandle getter : listGetters) {
+                List<?> list = (List<?>) invoke(getter, entity);
+                if (list == null || list.isEmpty() || !(list.get(0) instanceof MetaEntity)) continue;
+
+                for (Object element : list) {
+                    fillField(element, host);
+                }
+            }
         }
 
-        Field[] fields = clazz.getDeclaredFields();
+        private static void fillField(Object value, String host) {
+            if (!(value instanceof MetaEntity)) return;
 
-        return Arrays.stream(fields)
-                .filter(f -> List.class.isAssignableFrom(f.getType()))
-                .map(f -> (List) getFieldValueByName(f, clazz, entity))
-                .flatMap(f -> {
-                    if (f != null && f.size() > 0 && MetaEntity.class.isAssignableFrom(f.get(0).getClass())) {
-                        return (Stream<MetaEntity>) f.stream();
-                    }
-                    return Stream.empty();
-                })
-                .filter(f -> f != null && isNotEmpty(f.getId()) && f.getMeta() == null)
-                .collect(Collectors.toList());
+            MetaEntity field = (MetaEntity) value;
+            if (isNotEmpty(field.getId()) && field.getMeta() == null) {
+                field.setMeta(new Meta(field, host));
+            }
+        }
+
+        private static Object invoke(MethodHandle getter, Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Cannot invoke getter of class " + entity.getClass().getName(), e);
+            }
+        }
     }
 }
@@ -0,0 +1,20 @@
+package ru.moysklad.remap_1_2.utils;
+
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.io.IOException;
+
+/**
+ * Загрузчик одной страницы списка сущностей
+ */
+@FunctionalInterface
+public interface PageLoader<T extends MetaEntity> {
+    /**
+     * Загружает страницу списка
+     *
+     * @param offset отступ от начала списка
+     * @param limit  максимальное количество элементов на странице
+     */
+    ListEntity<T> load(int offset, int limit) throws IOException, ApiClientException;
+}
@@ -0,0 +1,76 @@
+package ru.moysklad.remap_1_2.utils;
+
+import lombok.Getter;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.utils.params.ApiParam;
+import ru.moysklad.remap_1_2.utils.params.LimitParam;
+import ru.moysklad.remap_1_2.utils.params.OffsetParam;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_EXPANDED_LIST_LIMIT;
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_LIST_LIMIT;
+
+/**
+ * Постраничный запрос списка. Параметры <code>limit</code> и <code>offset</code>, если они переданы,
+ * задают размер страницы и начальный отступ, остальные параметры передаются в запрос каждой страницы.
+ * Если размер страницы не задан, используется максимально допустимый API
+ */
+@Getter
+public final class PageRequest<T extends MetaEntity> {
+    private final PageLoader<T> loader;
+    private final int offset;
+    private final int limit;
+
+    private PageRequest(PageLoader<T> loader, int offset, int limit) {
+        this.loader = loader;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    public static <T extends MetaEntity> PageRequest<T> of(ApiClient api, String path, Class<T> cl, ApiParam... params) {
+        List<ApiParam> requestParams = new ArrayList<>();
+        int offset = 0;
+        Integer limit = null;
+        boolean expanded = false;
+
+        if (params != null) {
+            for (ApiParam param : params) {
+                if (param == null) continue;
+
+                switch (param.getType()) {
+                    case limit:
+                        limit = ((LimitParam) param).getValue();
+                        break;
+
+                    case offset:
+                        offset = ((OffsetParam) param).getValue();
+                        break;
+
+                    case expand:
+                        expanded = true;
+                        requestParams.add(param);
+                        break;
+
+                    default:
+                        requestParams.add(param);
+                }
+            }
+        }
+
+        int maxLimit = expanded ? MAX_EXPANDED_LIST_LIMIT : MAX_LIST_LIMIT;
+        int pageLimit = limit == null ? maxLimit : Math.min(limit, maxLimit);
+        if (pageLimit <= 0) throw new IllegalArgumentException("Размер страницы должен быть положительным!");
+
+        ApiParam[] pageParams = requestParams.toArray(new ApiParam[0]);
+        PageLoader<T> loader = (o, l) -> HttpRequestExecutor.
+                path(api, path).
+                apiParams(pageParams).
+                apiParams(OffsetParam.offset(o), LimitParam.limit(l)).
+                list(cl);
+
+        return new PageRequest<>(loader, offset, pageLimit);
+    }
+}
@@ -0,0 +1,223 @@
+package ru.moysklad.remap_1_2.utils;
+
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.utils.params.ApiParam;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * <code>Spliterator</code> по всем элементам списка, который делится по диапазонам страниц. Первая
+ * страница загружается при начале обхода, её <code>meta.size</code> определяет общее количество страниц,
+ * после чего диапазоны оставшихся страниц могут обрабатываться параллельно (например, через
+ * <code>parallelStream()</code>).
+ * <br>
+ * Количество одновременно выполняемых запросов ограничено параметром <code>parallelism</code>
+ * для всех частей, полученных делением одного <code>Spliterator</code>. Ожидание ответа внутри
+ * <code>ForkJoinPool</code> оформлено как {@link ForkJoinPool.ManagedBlocker}, поэтому пул может
+ * задействовать дополнительные потоки, пока рабочие потоки ждут сеть.
+ * <br>
+ * Ошибки загрузки выбрасываются в виде {@link UncheckedIOException} или {@link UncheckedApiClientException}
+ */
+public final class PageSpliterator<T extends MetaEntity> implements Spliterator<T> {
+    private final PageLoader<T> loader;
+    private final int offset;
+    private final int limit;
+    private final Semaphore permits;
+
+    /**
+     * Общее количество элементов списка, <code>null</code> — если API его не вернул
+     */
+    private Integer size;
+    private boolean initialized;
+
+    /**
+     * Номер следующей страницы для загрузки
+     */
+    private int from;
+
+    /**
+     * Номер страницы, на которой заканчивается диапазон этого <code>Spliterator</code> (не включительно)
+     */
+    private int to;
+
+    private Iterator<T> buffer = Collections.emptyIterator();
+    private int buffered;
+
+    /**
+     * @param loader      загрузчик страниц
+     * @param offset      отступ, с которого начинается чтение
+     * @param limit       размер страницы
+     * @param parallelism максимальное количество одновременно загружаемых страниц
+     */
+    public PageSpliterator(PageLoader<T> loader, int offset, int limit, int parallelism) {
+        this(loader, offset, limit, new Semaphore(checkParallelism(parallelism)));
+    }
+
+    private PageSpliterator(PageLoader<T> loader, int offset, int limit, Semaphore permits) {
+        if (limit <= 0) throw new IllegalArgumentException("Размер страницы должен быть положительным!");
+
+        this.loader = loader;
+        this.offset = offset;
+        this.limit = limit;
+        this.permits = permits;
+    }
+
+    /**
+     * Создаёт <code>Spliterator</code> по списку, расположенному по указанному пути API
+     *
+     * @see PageRequest
+     */
+    public static <T extends MetaEntity> PageSpliterator<T> of(ApiClient api, String path, Class<T> cl, int parallelism, ApiParam... params) {
+        PageRequest<T> request = PageRequest.of(api, path, cl, params);
+        return new PageSpliterator<>(request.getLoader(), request.getOffset(), request.getLimit(), parallelism);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        init();
+
+        while (!buffer.hasNext()) {
+            if (from >= to) return false;
+
+            List<T> rows = rows(load(from++));
+            if (size == null && rows.size() == limit) {
+                // Размер списка неизвестен, поэтому читаем до первой неполной страницы
+                to++;
+            }
+            setBuffer(rows);
+        }
+
+        buffered--;
+        action.accept(buffer.next());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        init();
+
+        int remaining = to - from;
+        if (size == null || remaining == 0 || (remaining == 1 && !buffer.hasNext())) return null;
+
+        int mid = from + remaining / 2;
+        PageSpliterator<T> prefix = new PageSpliterator<>(loader, offset, limit, permits);
+        prefix.size = size;
+        prefix.initialized = true;
+        prefix.from = from;
+        prefix.to = mid;
+        prefix.buffer = buffer;
+        prefix.buffered = buffered;
+
+        buffer = Collections.emptyIterator();
+        buffered = 0;
+        from = mid;
+
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        init();
+
+        if (size == null) return from < to ? Long.MAX_VALUE : buffered;
+
+        long start = (long) offset + (long) from * limit;
+        long end = Math.min((long) offset + (long) to * limit, size);
+        return buffered + Math.max(0, end - start);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Загружает первую страницу и вычисляет количество страниц в списке
+     */
+    private void init() {
+        if (initialized) return;
+        initialized = true;
+
+        ListEntity<T> first = load(0);
+        size = first == null || first.getMeta() == null ? null : first.getMeta().getSize();
+
+        List<T> rows = rows(first);
+        from = 1;
+        if (size != null) {
+            to = Math.max(1, (int) ((size - (long) offset + limit - 1) / limit));
+        } else {
+            to = rows.size() == limit ? 2 : 1;
+        }
+        setBuffer(rows);
+    }
+
+    private void setBuffer(List<T> rows) {
+        buffer = rows.iterator();
+        buffered = rows.size();
+    }
+
+    private List<T> rows(ListEntity<T> page) {
+        return page == null || page.getRows() == null ? Collections.emptyList() : page.getRows();
+    }
+
+    private ListEntity<T> load(int page) {
+        PageBlocker blocker = new PageBlocker(offset + page * limit);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Загрузка страницы списка прервана"));
+        }
+        return blocker.result;
+    }
+
+    private static int checkParallelism(int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("Количество параллельных запросов должно быть положительным!");
+        return parallelism;
+    }
+
+    /**
+     * Загрузка страницы с ожиданием свободного слота для запроса
+     */
+    private final class PageBlocker implements ForkJoinPool.ManagedBlocker {
+        private final int pageOffset;
+        private ListEntity<T> result;
+        private boolean done;
+
+        PageBlocker(int pageOffset) {
+            this.pageOffset = pageOffset;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            permits.acquire();
+            try {
+                result = loader.load(pageOffset, limit);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ApiClientException e) {
+                throw new UncheckedApiClientException(e);
+            } finally {
+                permits.release();
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.moysklad.remap_1_2.utils;
+
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.utils.params.ApiParam;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Итератор по всем элементам списка, который загружает страницы по мере чтения. Пока вызывающий
+ * код обрабатывает текущую страницу, следующая загружается в фоне. В памяти одновременно находятся
+ * не больше двух страниц, прочитанная страница сразу же становится доступна для сборщика мусора.
+ * <br>
+ * Ошибки загрузки выбрасываются из {@link #hasNext()} в виде {@link UncheckedIOException} или
+ * {@link UncheckedApiClientException}
+ */
+public final class PagingIterator<T extends MetaEntity> implements Iterator<T>, AutoCloseable {
+    private final PageLoader<T> loader;
+    private final int limit;
+    private final Executor executor;
+
+    private int nextOffset;
+    private Iterator<T> current = Collections.emptyIterator();
+    private ApiFuture<ListEntity<T>> prefetched;
+
+    /**
+     * Признак того, что фоновая загрузка следующей страницы начата или отменена
+     */
+    private AtomicBoolean prefetchClaimed;
+    private boolean exhausted;
+
+    /**
+     * @param loader   загрузчик страниц
+     * @param offset   отступ, с которого начинается чтение
+     * @param limit    размер страницы
+     * @param executor пул потоков для фоновой загрузки следующей страницы. Если <code>null</code>,
+     *                 страницы загружаются синхронно
+     */
+    public PagingIterator(PageLoader<T> loader, int offset, int limit, Executor executor) {
+        if (limit <= 0) throw new IllegalArgumentException("Размер страницы должен быть положительным!");
+
+        this.loader = loader;
+        this.limit = limit;
+        this.executor = executor;
+        this.nextOffset = offset;
+    }
+
+    /**
+     * Создаёт итератор по списку, расположенному по указанному пути API
+     *
+     * @see PageRequest
+     */
+    public static <T extends MetaEntity> PagingIterator<T> of(ApiClient api, String path, Class<T> cl, ApiParam... params) {
+        PageRequest<T> request = PageRequest.of(api, path, cl, params);
+        return new PagingIterator<>(request.getLoader(), request.getOffset(), request.getLimit(), api.getExecutor());
+    }
+
+    /**
+     * Оборачивает итератор в последовательный поток. Закрытие потока отменяет фоновую загрузку
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        ).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (exhausted) return false;
+
+            ListEntity<T> page;
+            if (prefetched != null && !prefetchClaimed.compareAndSet(false, true)) {
+                page = await(prefetched);
+                prefetched = null;
+            } else {
+                // Фоновой загрузки нет или она ещё не начата (например, все потоки пула заняты): страница
+                // загружается в текущем потоке, чтобы не ждать освобождения пула
+                prefetched = null;
+                page = load(nextOffset);
+            }
+
+            accept(page);
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return current.next();
+    }
+
+    /**
+     * Прекращает чтение и отменяет фоновую загрузку следующей страницы. Если запрос страницы уже
+     * выполняется, он прерывается
+     */
+    @Override
+    public void close() {
+        exhausted = true;
+        current = Collections.emptyIterator();
+        if (prefetched != null) {
+            prefetchClaimed.set(true);
+            prefetched.cancel(true);
+            prefetched = null;
+        }
+    }
+
+    private void accept(ListEntity<T> page) {
+        List<T> rows = page == null || page.getRows() == null ? Collections.emptyList() : page.getRows();
+        Integer size = page == null || page.getMeta() == null ? null : page.getMeta().getSize();
+
+        nextOffset += limit;
+        exhausted = rows.isEmpty() || (size != null ? nextOffset >= size : rows.size() < limit);
+        current = rows.iterator();
+
+        if (!exhausted && executor != null) {
+            final int offset = nextOffset;
+            final AtomicBoolean claimed = new AtomicBoolean();
+            prefetchClaimed = claimed;
+            ApiCall<ListEntity<T>> prefetch = () -> claimed.compareAndSet(false, true) ? loader.load(offset, limit) : null;
+            prefetched = ApiFuture.supplyAsync(prefetch, executor);
+        }
+    }
+
+    private ListEntity<T> load(int offset) {
+        try {
+            return loader.load(offset, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ApiClientException e) {
+            throw new UncheckedApiClientException(e);
+        }
+    }
+
+    private static <T extends MetaEntity> ListEntity<T> await(ApiFuture<ListEntity<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw new UncheckedIOException((IOException) cause);
+            if (cause instanceof ApiClientException) throw new UncheckedApiClientException((ApiClientException) cause);
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
+        }
+    }
+}
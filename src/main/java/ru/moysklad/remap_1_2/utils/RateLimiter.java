@@ -0,0 +1,61 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.HttpResponse;
+
+/**
+ * Ограничитель запросов к API. Перед отправкой каждого запроса {@link HttpRequestExecutor} вызывает
+ * {@link #acquire()}, а после чтения ответа (или ошибки) — {@link #release(HttpResponse)}, передавая
+ * ответ, по заголовкам которого ограничитель может уточнить оставшийся лимит.
+ * <br>
+ * Реализации должны быть потокобезопасными: один ограничитель может использоваться несколькими
+ * экземплярами {@link ru.moysklad.remap_1_2.ApiClient}
+ *
+ * @see AdaptiveRateLimiter
+ */
+public interface RateLimiter {
+    /**
+     * Ожидает, пока можно будет отправить запрос, и занимает место для него
+     *
+     * @throws InterruptedException если поток был прерван во время ожидания
+     */
+    void acquire() throws InterruptedException;
+
+    /**
+     * Освобождает место, занятое в {@link #acquire()}
+     *
+     * @param response ответ на запрос или <code>null</code>, если ответ не был получен
+     */
+    void release(HttpResponse response);
+
+    /**
+     * Количество запросов, которые можно отправить без ожидания, или <code>-1</code>, если оно неизвестно
+     */
+    int getRemaining();
+
+    /**
+     * Ограничитель, который не ограничивает запросы
+     */
+    static RateLimiter unlimited() {
+        return Unlimited.INSTANCE;
+    }
+
+    final class Unlimited implements RateLimiter {
+        private static final Unlimited INSTANCE = new Unlimited();
+
+        private Unlimited() {
+        }
+
+        @Override
+        public void acquire() {
+        }
+
+        @Override
+        public void release(HttpResponse response) {
+        }
+
+        @Override
+        public int getRemaining() {
+            return -1;
+        }
+    }
+}
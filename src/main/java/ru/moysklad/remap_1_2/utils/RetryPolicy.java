@@ -0,0 +1,240 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Политика повтора запросов при временных ошибках: ответах 429, 502, 503, 504 и сетевых таймаутах.
+ * <br>
+ * Задержка между попытками растёт экспоненциально от <code>initialDelay</code> до <code>maxDelay</code>
+ * со случайным разбросом (половина задержки фиксирована, половина — случайна), чтобы параллельные
+ * клиенты не повторяли запросы одновременно. Если API вернул время, через которое можно повторить
+ * запрос (<code>X-Lognex-Retry-After</code> или <code>Retry-After</code>), используется оно.
+ * Повторы прекращаются после <code>maxAttempts</code> попыток или если следующая попытка
+ * не укладывается в общий срок <code>deadline</code>.
+ * <br>
+ * По умолчанию повторяются только идемпотентные запросы (GET, PUT, DELETE), повтор POST-запросов
+ * включается через {@link #retryPost(boolean)}. Запросы с неповторяемым телом не повторяются.
+ * <br>
+ * Политику можно использовать в нескольких коннекторах одновременно: наборы статусов и методов неизменяемы
+ * и при настройке заменяются новыми, поэтому выполняемые запросы не видят их в промежуточном состоянии.
+ */
+public final class RetryPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private volatile int maxAttempts = 5;
+    private volatile long initialDelayMillis = 500;
+    private volatile long maxDelayMillis = TimeUnit.SECONDS.toMillis(30);
+    private volatile long deadlineMillis = TimeUnit.MINUTES.toMillis(2);
+    private volatile Set<Integer> retryableStatuses = immutableSet(Arrays.asList(429, 502, 503, 504));
+    private volatile Set<String> retryableMethods = immutableSet(Arrays.asList("GET", "PUT", "DELETE"));
+
+    /**
+     * Политика без повторов
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy().maxAttempts(1);
+    }
+
+    /**
+     * Максимальное количество попыток выполнения запроса, включая первую
+     */
+    public RetryPolicy maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) throw new IllegalArgumentException("Количество попыток должно быть положительным!");
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Задержка перед первым повтором и максимальная задержка между попытками
+     */
+    public synchronized RetryPolicy delay(long initialDelay, long maxDelay, TimeUnit unit) {
+        if (initialDelay < 0 || maxDelay < initialDelay) throw new IllegalArgumentException("Некорректные задержки между попытками!");
+        this.initialDelayMillis = unit.toMillis(initialDelay);
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+        return this;
+    }
+
+    /**
+     * Общий срок выполнения запроса со всеми повторами
+     */
+    public RetryPolicy deadline(long deadline, TimeUnit unit) {
+        if (deadline <= 0) throw new IllegalArgumentException("Срок выполнения запроса должен быть положительным!");
+        this.deadlineMillis = unit.toMillis(deadline);
+        return this;
+    }
+
+    /**
+     * Повторять ли POST-запросы. Повтор POST-запроса может привести к повторному созданию сущностей,
+     * если первый запрос был выполнен, но ответ на него не был получен
+     */
+    public synchronized RetryPolicy retryPost(boolean retry) {
+        Set<String> methods = new HashSet<>(retryableMethods);
+        if (retry) methods.add("POST");
+        else methods.remove("POST");
+        retryableMethods = immutableSet(methods);
+        return this;
+    }
+
+    /**
+     * Добавляет HTTP-статус, при получении которого запрос будет повторён
+     */
+    public synchronized RetryPolicy retryOn(int statusCode) {
+        Set<Integer> statuses = new HashSet<>(retryableStatuses);
+        statuses.add(statusCode);
+        retryableStatuses = immutableSet(statuses);
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(String method) {
+        return retryableMethods.contains(method);
+    }
+
+    public boolean isRetryable(int statusCode) {
+        return retryableStatuses.contains(statusCode);
+    }
+
+    private static <T> Set<T> immutableSet(Collection<T> values) {
+        return Collections.unmodifiableSet(new HashSet<>(values));
+    }
+
+    /**
+     * Временные сетевые ошибки: таймауты соединения и чтения, отказ в соединении, разрыв соединения
+     * без ответа
+     */
+    public boolean isRetryable(IOException e) {
+        return e instanceof SocketTimeoutException ||
+                e instanceof ConnectTimeoutException ||
+                e instanceof ConnectException ||
+                e instanceof NoHttpResponseException;
+    }
+
+    /**
+     * Задержка перед повтором с номером <code>retry</code> (начиная с 1) без учёта подсказки API
+     */
+    long backoffMillis(int retry) {
+        double exp = initialDelayMillis * Math.pow(2, Math.min(retry - 1, 30));
+        long base = (long) Math.min(maxDelayMillis, exp);
+        long half = base / 2;
+        return half + (half > 0 ? ThreadLocalRandom.current().nextLong(half + 1) : 0);
+    }
+
+    /**
+     * Время, через которое API разрешает повторить запрос, или <code>-1</code>, если оно не указано
+     */
+    static long retryAfterMillis(HttpResponse response) {
+        Header lognex = response.getFirstHeader("X-Lognex-Retry-After");
+        if (lognex != null) {
+            try {
+                return Math.max(0, Long.parseLong(lognex.getValue().trim()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        Header standard = response.getFirstHeader("Retry-After");
+        if (standard != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(standard.getValue().trim())));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Начинает отсчёт попыток для запроса
+     */
+    Attempts start(HttpUriRequest request) {
+        boolean repeatable = !(request instanceof HttpEntityEnclosingRequest) ||
+                ((HttpEntityEnclosingRequest) request).getEntity() == null ||
+                ((HttpEntityEnclosingRequest) request).getEntity().isRepeatable();
+
+        return new Attempts(request, repeatable && isRetryable(request.getMethod()));
+    }
+
+    /**
+     * Состояние повторов одного запроса
+     */
+    final class Attempts {
+        private final HttpUriRequest request;
+        private final boolean allowed;
+        private final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        private int attempt = 1;
+        private long retryAfterMillis = -1;
+
+        private Attempts(HttpUriRequest request, boolean allowed) {
+            this.request = request;
+            this.allowed = allowed;
+        }
+
+        /**
+         * Запоминает подсказку API о времени повтора из ответа с ошибкой
+         */
+        void onResponse(HttpResponse response) {
+            retryAfterMillis = retryAfterMillis(response);
+        }
+
+        /**
+         * Ожидает перед повтором запроса, получившего ответ с указанным статусом
+         *
+         * @return <code>false</code>, если запрос не нужно повторять
+         */
+        boolean retry(int statusCode) throws InterruptedIOException {
+            return allowed && isRetryable(statusCode) && backoff(String.valueOf(statusCode));
+        }
+
+        /**
+         * Ожидает перед повтором запроса, завершившегося сетевой ошибкой
+         *
+         * @return <code>false</code>, если запрос не нужно повторять
+         */
+        boolean retry(IOException e) throws InterruptedIOException {
+            retryAfterMillis = -1;
+            return allowed && isRetryable(e) && backoff(e.toString());
+        }
+
+        private boolean backoff(String reason) throws InterruptedIOException {
+            if (attempt >= maxAttempts) return false;
+
+            long delay = retryAfterMillis >= 0 ? retryAfterMillis : backoffMillis(attempt);
+            if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) - deadline > 0) return false;
+
+            attempt++;
+            logger.info(
+                    "Повтор запроса {} {} через {} мс (попытка {} из {}): {}",
+                    request.getMethod(),
+                    request.getURI(),
+                    delay,
+                    attempt,
+                    maxAttempts,
+                    reason
+            );
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Ожидание повтора запроса прервано: " + request.getMethod() + " " + request.getURI());
+            }
+            return true;
+        }
+    }
+}
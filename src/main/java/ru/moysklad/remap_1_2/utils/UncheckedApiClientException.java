@@ -0,0 +1,16 @@
+package ru.moysklad.remap_1_2.utils;
+
+/**
+ * Непроверяемая обёртка над {@link ApiClientException} для мест, где проверяемое исключение
+ * выбросить нельзя (итераторы, потоки, <code>Spliterator</code>)
+ */
+public class UncheckedApiClientException extends RuntimeException {
+    public UncheckedApiClientException(ApiClientException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized ApiClientException getCause() {
+        return (ApiClientException) super.getCause();
+    }
+}
@@ -0,0 +1,74 @@
+package ru.moysklad.remap_1_2.utils;
+
+import lombok.NoArgsConstructor;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Разбор и запись UUID в каноническом виде (строчные шестнадцатеричные цифры) без создания промежуточных объектов
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class UuidUtils {
+    public static final int UUID_LENGTH = 36;
+
+    /**
+     * Проверяет, что начиная с позиции <code>from</code> в строке записан UUID в каноническом виде, то есть
+     * такой, который восстанавливается из чисел без изменений
+     */
+    public static boolean isUuid(String s, int from) {
+        if (from < 0 || s.length() - from < UUID_LENGTH) return false;
+
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = s.charAt(from + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Старшие 64 бита UUID, записанного начиная с позиции <code>from</code>
+     */
+    public static long mostSigBits(String s, int from) {
+        return parseHex(s, from, from + 8) << 32
+                | parseHex(s, from + 9, from + 13) << 16
+                | parseHex(s, from + 14, from + 18);
+    }
+
+    /**
+     * Младшие 64 бита UUID, записанного начиная с позиции <code>from</code>
+     */
+    public static long leastSigBits(String s, int from) {
+        return parseHex(s, from + 19, from + 23) << 48
+                | parseHex(s, from + 24, from + 36);
+    }
+
+    /**
+     * Дописывает UUID в каноническом виде
+     */
+    public static StringBuilder appendUuid(StringBuilder sb, long mostSigBits, long leastSigBits) {
+        appendHex(sb, mostSigBits >>> 32, 8).append('-');
+        appendHex(sb, mostSigBits >>> 16, 4).append('-');
+        appendHex(sb, mostSigBits, 4).append('-');
+        appendHex(sb, leastSigBits >>> 48, 4).append('-');
+        return appendHex(sb, leastSigBits, 12);
+    }
+
+    private static StringBuilder appendHex(StringBuilder sb, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(Character.forDigit((int) (value >>> shift) & 0xF, 16));
+        }
+        return sb;
+    }
+
+    private static long parseHex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | Character.digit(s.charAt(i), 16);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.moysklad.remap_1_2.utils;
+
+import lombok.NoArgsConstructor;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.responses.ViewListEntity;
+import ru.moysklad.remap_1_2.utils.json.ViewDecoder;
+import ru.moysklad.remap_1_2.utils.params.ApiParam;
+import ru.moysklad.remap_1_2.utils.params.LimitParam;
+import ru.moysklad.remap_1_2.utils.params.OffsetParam;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static lombok.AccessLevel.PRIVATE;
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_EXPANDED_LIST_LIMIT;
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_LIST_LIMIT;
+
+/**
+ * Постраничное чтение списка в облегчённые модели для чтения. Параметры <code>limit</code> и
+ * <code>offset</code>, как и в {@link PageRequest}, задают размер страницы и начальный отступ, остальные
+ * параметры передаются в запрос каждой страницы
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class ViewPages {
+    /**
+     * Загружает все страницы списка, расположенного по указанному пути API, и передаёт строки обработчику по
+     * мере загрузки. В памяти одновременно находится не больше одной страницы
+     *
+     * @return количество прочитанных строк
+     */
+    public static <V> int forEach(ApiClient api, String path, ViewDecoder<V> decoder, Consumer<? super V> consumer,
+                                  ApiParam... params) throws IOException, ApiClientException {
+        List<ApiParam> requestParams = new ArrayList<>();
+        int offset = 0;
+        Integer limit = null;
+        boolean expanded = false;
+
+        if (params != null) {
+            for (ApiParam param : params) {
+                if (param == null) continue;
+
+                switch (param.getType()) {
+                    case limit:
+                        limit = ((LimitParam) param).getValue();
+                        break;
+
+                    case offset:
+                        offset = ((OffsetParam) param).getValue();
+                        break;
+
+                    case expand:
+                        expanded = true;
+                        requestParams.add(param);
+                        break;
+
+                    default:
+                        requestParams.add(param);
+                }
+            }
+        }
+
+        int maxLimit = expanded ? MAX_EXPANDED_LIST_LIMIT : MAX_LIST_LIMIT;
+        int pageLimit = limit == null ? maxLimit : Math.min(limit, maxLimit);
+        if (pageLimit <= 0) throw new IllegalArgumentException("Размер страницы должен быть положительным!");
+
+        ApiParam[] pageParams = requestParams.toArray(new ApiParam[0]);
+        int count = 0;
+        while (true) {
+            ViewListEntity<V> page = HttpRequestExecutor.
+                    path(api, path).
+                    apiParams(pageParams).
+                    apiParams(OffsetParam.offset(offset), LimitParam.limit(pageLimit)).
+                    list(decoder);
+
+            List<V> rows = page.getRows();
+            rows.forEach(consumer);
+            count += rows.size();
+
+            Integer size = page.getMeta() == null ? null : page.getMeta().getSize();
+            offset += pageLimit;
+            if (rows.isEmpty() || (size != null ? offset >= size : rows.size() < pageLimit)) return count;
+        }
+    }
+}
@@ -1,132 +1,249 @@
 package ru.moysklad.remap_1_2.utils.json;
 
 import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import ru.moysklad.remap_1_2.entities.*;
 import ru.moysklad.remap_1_2.entities.agents.Agent;
 import ru.moysklad.remap_1_2.entities.products.markers.ProductAttributeMarker;
 import ru.moysklad.remap_1_2.utils.MetaHrefUtils;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 
 import static ru.moysklad.remap_1_2.utils.Constants.DATE_FORMAT_PATTERN;
 
-public class AttributeSerializer implements JsonSerializer<Attribute>, JsonDeserializer<Attribute> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
-    private final DateTimeFormatter formatter;
-
-    public AttributeSerializer() {
-        formatter = DateTimeFormatter.ofPattern(DATE_FORMAT_PATTERN);
+/**
+ * Потоковый (де)сериализатор дополнительных полей.
+ * <br>
+ * Поле <code>type</code> в JSON содержит либо тип значения ({@link Attribute.Type}), либо тип сущности
+ * справочника ({@link Meta.Type}). Тип, значение и ссылки на сущности разбираются за один проход по JSON
+ * без построения промежуточного дерева. Значение буферизуется, только если оно встретилось раньше поля
+ * <code>type</code>. При сериализации исходный объект не изменяется
+ */
+public class AttributeSerializer implements TypeAdapterFactory {
+    /**
+     * Классы значений для типов сущностей справочников, которые десериализуются в сущности.
+     * Значения остальных типов остаются в виде, который возвращает GSON для <code>Object</code>
+     */
+    private static final Map<Meta.Type, Class<?>> ENTITY_CLASSES = new EnumMap<>(Meta.Type.class);
+
+    static {
+        ENTITY_CLASSES.put(Meta.Type.COUNTERPARTY, Agent.class);
+        ENTITY_CLASSES.put(Meta.Type.ORGANIZATION, Agent.class);
+        ENTITY_CLASSES.put(Meta.Type.EMPLOYEE, Agent.class);
+        ENTITY_CLASSES.put(Meta.Type.PRODUCT, ProductAttributeMarker.class);
+        ENTITY_CLASSES.put(Meta.Type.BUNDLE, ProductAttributeMarker.class);
+        ENTITY_CLASSES.put(Meta.Type.SERVICE, ProductAttributeMarker.class);
+        ENTITY_CLASSES.put(Meta.Type.CONTRACT, Contract.class);
+        ENTITY_CLASSES.put(Meta.Type.PROJECT, Project.class);
+        ENTITY_CLASSES.put(Meta.Type.STORE, Store.class);
+        ENTITY_CLASSES.put(Meta.Type.CUSTOM_ENTITY, CustomEntityElement.class);
     }
 
+    private final Gson metaGson = JsonUtils.getGsonWithMetaAdapter();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_FORMAT_PATTERN);
+
     @Override
-    public JsonElement serialize(Attribute src, Type typeOfSrc, JsonSerializationContext context) {
-        JsonElement je = null;
-
-        if (src.getType() != null) {
-            switch (src.getType()) {
-                case timeValue:
-                    if (src.getValue() != null) {
-                        if (src.getValue() instanceof LocalDateTime) {
-                            src.setValue(context.serialize(((LocalDateTime) src.getValue()).format(formatter)));
-                        } else if (src.getValue() instanceof LocalDate) {
-                            src.setValue(context.serialize(((LocalDate) src.getValue()).format(formatter)));
-                        } else {
-                            throw new IllegalArgumentException("Неподдерживаемый тип данных для дополнительного поля с типом 'time': " + src
-                                    .getValue().getClass().getSimpleName());
-                        }
-                    }
-                    break;
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != Attribute.class) return null;
+        return (TypeAdapter<T>) new Adapter(gson).nullSafe();
+    }
+
+    private final class Adapter extends TypeAdapter<Attribute> {
+        /**
+         * GSON, в котором зарегистрирован этот адаптер. Через него десериализуются сущности справочников
+         */
+        private final Gson gson;
+        private final TypeAdapter<JsonElement> elementAdapter = metaGson.getAdapter(JsonElement.class);
+        private final TypeAdapter<Object> objectAdapter = metaGson.getAdapter(Object.class);
+        private final TypeAdapter<Attribute.Type> typeAdapter = metaGson.getAdapter(Attribute.Type.class);
+        private final TypeAdapter<Meta.Type> metaTypeAdapter = metaGson.getAdapter(Meta.Type.class);
+        private final TypeAdapter<Meta> metaAdapter = metaGson.getAdapter(Meta.class);
+        private final TypeAdapter<String> stringAdapter = metaGson.getAdapter(String.class);
+        private final TypeAdapter<Boolean> booleanAdapter = metaGson.getAdapter(Boolean.class);
+        private final Map<String, Attribute.Type> typesByName = new HashMap<>();
+
+        Adapter(Gson gson) {
+            this.gson = gson;
+            for (Attribute.Type t : Attribute.Type.values()) {
+                typesByName.put(typeAdapter.toJsonTree(t).getAsString(), t);
             }
-            je = gson.toJsonTree(src, Attribute.class);
-        } else if (src.getEntityType() != null) {
-            je = gson.toJsonTree(src, Attribute.class).getAsJsonObject();
-            JsonObject jo = (JsonObject) je;
-            jo.add("type", jo.get("entityType"));
-            jo.remove("entityType");
         }
 
-        return je;
-    }
+        @Override
+        public void write(JsonWriter out, Attribute src) throws IOException {
+            if (src.getType() == null && src.getEntityType() == null) {
+                out.nullValue();
+                return;
+            }
 
+            // Для ссылки на сущность справочника её тип передаётся в поле type
+            boolean reference = src.getType() == null;
 
+            out.beginObject();
+            if (!reference) {
+                out.name("type");
+                typeAdapter.write(out, src.getType());
+                writeField(out, "entityType", metaTypeAdapter, src.getEntityType());
+            }
+            writeValue(out, reference ? src.getValue() : serializableValue(src));
+            writeField(out, "required", booleanAdapter, src.getRequired());
+            writeField(out, "download", metaAdapter, src.getDownload());
+            writeField(out, "customEntityMeta", metaAdapter, src.getCustomEntityMeta());
+            writeField(out, "description", stringAdapter, src.getDescription());
+            writeField(out, "id", stringAdapter, src.getId());
+            writeField(out, "accountId", stringAdapter, src.getAccountId());
+            writeField(out, "name", stringAdapter, src.getName());
+            writeField(out, "meta", metaAdapter, src.getMeta());
+            if (reference) writeField(out, "type", metaTypeAdapter, src.getEntityType());
+            out.endObject();
+        }
 
-    @Override
-    public Attribute deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        JsonObject jo = gson.toJsonTree(json).getAsJsonObject();
+        @Override
+        public Attribute read(JsonReader in) throws IOException {
+            Attribute attribute = new Attribute();
+            boolean hasType = false;
+            Meta.Type referenceType = null;
+            JsonElement bufferedValue = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            break;
+                        }
+                        hasType = true;
+                        String typeName = in.nextString();
+                        referenceType = MetaTypeRegistry.byApiName(typeName);
+                        if (referenceType == null) attribute.setType(typesByName.get(typeName));
+                        break;
+
+                    case "value":
+                        // Пока тип неизвестен, способ разбора значения не определить
+                        if (hasType && (attribute.getType() != null || referenceType != null)) {
+                            attribute.setValue(convertValue(attribute, referenceType, valueAdapter(attribute, referenceType).read(in)));
+                        } else {
+                            bufferedValue = elementAdapter.read(in);
+                        }
+                        break;
+
+                    case "entityType":
+                        attribute.setEntityType(metaTypeAdapter.read(in));
+                        break;
+                    case "required":
+                        attribute.setRequired(booleanAdapter.read(in));
+                        break;
+                    case "download":
+                        attribute.setDownload(metaAdapter.read(in));
+                        break;
+                    case "customEntityMeta":
+                        attribute.setCustomEntityMeta(metaAdapter.read(in));
+                        break;
+                    case "description":
+                        attribute.setDescription(stringAdapter.read(in));
+                        break;
+                    case "id":
+                        attribute.setId(stringAdapter.read(in));
+                        break;
+                    case "accountId":
+                        attribute.setAccountId(stringAdapter.read(in));
+                        break;
+                    case "name":
+                        attribute.setName(stringAdapter.read(in));
+                        break;
+                    case "meta":
+                        attribute.setMeta(metaAdapter.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
 
-        if (!jo.has("type"))
-            throw new IllegalArgumentException("В пришедшей сущности дополнительного параметра нет поля 'type'!");
+            if (!hasType)
+                throw new IllegalArgumentException("В пришедшей сущности дополнительного параметра нет поля 'type'!");
 
-        String attrType = jo.get("type").getAsString();
+            if (referenceType != null) attribute.setEntityType(referenceType);
+            if (bufferedValue != null) {
+                Meta.Type entityType = attribute.getEntityType();
+                attribute.setValue(convertValue(attribute, entityType, valueAdapter(attribute, entityType).fromJsonTree(bufferedValue)));
+            }
+            return attribute;
+        }
 
-        try {
-            Meta.Type t = Meta.Type.find(attrType);
-            jo.remove("type");
-            jo.add("entityType", new JsonPrimitive(t.getApiName()));
-        } catch (IllegalArgumentException ignored) {
+        /**
+         * Адаптер для разбора значения: сущности справочников разбираются через {@link #gson}, остальные
+         * значения — как <code>Object</code>
+         */
+        private TypeAdapter<?> valueAdapter(Attribute attribute, Meta.Type entityType) {
+            if (attribute.getType() != null || entityType == null) return objectAdapter;
+
+            Class<?> entityClass = ENTITY_CLASSES.get(entityType);
+            return entityClass == null ? objectAdapter : gson.getAdapter(entityClass);
         }
 
-        Attribute ae = gson.fromJson(jo, Attribute.class);
+        private Object convertValue(Attribute attribute, Meta.Type entityType, Object value) {
+            if (value == null) return null;
+
+            if (attribute.getType() != null) {
+                switch (attribute.getType()) {
+                    case longValue:
+                        return ((Double) value).longValue();
 
-        if (ae.getType() != null && ae.getValue() != null) {
-            switch (ae.getType()) {
-                case longValue:
-                    ae.setValue(((Double) ae.getValue()).longValue());
-                    break;
+                    case timeValue:
+                        return LocalDateTime.parse(String.valueOf(value), formatter);
 
-                case timeValue:
-                    ae.setValue(LocalDateTime.parse(String.valueOf(ae.getValue()), formatter));
-                    break;
+                    default:
+                        return value;
+                }
             }
-        } else if (ae.getEntityType() != null) {
-            switch (ae.getEntityType()) {
-                case COUNTERPARTY:
-                case ORGANIZATION:
-                case EMPLOYEE:
-                    ae.setValue(
-                            context.deserialize(jo.get("value"), Agent.class)
-                    );
-                    break;
-
-                case PRODUCT:
-                case BUNDLE:
-                case SERVICE:
-                    ae.setValue(
-                            context.deserialize(jo.get("value"), ProductAttributeMarker.class)
-                    );
-                    break;
-
-                case CONTRACT:
-                    ae.setValue(
-                            context.deserialize(jo.get("value"), Contract.class)
-                    );
-                    break;
-
-                case PROJECT:
-                    ae.setValue(
-                            context.deserialize(jo.get("value"), Project.class)
-                    );
-                    break;
-
-                case STORE:
-                    ae.setValue(
-                            context.deserialize(jo.get("value"), Store.class)
-                    );
-                    break;
-
-                case CUSTOM_ENTITY:
-                    CustomEntityElement customEntity = context.deserialize(jo.get("value"), CustomEntityElement.class);
-                    if (customEntity != null) {
-                        customEntity.setCustomDictionaryId(MetaHrefUtils.getCustomDictionaryIdFromHref(customEntity.getMeta().getHref()));
-                    }
-                    ae.setValue(customEntity);
-                    break;
+
+            if (entityType == Meta.Type.CUSTOM_ENTITY) {
+                CustomEntityElement customEntity = (CustomEntityElement) value;
+                customEntity.setCustomDictionaryId(MetaHrefUtils.getCustomDictionaryIdFromHref(customEntity.getMeta().getHref()));
+            }
+            return value;
+        }
+
+        /**
+         * Значение в том виде, в котором оно передаётся в API
+         */
+        private Object serializableValue(Attribute src) {
+            if (src.getType() != Attribute.Type.timeValue || src.getValue() == null) return src.getValue();
+
+            if (src.getValue() instanceof LocalDateTime) {
+                return ((LocalDateTime) src.getValue()).format(formatter);
+            } else if (src.getValue() instanceof LocalDate) {
+                return ((LocalDate) src.getValue()).format(formatter);
             }
+            throw new IllegalArgumentException("Неподдерживаемый тип данных для дополнительного поля с типом 'time': " + src
+                    .getValue().getClass().getSimpleName());
         }
 
-        return ae;
+        @SuppressWarnings("unchecked")
+        private void writeValue(JsonWriter out, Object value) throws IOException {
+            if (value == null) return;
+
+            out.name("value");
+            ((TypeAdapter<Object>) metaGson.getAdapter(value.getClass())).write(out, value);
+        }
+
+        private <V> void writeField(JsonWriter out, String name, TypeAdapter<V> adapter, V value) throws IOException {
+            if (value == null) return;
+
+            out.name(name);
+            adapter.write(out, value);
+        }
     }
 }
@@ -12,7 +12,7 @@ import java.lang.reflect.Type;
  * метаданными CustomEntityMetadata.entityMeta (href, id, name, uuidHref, type, mediaType)
  */
 public class CustomEntityMetadataDeserializer implements JsonDeserializer<CustomEntityMetadata> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
+    private final Gson gson = JsonUtils.getGsonWithMetaAdapter();
 
     @Override
     public CustomEntityMetadata deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
@@ -1,10 +1,13 @@
 package ru.moysklad.remap_1_2.utils.json;
 
-import com.google.gson.*;
-import ru.moysklad.remap_1_2.entities.MetaEntity;
+import com.google.gson.Gson;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonElement;
+import ru.moysklad.remap_1_2.entities.Meta;
 import ru.moysklad.remap_1_2.entities.discounts.*;
 
-import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Десериализатор поля <code>discount</code>. В зависимости от метаданных, возвращает экземпляр
@@ -12,35 +15,27 @@ import java.lang.reflect.Type;
  * BonusProgram, PersonalDiscount, SpecialPriceDiscount,
  * или сам Discount
  */
-public class DiscountDeserializer implements JsonDeserializer<Discount> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
-
-    @Override
-    public Discount deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        MetaEntity me = gson.fromJson(json, MetaEntity.class);
-
-        if (me.getMeta() == null) throw new JsonParseException("Can't parse field 'discount': meta is null");
-        if (me.getMeta().getType() == null)
-            throw new JsonParseException("Can't parse field 'discount': meta.type is null");
-
-        switch (me.getMeta().getType()) {
-            case ACCUMULATION_DISCOUNT:
-                return context.deserialize(json, AccumulationDiscount.class);
-
-            case BONUS_PROGRAM:
-                return context.deserialize(json, BonusProgram.class);
-
-            case DISCOUNT:
-                return gson.fromJson(json, Discount.class);
+public class DiscountDeserializer extends MetaTypeDeserializer<Discount> {
+    private static final Map<Meta.Type, Class<? extends Discount>> CLASSES = new EnumMap<>(Meta.Type.class);
+
+    static {
+        CLASSES.put(Meta.Type.ACCUMULATION_DISCOUNT, AccumulationDiscount.class);
+        CLASSES.put(Meta.Type.BONUS_PROGRAM, BonusProgram.class);
+        CLASSES.put(Meta.Type.DISCOUNT, Discount.class);
+        CLASSES.put(Meta.Type.PERSONAL_DISCOUNT, PersonalDiscount.class);
+        CLASSES.put(Meta.Type.SPECIAL_PRICE_DISCOUNT, SpecialPriceDiscount.class);
+    }
 
-            case PERSONAL_DISCOUNT:
-                return context.deserialize(json, PersonalDiscount.class);
+    private final Gson gson = JsonUtils.getGsonWithMetaAdapter();
 
-            case SPECIAL_PRICE_DISCOUNT:
-                return context.deserialize(json, SpecialPriceDiscount.class);
+    public DiscountDeserializer() {
+        super("field 'discount'", "meta.type must be one of [accumulationdiscount, bonusprogram, discount, personaldiscount, specialpricediscount]", CLASSES);
+    }
 
-            default:
-                throw new JsonParseException("Can't parse field 'discount': meta.type must be one of [accumulationdiscount, bonusprogram, discount, personaldiscount, specialpricediscount]");
-        }
+    @Override
+    protected Discount deserialize(JsonElement json, Class<? extends Discount> clazz, JsonDeserializationContext context) {
+        // Discount через контекст снова попал бы в этот десериализатор
+        if (clazz == Discount.class) return gson.fromJson(json, Discount.class);
+        return super.deserialize(json, clazz, context);
     }
 }
@@ -1,13 +1,18 @@
 package ru.moysklad.remap_1_2.utils.json;
 
-import com.google.gson.*;
-import ru.moysklad.remap_1_2.entities.MetaEntity;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import ru.moysklad.remap_1_2.entities.Meta;
 import ru.moysklad.remap_1_2.entities.documents.DocumentEntity;
 
 import java.lang.reflect.Type;
+import java.util.Collections;
 
-public class DocumentEntitySerializer implements JsonSerializer<DocumentEntity>, JsonDeserializer<DocumentEntity> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
+public class DocumentEntitySerializer extends MetaTypeDeserializer<DocumentEntity> implements JsonSerializer<DocumentEntity> {
+    public DocumentEntitySerializer() {
+        super("field 'operation'", "meta.type is not a valid document type", Collections.emptyMap());
+    }
 
     @Override
     public JsonElement serialize(DocumentEntity src, Type typeOfSrc, JsonSerializationContext context) {
@@ -15,19 +20,9 @@ public class DocumentEntitySerializer implements JsonSerializer<DocumentEntity>,
     }
 
     @Override
-    public DocumentEntity deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        MetaEntity me = gson.fromJson(json, MetaEntity.class);
-
-        if (me.getMeta() == null) {
-            throw new JsonParseException("Can't parse field 'operation': meta is null");
-        } else if (me.getMeta().getType() == null) {
-            throw new JsonParseException("Can't parse field 'operation': meta.type is null");
-        }
-
-        if (!DocumentEntity.class.isAssignableFrom(me.getMeta().getType().getModelClass())) {
-            throw new JsonParseException("Can't parse field 'operation': meta.type is not a valid document type");
-        }
-
-        return context.deserialize(json, me.getMeta().getType().getModelClass());
+    @SuppressWarnings("unchecked")
+    protected Class<? extends DocumentEntity> classFor(Meta.Type type) {
+        if (!DocumentEntity.class.isAssignableFrom(type.getModelClass())) return null;
+        return (Class<? extends DocumentEntity>) type.getModelClass();
     }
 }
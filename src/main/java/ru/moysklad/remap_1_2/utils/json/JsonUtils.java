@@ -9,7 +9,20 @@ import static lombok.AccessLevel.PRIVATE;
 
 @NoArgsConstructor(access = PRIVATE)
 public final class JsonUtils {
+    /**
+     * Общий экземпляр GSON с адаптером для <code>Meta.Type</code>. Gson неизменяем и потокобезопасен, поэтому
+     * вложенные (де)сериализаторы используют один экземпляр и его кэш адаптеров вместо создания собственного
+     */
+    private static final Gson GSON_WITH_META_ADAPTER = createGsonWithMetaAdapter();
+
     public static Gson createGsonWithMetaAdapter() {
         return new GsonBuilder().registerTypeAdapter(Meta.Type.class, new Meta.Type.Serializer()).create();
     }
+
+    /**
+     * Возвращает общий экземпляр GSON, в котором зарегистрирован только адаптер для <code>Meta.Type</code>
+     */
+    public static Gson getGsonWithMetaAdapter() {
+        return GSON_WITH_META_ADAPTER;
+    }
 }
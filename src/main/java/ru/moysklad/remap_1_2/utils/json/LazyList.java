@@ -0,0 +1,101 @@
+package ru.moysklad.remap_1_2.utils.json;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Список, элементы которого разбираются из JSON при первом обращении к ним.
+ * <br>
+ * Пока элемент не разобран, на его месте хранится поддерево JSON; разобранный элемент заменяет его.
+ * Ошибка разбора элемента выбрасывается при обращении к нему ({@link #get(int)}), а не при получении
+ * ответа. При первом изменении списка все элементы разбираются, и дальше он работает как обычный
+ * {@link ArrayList}.
+ * <br>
+ * Читать список можно из нескольких потоков: элемент может быть разобран в них одновременно, но все потоки
+ * получат один и тот же экземпляр. Изменение списка, как и у {@link ArrayList}, не потокобезопасно
+ */
+final class LazyList<T> extends AbstractList<T> implements RandomAccess {
+    private final Function<JsonElement, ? extends T> decoder;
+
+    /**
+     * Элементы списка: поддерево JSON, пока элемент не разобран, затем разобранный элемент.
+     * После переноса элементов в {@link #materialized} сбрасывается; {@link #materialized}
+     * записывается раньше, поэтому поток, прочитавший здесь <code>null</code>, видит готовый список
+     */
+    private volatile AtomicReferenceArray<Object> rows;
+    private volatile List<T> materialized;
+
+    LazyList(JsonArray json, Function<JsonElement, ? extends T> decoder) {
+        this.decoder = decoder;
+        this.rows = new AtomicReferenceArray<>(json.size());
+        for (int i = 0; i < json.size(); i++) {
+            rows.set(i, json.get(i));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        AtomicReferenceArray<Object> rows = this.rows;
+        if (rows == null) return materialized.get(index);
+
+        Object value = rows.get(index);
+        if (value instanceof JsonElement) {
+            JsonElement element = (JsonElement) value;
+            if (element.isJsonNull()) return null;
+
+            T decoded = decoder.apply(element);
+            // Если элемент уже разобран в другом потоке, возвращается его результат
+            if (!rows.compareAndSet(index, element, decoded)) return (T) rows.get(index);
+            return decoded;
+        }
+        return (T) value;
+    }
+
+    @Override
+    public int size() {
+        AtomicReferenceArray<Object> rows = this.rows;
+        return rows == null ? materialized.size() : rows.length();
+    }
+
+    @Override
+    public T set(int index, T element) {
+        return materialize().set(index, element);
+    }
+
+    @Override
+    public void add(int index, T element) {
+        materialize().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public T remove(int index) {
+        T removed = materialize().remove(index);
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Разбирает оставшиеся элементы и переносит их в {@link ArrayList}
+     */
+    private List<T> materialize() {
+        AtomicReferenceArray<Object> rows = this.rows;
+        if (rows != null) {
+            List<T> list = new ArrayList<>(rows.length());
+            for (int i = 0; i < rows.length(); i++) {
+                list.add(get(i));
+            }
+            materialized = list;
+            this.rows = null;
+        }
+        return materialized;
+    }
+}
@@ -6,15 +6,48 @@ import org.slf4j.Logger;
 import ru.moysklad.remap_1_2.entities.Context;
 import ru.moysklad.remap_1_2.entities.Meta;
 import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.MetaTypeRegistry;
 import ru.moysklad.remap_1_2.responses.ListEntity;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.function.Function;
 
 public class ListEntityDeserializer implements JsonDeserializer<ListEntity> {
     private static final Logger logger = LoggerFactory.getLogger(ListEntityDeserializer.class);
 
+    /**
+     * Пул общих экземпляров ссылок в строках списка или <code>null</code>, если ссылки не объединяются
+     */
+    private final ReferenceInterner interner;
+
+    /**
+     * Строки списков разбираются при первом обращении к ним (см. {@link LazyList})
+     */
+    private final boolean lazyRows;
+
+    public ListEntityDeserializer() {
+        this(null);
+    }
+
+    /**
+     * @param interner пул, через который объединяются ссылки в строках списка (см. {@link ReferenceInterner})
+     */
+    public ListEntityDeserializer(ReferenceInterner interner) {
+        this(interner, false);
+    }
+
+    /**
+     * @param interner пул, через который объединяются ссылки в строках списка (см. {@link ReferenceInterner})
+     * @param lazyRows разбирать строки списков, в том числе вложенных (например, позиций документа), только при
+     *                 первом обращении к ним
+     */
+    public ListEntityDeserializer(ReferenceInterner interner, boolean lazyRows) {
+        this.interner = interner;
+        this.lazyRows = lazyRows;
+    }
+
     @Override
     public ListEntity deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
         ListEntity le = new ListEntity();
@@ -23,31 +56,42 @@ public class ListEntityDeserializer implements JsonDeserializer<ListEntity> {
 
         JsonArray rows = ((JsonObject) json).getAsJsonArray("rows");
         if (rows != null) {
-            le.setRows(new ArrayList(rows.size()));
-            if (rows.size() > 0) {
-                if (typeOfT instanceof ParameterizedType) {
-                    Type pcl = ((ParameterizedType) typeOfT).getActualTypeArguments()[0];
-
-                    for (JsonElement row : rows) {
-                        le.getRows().add(context.deserialize(row, pcl));
-                    }
-                } else {
-                    for (JsonElement row : rows) {
-                        Class<? extends MetaEntity> metaClass = MetaEntity.class;
-
-                        try {
-                            Meta.Type metaType = Meta.Type.find(((JsonObject) row).get("meta").getAsJsonObject().get("type").getAsString());
-                            metaClass = metaType.getModelClass();
-                        } catch (Exception e) {
-                            logger.warn("Ошибка во время десериализации массива rows", e);
-                        }
-
-                        le.getRows().add(context.deserialize(row, metaClass));
-                    }
+            Function<JsonElement, Object> decoder;
+            if (typeOfT instanceof ParameterizedType) {
+                Type pcl = ((ParameterizedType) typeOfT).getActualTypeArguments()[0];
+                decoder = row -> intern(context.deserialize(row, pcl));
+            } else {
+                decoder = row -> intern(context.deserialize(row, rowClass(row)));
+            }
+
+            if (lazyRows) {
+                le.setRows(new LazyList<>(rows, decoder));
+            } else {
+                le.setRows(new ArrayList(rows.size()));
+                for (JsonElement row : rows) {
+                    le.getRows().add(decoder.apply(row));
                 }
             }
         }
 
         return le;
     }
+
+    private static Class<? extends MetaEntity> rowClass(JsonElement row) {
+        Class<? extends MetaEntity> metaClass = null;
+
+        try {
+            String type = ((JsonObject) row).get("meta").getAsJsonObject().get("type").getAsString();
+            metaClass = MetaTypeRegistry.modelClass(type);
+            if (metaClass == null) logger.warn("Неизвестный тип сущности в массиве rows: {}", type);
+        } catch (Exception e) {
+            logger.warn("Ошибка во время десериализации массива rows", e);
+        }
+        return metaClass == null ? MetaEntity.class : metaClass;
+    }
+
+    private Object intern(Object row) {
+        if (interner == null || !(row instanceof MetaEntity)) return row;
+        return interner.internReferences((MetaEntity) row);
+    }
 }
@@ -0,0 +1,78 @@
+package ru.moysklad.remap_1_2.utils.json;
+
+import com.google.gson.*;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.MetaTypeRegistry;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Базовый десериализатор полей, тип которых определяется по метаданным.
+ * <br>
+ * Значение <code>meta.type</code> читается прямо из дерева JSON, без промежуточной десериализации
+ * {@link MetaEntity}, после чего JSON один раз десериализуется в класс, соответствующий типу
+ *
+ * @param <T> общий тип значений поля
+ */
+public abstract class MetaTypeDeserializer<T> implements JsonDeserializer<T> {
+    private final String subject;
+    private final String expectedTypes;
+    private final Map<Meta.Type, Class<? extends T>> classes;
+
+    /**
+     * @param subject       что разбирается, для сообщений об ошибках (например, <code>field 'agent'</code>)
+     * @param expectedTypes описание допустимых типов для сообщения об ошибке
+     * @param classes       классы значений по типу
+     */
+    protected MetaTypeDeserializer(String subject, String expectedTypes, Map<Meta.Type, Class<? extends T>> classes) {
+        this.subject = subject;
+        this.expectedTypes = expectedTypes;
+        this.classes = classes;
+    }
+
+    @Override
+    public T deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        Meta.Type type = readType(json);
+        Class<? extends T> clazz = type == null ? null : classFor(type);
+        if (clazz == null) throw error(expectedTypes);
+
+        return deserialize(json, clazz, context);
+    }
+
+    /**
+     * Класс значения для типа или <code>null</code>, если тип не поддерживается
+     */
+    protected Class<? extends T> classFor(Meta.Type type) {
+        return classes.get(type);
+    }
+
+    /**
+     * Десериализует JSON в выбранный класс
+     */
+    protected T deserialize(JsonElement json, Class<? extends T> clazz, JsonDeserializationContext context) {
+        return context.deserialize(json, clazz);
+    }
+
+    /**
+     * Читает <code>meta.type</code> из JSON. Возвращает <code>null</code>, если такой тип неизвестен
+     */
+    private Meta.Type readType(JsonElement json) {
+        if (!json.isJsonObject()) throw error("value is not an object");
+
+        JsonElement meta = json.getAsJsonObject().get("meta");
+        if (meta == null || meta.isJsonNull()) throw error("meta is null");
+        if (!meta.isJsonObject()) throw error("meta is not an object");
+
+        JsonElement type = meta.getAsJsonObject().get("type");
+        if (type == null || type.isJsonNull()) throw error("meta.type is null");
+        if (!type.isJsonPrimitive()) throw error(expectedTypes);
+
+        return MetaTypeRegistry.byApiName(type.getAsString());
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException("Can't parse " + subject + ": " + message);
+    }
+}
@@ -1,68 +1,40 @@
 package ru.moysklad.remap_1_2.utils.json;
 
-import com.google.gson.*;
-import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.Meta;
 import ru.moysklad.remap_1_2.entities.notifications.*;
 
-public class NotificationDeserializer implements JsonDeserializer<Notification> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
-
-    @Override
-    public Notification deserialize(JsonElement json, java.lang.reflect.Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        MetaEntity me = gson.fromJson(json, MetaEntity.class);
-
-        if (me.getMeta() == null) {
-            throw new JsonParseException("Can't parse notification: meta is null");
-        }
-        if (me.getMeta().getType() == null) {
-            throw new JsonParseException("Can't parse notification: meta.type is null");
-        }
-
-        switch (me.getMeta().getType()) {
-            case NOTIFICATION_ORDER_NEW:
-            case NOTIFICATION_ORDER_OVERDUE:
-                return context.deserialize(json, NotificationCustomerOrder.class);
-
-            case NOTIFICATION_INVOICE_OUT_OVERDUE:
-                return context.deserialize(json, NotificationInvoiceOutOverdue.class);
-
-            case NOTIFICATION_GOOD_COUNT_TOO_LOW:
-                return context.deserialize(json, NotificationGoodCountTooLow.class);
-
-            case NOTIFICATION_TASK_ASSIGNED:
-            case NOTIFICATION_TASK_UNASSIGNED:
-            case NOTIFICATION_TASK_OVERDUE:
-            case NOTIFICATION_TASK_COMPLETED:
-            case NOTIFICATION_TASK_REOPENED:
-            case NOTIFICATION_TASK_DELETED:
-                return context.deserialize(json, NotificationTask.class);
-
-            case NOTIFICATION_TASK_CHANGED:
-            case NOTIFICATION_TASK_COMMENT_CHANGED:
-                return context.deserialize(json, NotificationTaskChanged.class);
-
-            case NOTIFICATION_TASK_COMMENT_DELETED:
-            case NOTIFICATION_TASK_NEW_COMMENT:
-                return context.deserialize(json, NotificationTaskComment.class);
-
-            case NOTIFICATION_IMPORT_COMPLETED:
-            case NOTIFICATION_EXPORT_COMPLETED:
-                return context.deserialize(json, NotificationExchange.class);
-
-            case NOTIFICATION_SUBSCRIBE_EXPIRED:
-                return context.deserialize(json, NotificationSubscribeExpired.class);
-
-            case NOTIFICATION_SUBSCRIBE_TERMS_EXPIRED:
-                return context.deserialize(json, NotificationSubscribeTermsExpired.class);
-
-            case NOTIFICATION_RETAIL_SHIFT_OPENED:
-                return context.deserialize(json, NotificationRetailShift.class);
-
-            case NOTIFICATION_RETAIL_SHIFT_CLOSED:
-                return context.deserialize(json, NotificationRetailShiftClosed.class);
+import java.util.EnumMap;
+import java.util.Map;
+
+import static ru.moysklad.remap_1_2.entities.Meta.Type.*;
+
+public class NotificationDeserializer extends MetaTypeDeserializer<Notification> {
+    private static final Map<Meta.Type, Class<? extends Notification>> CLASSES = new EnumMap<>(Meta.Type.class);
+
+    static {
+        CLASSES.put(NOTIFICATION_ORDER_NEW, NotificationCustomerOrder.class);
+        CLASSES.put(NOTIFICATION_ORDER_OVERDUE, NotificationCustomerOrder.class);
+        CLASSES.put(NOTIFICATION_INVOICE_OUT_OVERDUE, NotificationInvoiceOutOverdue.class);
+        CLASSES.put(NOTIFICATION_GOOD_COUNT_TOO_LOW, NotificationGoodCountTooLow.class);
+        CLASSES.put(NOTIFICATION_TASK_ASSIGNED, NotificationTask.class);
+        CLASSES.put(NOTIFICATION_TASK_UNASSIGNED, NotificationTask.class);
+        CLASSES.put(NOTIFICATION_TASK_OVERDUE, NotificationTask.class);
+        CLASSES.put(NOTIFICATION_TASK_COMPLETED, NotificationTask.class);
+        CLASSES.put(NOTIFICATION_TASK_REOPENED, NotificationTask.class);
+        CLASSES.put(NOTIFICATION_TASK_DELETED, NotificationTask.class);
+        CLASSES.put(NOTIFICATION_TASK_CHANGED, NotificationTaskChanged.class);
+        CLASSES.put(NOTIFICATION_TASK_COMMENT_CHANGED, NotificationTaskChanged.class);
+        CLASSES.put(NOTIFICATION_TASK_COMMENT_DELETED, NotificationTaskComment.class);
+        CLASSES.put(NOTIFICATION_TASK_NEW_COMMENT, NotificationTaskComment.class);
+        CLASSES.put(NOTIFICATION_IMPORT_COMPLETED, NotificationExchange.class);
+        CLASSES.put(NOTIFICATION_EXPORT_COMPLETED, NotificationExchange.class);
+        CLASSES.put(NOTIFICATION_SUBSCRIBE_EXPIRED, NotificationSubscribeExpired.class);
+        CLASSES.put(NOTIFICATION_SUBSCRIBE_TERMS_EXPIRED, NotificationSubscribeTermsExpired.class);
+        CLASSES.put(NOTIFICATION_RETAIL_SHIFT_OPENED, NotificationRetailShift.class);
+        CLASSES.put(NOTIFICATION_RETAIL_SHIFT_CLOSED, NotificationRetailShiftClosed.class);
+    }
 
-            default:
-                throw new JsonParseException("Can't parse notification: meta.type must be one of \"Notification*\"");
-        }
+    public NotificationDeserializer() {
+        super("notification", "meta.type must be one of \"Notification*\"", CLASSES);
     }
 }
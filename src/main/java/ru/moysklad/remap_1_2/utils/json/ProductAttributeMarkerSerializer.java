@@ -13,7 +13,7 @@ import ru.moysklad.remap_1_2.entities.products.markers.ProductAttributeMarker;
 import java.lang.reflect.Type;
 
 public class ProductAttributeMarkerSerializer implements JsonSerializer<ProductAttributeMarker>, JsonDeserializer<ProductAttributeMarker> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
+    private final Gson gson = JsonUtils.getGsonWithMetaAdapter();
 
 
     @Override
@@ -1,8 +1,10 @@
 package ru.moysklad.remap_1_2.utils.json;
 
-import com.google.gson.*;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 import ru.moysklad.remap_1_2.entities.Consignment;
-import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.Meta;
 import ru.moysklad.remap_1_2.entities.products.Bundle;
 import ru.moysklad.remap_1_2.entities.products.Product;
 import ru.moysklad.remap_1_2.entities.products.Service;
@@ -10,45 +12,30 @@ import ru.moysklad.remap_1_2.entities.products.Variant;
 import ru.moysklad.remap_1_2.entities.products.markers.ProductMarker;
 
 import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * Cериализатор классов-наследников интерфейса <code>ProductMarker</code>. В зависимости от метаданных,
  * возвращает экземпляр одного из классов: Product, Service, Bundle, Variant
  */
-public class ProductMarkerSerializer implements JsonSerializer<ProductMarker>, JsonDeserializer<ProductMarker> {
-    private final Gson gson = JsonUtils.createGsonWithMetaAdapter();
+public class ProductMarkerSerializer extends MetaTypeDeserializer<ProductMarker> implements JsonSerializer<ProductMarker> {
+    private static final Map<Meta.Type, Class<? extends ProductMarker>> CLASSES = new EnumMap<>(Meta.Type.class);
+
+    static {
+        CLASSES.put(Meta.Type.PRODUCT, Product.class);
+        CLASSES.put(Meta.Type.SERVICE, Service.class);
+        CLASSES.put(Meta.Type.BUNDLE, Bundle.class);
+        CLASSES.put(Meta.Type.VARIANT, Variant.class);
+        CLASSES.put(Meta.Type.CONSIGNMENT, Consignment.class);
+    }
 
-    @Override
-    public JsonElement serialize(ProductMarker src, Type typeOfSrc, JsonSerializationContext context) {
-        return context.serialize(src);
+    public ProductMarkerSerializer() {
+        super("field 'product'", "meta.type must be one of [product, service, bundle, variant, consignment]", CLASSES);
     }
 
     @Override
-    public ProductMarker deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        MetaEntity me = gson.fromJson(json, MetaEntity.class);
-
-        if (me.getMeta() == null) throw new JsonParseException("Can't parse field 'product': meta is null");
-        if (me.getMeta().getType() == null)
-            throw new JsonParseException("Can't parse field 'product': meta.type is null");
-
-        switch (me.getMeta().getType()) {
-            case PRODUCT:
-                return context.deserialize(json, Product.class);
-
-            case SERVICE:
-                return context.deserialize(json, Service.class);
-
-            case BUNDLE:
-                return context.deserialize(json, Bundle.class);
-
-            case VARIANT:
-                return context.deserialize(json, Variant.class);
-
-            case CONSIGNMENT:
-                return context.deserialize(json, Consignment.class);
-
-            default:
-                throw new JsonParseException("Can't parse field 'product': meta.type must be one of [product, service, bundle, variant, consignment]");
-        }
+    public JsonElement serialize(ProductMarker src, Type typeOfSrc, JsonSerializationContext context) {
+        return context.serialize(src);
     }
 }
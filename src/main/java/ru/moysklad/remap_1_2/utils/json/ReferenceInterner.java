@@ -0,0 +1,217 @@
+package ru.moysklad.remap_1_2.utils.json;
+
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Пул общих экземпляров ссылок на сущности.
+ * <br>
+ * Ссылкой считается вложенная сущность, у которой заполнены только метаданные (например,
+ * <code>organization</code>, <code>store</code> или <code>owner</code> в строке списка документов).
+ * Все такие ссылки на одну и ту же сущность заменяются одним экземпляром, поэтому большие списки
+ * занимают меньше памяти. Экземпляры хранятся по слабым ссылкам и удаляются из пула, когда на них
+ * больше никто не ссылается.
+ * <br>
+ * <b>Внимание!</b> Общие экземпляры нельзя изменять: изменение будет видно во всех сущностях,
+ * которые на них ссылаются. Для изменения используйте копию ({@link ru.moysklad.remap_1_2.entities.Entity#clone(ru.moysklad.remap_1_2.entities.Entity)})
+ */
+public final class ReferenceInterner {
+    private final ConcurrentHashMap<Object, SharedReference> references = new ConcurrentHashMap<>();
+    private final ReferenceQueue<MetaEntity> collected = new ReferenceQueue<>();
+
+    /**
+     * Заменяет ссылки в полях сущности общими экземплярами
+     *
+     * @return та же сущность
+     */
+    public <T extends MetaEntity> T internReferences(T entity) {
+        if (entity != null) ReferenceFields.of(entity.getClass()).intern(entity, this);
+        return entity;
+    }
+
+    /**
+     * Общий экземпляр для ссылки или сама ссылка, если её ещё нет в пуле
+     */
+    private MetaEntity intern(MetaEntity reference) {
+        expungeCollected();
+
+        Object key = reference.getMeta().referenceKey();
+        while (true) {
+            SharedReference ref = references.get(key);
+            MetaEntity shared = ref == null ? null : ref.get();
+            if (shared != null) return shared.getClass() == reference.getClass() ? shared : reference;
+
+            SharedReference added = new SharedReference(key, reference, collected);
+            if (ref == null ? references.putIfAbsent(key, added) == null : references.replace(key, ref, added)) {
+                return reference;
+            }
+        }
+    }
+
+    /**
+     * Удаляет из пула записи, экземпляры которых собраны сборщиком мусора
+     */
+    private void expungeCollected() {
+        for (Reference<? extends MetaEntity> ref; (ref = collected.poll()) != null; ) {
+            references.remove(((SharedReference) ref).key, ref);
+        }
+    }
+
+    /**
+     * Слабая ссылка на общий экземпляр, помнящая свой ключ в пуле
+     */
+    private static final class SharedReference extends WeakReference<MetaEntity> {
+        private final Object key;
+
+        SharedReference(Object key, MetaEntity referent, ReferenceQueue<MetaEntity> queue) {
+            super(referent, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Методы доступа к полям класса сущности. Определяются один раз для каждого класса
+     */
+    private static final class ReferenceFields {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+        private static final String SDK_PACKAGE = "ru.moysklad.remap_1_2.";
+
+        private static final ClassValue<ReferenceFields> CACHE = new ClassValue<ReferenceFields>() {
+            @Override
+            protected ReferenceFields computeValue(Class<?> type) {
+                return new ReferenceFields(type);
+            }
+        };
+
+        /**
+         * Геттеры и сеттеры полей с вложенными сущностями
+         */
+        private final MethodHandle[] entityGetters;
+        private final MethodHandle[] entitySetters;
+
+        /**
+         * Геттеры полей с вложенными объектами SDK, которые не являются сущностями (например, {@link ru.moysklad.remap_1_2.entities.Rate}).
+         * Ссылки в них тоже объединяются
+         */
+        private final MethodHandle[] embeddedGetters;
+
+        /**
+         * Геттеры всех ссылочных полей, кроме метаданных: у ссылки все они пустые
+         */
+        private final MethodHandle[] valueGetters;
+
+        /**
+         * У класса есть поля примитивных типов или поля, которые не удалось прочитать; такие сущности
+         * ссылками не считаются
+         */
+        private final boolean opaque;
+
+        private ReferenceFields(Class<?> clazz) {
+            List<MethodHandle> entityGetters = new ArrayList<>();
+            List<MethodHandle> entitySetters = new ArrayList<>();
+            List<MethodHandle> embeddedGetters = new ArrayList<>();
+            List<MethodHandle> valueGetters = new ArrayList<>();
+            boolean opaque = false;
+
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(f.getModifiers()) || f.isSynthetic()) continue;
+                    if (f.getType().isPrimitive()) {
+                        opaque = true;
+                        continue;
+                    }
+
+                    try {
+                        f.setAccessible(true);
+                        MethodHandle getter = lookup.unreflectGetter(f).asType(GETTER_TYPE);
+                        if (f.getType() != Meta.class) valueGetters.add(getter);
+                        if (MetaEntity.class.isAssignableFrom(f.getType()) && !Modifier.isFinal(f.getModifiers())) {
+                            entityGetters.add(getter);
+                            entitySetters.add(lookup.unreflectSetter(f).asType(SETTER_TYPE));
+                        } else if (isEmbedded(f.getType())) {
+                            embeddedGetters.add(getter);
+                        }
+                    } catch (IllegalAccessException | SecurityException e) {
+                        opaque = true;
+                    }
+                }
+            }
+
+            this.entityGetters = entityGetters.toArray(new MethodHandle[0]);
+            this.entitySetters = entitySetters.toArray(new MethodHandle[0]);
+            this.embeddedGetters = embeddedGetters.toArray(new MethodHandle[0]);
+            this.valueGetters = valueGetters.toArray(new MethodHandle[0]);
+            this.opaque = opaque;
+        }
+
+        static ReferenceFields of(Class<?> clazz) {
+            return CACHE.get(clazz);
+        }
+
+        void intern(Object entity, ReferenceInterner interner) {
+            for (int i = 0; i < entityGetters.length; i++) {
+                Object value = invoke(entityGetters[i], entity);
+                if (!(value instanceof MetaEntity) || !isReference((MetaEntity) value)) continue;
+
+                MetaEntity shared = interner.intern((MetaEntity) value);
+                if (shared != value) set(entitySetters[i], entity, shared);
+            }
+
+            for (MethodHandle getter : embeddedGetters) {
+                Object value = invoke(getter, entity);
+                if (value != null) of(value.getClass()).intern(value, interner);
+            }
+        }
+
+        private static boolean isEmbedded(Class<?> type) {
+            return type.getName().startsWith(SDK_PACKAGE) && !type.isEnum() && type != Meta.class
+                    && !MetaEntity.class.isAssignableFrom(type);
+        }
+
+        private static boolean isReference(MetaEntity entity) {
+            if (entity.getMeta() == null || entity.getMeta().getType() == null) return false;
+
+            ReferenceFields fields = of(entity.getClass());
+            if (fields.opaque) return false;
+
+            for (MethodHandle getter : fields.valueGetters) {
+                if (invoke(getter, entity) != null) return false;
+            }
+            return true;
+        }
+
+        private static Object invoke(MethodHandle getter, Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Cannot read field of class " + entity.getClass().getName(), e);
+            }
+        }
+
+        private static void set(MethodHandle setter, Object entity, Object value) {
+            try {
+                setter.invokeExact(entity, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Cannot write field of class " + entity.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package ru.moysklad.remap_1_2.utils.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.responses.ViewListEntity;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый декодер строк списка в облегчённые модели для чтения.
+ * <br>
+ * Строки разбираются напрямую из JSON, без построения сущностей и промежуточного дерева. Поля, которые
+ * декодер не читает, пропускаются без разбора
+ *
+ * @param <V> класс модели
+ */
+public abstract class ViewDecoder<V> {
+    /**
+     * Разбирает одну строку списка
+     */
+    public abstract V read(JsonReader in) throws IOException;
+
+    /**
+     * Разбирает строки списка из ответа API. Ответ может быть как объектом с полем <code>rows</code>,
+     * так и массивом строк
+     */
+    public List<V> readList(Reader reader) throws IOException {
+        return readList(new JsonReader(reader));
+    }
+
+    public List<V> readList(String json) throws IOException {
+        return readList(new StringReader(json));
+    }
+
+    public List<V> readList(JsonReader in) throws IOException {
+        List<V> rows = new ArrayList<>();
+        readRows(in, rows::add);
+        return rows;
+    }
+
+    /**
+     * Разбирает строки списка из ответа API и передаёт их обработчику по одной, не накапливая в памяти
+     */
+    public void readRows(Reader reader, Consumer<? super V> consumer) throws IOException {
+        readRows(new JsonReader(reader), consumer);
+    }
+
+    public void readRows(JsonReader in, Consumer<? super V> consumer) throws IOException {
+        readResponse(in, consumer, null);
+    }
+
+    /**
+     * Разбирает страницу списка из ответа API: строки и метаданные списка
+     *
+     * @param gson экземпляр GSON, которым разбираются метаданные
+     */
+    public ViewListEntity<V> readPage(Reader reader, Gson gson) throws IOException {
+        return readPage(new JsonReader(reader), gson);
+    }
+
+    public ViewListEntity<V> readPage(JsonReader in, Gson gson) throws IOException {
+        List<V> rows = new ArrayList<>();
+        ViewListEntity<V> page = new ViewListEntity<>();
+        page.setMeta(readResponse(in, rows::add, gson));
+        page.setRows(rows);
+        return page;
+    }
+
+    /**
+     * Разбирает строки ответа и, если передан экземпляр GSON, метаданные списка
+     */
+    private Meta readResponse(JsonReader in, Consumer<? super V> consumer, Gson gson) throws IOException {
+        if (in.peek() == JsonToken.BEGIN_ARRAY) {
+            readArray(in, consumer);
+            return null;
+        }
+
+        Meta meta = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if ("rows".equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                readArray(in, consumer);
+            } else if ("meta".equals(name) && gson != null && in.peek() == JsonToken.BEGIN_OBJECT) {
+                meta = gson.fromJson(in, Meta.class);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return meta;
+    }
+
+    private void readArray(JsonReader in, Consumer<? super V> consumer) throws IOException {
+        in.beginArray();
+        while (in.hasNext()) {
+            consumer.accept(read(in));
+        }
+        in.endArray();
+    }
+
+    /**
+     * Значение поля или <code>0</code>, если оно равно <code>null</code>
+     */
+    protected static long nextLong(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return in.nextLong();
+
+        in.nextNull();
+        return 0;
+    }
+
+    /**
+     * Значение поля или <code>0</code>, если оно равно <code>null</code>
+     */
+    protected static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return in.nextInt();
+
+        in.nextNull();
+        return 0;
+    }
+
+    /**
+     * Значение поля или <code>0</code>, если оно равно <code>null</code>
+     */
+    protected static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return in.nextDouble();
+
+        in.nextNull();
+        return 0;
+    }
+
+    /**
+     * Значение поля или <code>false</code>, если оно равно <code>null</code>
+     */
+    protected static boolean nextBoolean(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return in.nextBoolean();
+
+        in.nextNull();
+        return false;
+    }
+
+    protected static String nextString(JsonReader in) throws IOException {
+        if (in.peek() != JsonToken.NULL) return in.nextString();
+
+        in.nextNull();
+        return null;
+    }
+
+    /**
+     * Значение цены (поле <code>value</code> объекта {@link ru.moysklad.remap_1_2.entities.Price}) или
+     * <code>0</code>, если цены нет
+     */
+    protected static long nextPriceValue(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+
+        long value = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("value".equals(in.nextName())) {
+                value = nextLong(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return value;
+    }
+
+    /**
+     * Значения цен из массива объектов {@link ru.moysklad.remap_1_2.entities.Price} в порядке их следования
+     */
+    protected static long[] nextPriceValues(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return new long[0];
+        }
+
+        long[] values = new long[4];
+        int size = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = nextPriceValue(in);
+        }
+        in.endArray();
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Ссылка из метаданных вложенной сущности (поле <code>meta.href</code>) или <code>null</code>
+     */
+    protected static String nextReferenceHref(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        String href = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("meta".equals(in.nextName()) && in.peek() == JsonToken.BEGIN_OBJECT) {
+                href = nextMetaHref(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return href;
+    }
+
+    private static String nextMetaHref(JsonReader in) throws IOException {
+        String href = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if ("href".equals(in.nextName())) {
+                href = nextString(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return href;
+    }
+}
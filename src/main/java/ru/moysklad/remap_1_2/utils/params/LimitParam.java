@@ -1,6 +1,9 @@
 package ru.moysklad.remap_1_2.utils.params;
 
+import lombok.Getter;
+
 public class LimitParam extends ApiParam {
+    @Getter
     private final int value;
 
     private LimitParam(int value) {
@@ -0,0 +1,136 @@
+package ru.moysklad.remap_1_2.utils.snapshot;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поля класса, которые записываются в снимок, и методы доступа к ним. Определяются один раз для каждого класса
+ */
+final class ClassPlan {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<ClassPlan> CACHE = new ClassValue<ClassPlan>() {
+        @Override
+        protected ClassPlan computeValue(Class<?> type) {
+            return new ClassPlan(type);
+        }
+    };
+
+    final Class<?> type;
+    final String[] names;
+    final Class<?>[] types;
+    private final MethodHandle[] getters;
+    private final MethodHandle[] setters;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final MethodHandle constructor;
+
+    private ClassPlan(Class<?> type) {
+        this.type = type;
+
+        List<Field> fields = new ArrayList<>();
+        collectFields(type, fields);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        names = new String[fields.size()];
+        types = new Class<?>[fields.size()];
+        getters = new MethodHandle[fields.size()];
+        setters = new MethodHandle[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            Field f = fields.get(i);
+            try {
+                f.setAccessible(true);
+                names[i] = f.getName();
+                types[i] = f.getType();
+                getters[i] = lookup.unreflectGetter(f).asType(GETTER_TYPE);
+                setters[i] = lookup.unreflectSetter(f).asType(SETTER_TYPE);
+                indexes.putIfAbsent(f.getName(), i);
+            } catch (IllegalAccessException | SecurityException e) {
+                throw new IllegalArgumentException("Cannot access field " + f.getName() + " of class " + type.getName(), e);
+            }
+        }
+
+        MethodHandle constructor;
+        try {
+            constructor = lookup.unreflectConstructor(accessibleConstructor(type)).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+            constructor = null;
+        }
+        this.constructor = constructor;
+    }
+
+    static ClassPlan of(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Поля начиная с суперклассов, без статических и неизменяемых
+     */
+    private static void collectFields(Class<?> type, List<Field> fields) {
+        if (type == null || type == Object.class) return;
+
+        collectFields(type.getSuperclass(), fields);
+        for (Field f : type.getDeclaredFields()) {
+            int modifiers = f.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || f.isSynthetic()) continue;
+            fields.add(f);
+        }
+    }
+
+    private static java.lang.reflect.Constructor<?> accessibleConstructor(Class<?> type) throws NoSuchMethodException {
+        java.lang.reflect.Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor;
+    }
+
+    boolean isInstantiable() {
+        return constructor != null;
+    }
+
+    /**
+     * Индекс поля по имени или <code>-1</code>, если такого поля нет
+     */
+    int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    Object newInstance() {
+        if (constructor == null) throw new IllegalArgumentException("Class " + type.getName() + " has no constructor without parameters");
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot create instance of class " + type.getName(), e);
+        }
+    }
+
+    Object get(int index, Object target) {
+        try {
+            return (Object) getters[index].invokeExact(target);
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot read field " + names[index] + " of class " + type.getName(), e);
+        }
+    }
+
+    void set(int index, Object target, Object value) {
+        try {
+            setters[index].invokeExact(target, value);
+        } catch (Error | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Cannot write field " + names[index] + " of class " + type.getName(), e);
+        }
+    }
+}
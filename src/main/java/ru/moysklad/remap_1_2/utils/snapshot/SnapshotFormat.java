@@ -0,0 +1,71 @@
+package ru.moysklad.remap_1_2.utils.snapshot;
+
+/**
+ * Константы двоичного формата снимков.
+ * <br>
+ * Снимок начинается с сигнатуры {@link #MAGIC} и версии формата, за которыми следуют записи. Каждое значение
+ * начинается с байта-тега. Классы и часто повторяющиеся строки (типы сущностей, имена констант перечислений,
+ * префиксы ссылок) записываются в словари снимка при первом использовании, а дальше передаются номером.
+ * Вместе с классом в словарь записываются имена его полей (схема), поэтому снимок читается и после изменения
+ * классов: поля, которых больше нет, пропускаются, а новые поля остаются пустыми
+ */
+final class SnapshotFormat {
+    static final int MAGIC = 0x4D53534E;
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INT = 3;
+    static final int LONG = 4;
+    static final int DOUBLE = 5;
+    static final int STRING = 6;
+    static final int UUID = 7;
+    static final int DATE_TIME = 8;
+    static final int ENUM = 9;
+    static final int META = 10;
+    static final int LIST = 11;
+    static final int MAP = 12;
+    static final int OBJECT = 13;
+
+    /*
+     * Флаги полей метаданных
+     */
+    static final int META_HREF = 1;
+    static final int META_HREF_UUID = 1 << 1;
+    static final int META_METADATA_HREF = 1 << 2;
+    static final int META_TYPE = 1 << 3;
+    static final int META_MEDIA_TYPE = 1 << 4;
+    static final int META_UUID_HREF = 1 << 5;
+    static final int META_UUID_HREF_SAME_ID = 1 << 6;
+    static final int META_SIZE = 1 << 7;
+    static final int META_LIMIT = 1 << 8;
+    static final int META_OFFSET = 1 << 9;
+
+    /**
+     * Пакеты классов, объекты которых записываются в снимок и создаются при его чтении. Классы из других
+     * пакетов при чтении считаются неизвестными, чтобы повреждённый снимок не мог создать произвольный объект
+     */
+    private static final String[] SNAPSHOT_PACKAGES = {
+            "ru.moysklad.remap_1_2.entities.",
+            "ru.moysklad.remap_1_2.responses."
+    };
+
+    /**
+     * Ограничения на длину строк, размер коллекций и количество полей класса. Защищают от выделения памяти
+     * по испорченному размеру
+     */
+    static final int MAX_STRING_LENGTH = 64 * 1024 * 1024;
+    static final int MAX_COLLECTION_SIZE = 64 * 1024 * 1024;
+    static final int MAX_FIELD_COUNT = 4096;
+
+    static boolean isSnapshotClass(String className) {
+        for (String prefix : SNAPSHOT_PACKAGES) {
+            if (className.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,357 @@
+package ru.moysklad.remap_1_2.utils.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.moysklad.remap_1_2.entities.MediaType;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.MetaTypeRegistry;
+import ru.moysklad.remap_1_2.utils.UuidUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static ru.moysklad.remap_1_2.utils.UuidUtils.UUID_LENGTH;
+import static ru.moysklad.remap_1_2.utils.snapshot.SnapshotFormat.*;
+
+/**
+ * Чтение снимка, записанного {@link SnapshotWriter}.
+ * <br>
+ * Значения читаются по одному. Если класс из снимка больше не существует, вместо его объектов возвращается
+ * <code>null</code>; поля, которых больше нет в классе, пропускаются
+ * <pre>
+ * try (SnapshotReader reader = new SnapshotReader(new FileInputStream(file))) {
+ *     while (reader.hasNext()) {
+ *         CustomerOrder order = reader.read(CustomerOrder.class);
+ *     }
+ * }
+ * </pre>
+ */
+public final class SnapshotReader implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotReader.class);
+
+    private final DataInputStream in;
+    private final List<ClassRef> classes = new ArrayList<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    /**
+     * Тег следующего значения, прочитанный в {@link #hasNext()}, или <code>-1</code>
+     */
+    private int nextTag = -1;
+
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+
+        if (this.in.readInt() != MAGIC) throw new IOException("Данные не являются снимком");
+        int version = readVarInt();
+        if (version > VERSION) throw new IOException("Неподдерживаемая версия формата снимка: " + version);
+    }
+
+    /**
+     * Проверяет, есть ли в снимке ещё значения
+     */
+    public boolean hasNext() throws IOException {
+        if (nextTag < 0) nextTag = in.read();
+        return nextTag >= 0;
+    }
+
+    /**
+     * Читает следующее значение
+     *
+     * @throws EOFException если значений больше нет
+     */
+    public Object read() throws IOException {
+        if (!hasNext()) throw new EOFException("Снимок прочитан полностью");
+
+        int tag = nextTag;
+        nextTag = -1;
+        return readValue(tag);
+    }
+
+    /**
+     * Читает следующее значение и приводит его к указанному классу
+     */
+    public <T> T read(Class<T> type) throws IOException {
+        return type.cast(read());
+    }
+
+    /**
+     * Итератор по оставшимся значениям снимка. Ошибки чтения оборачиваются в {@link UncheckedIOException}
+     */
+    public <T> Iterator<T> iterator(Class<T> type) {
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return SnapshotReader.this.hasNext();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    if (!SnapshotReader.this.hasNext()) throw new NoSuchElementException();
+                    return read(type);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Object readValue(int tag) throws IOException {
+        switch (tag) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case INT:
+                return (int) unzigzag(readVarLong());
+            case LONG:
+                return unzigzag(readVarLong());
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return readUtf();
+            case UUID:
+                return readUuid(new StringBuilder(UUID_LENGTH)).toString();
+            case DATE_TIME:
+                return LocalDateTime.ofEpochSecond(unzigzag(readVarLong()), readVarInt(), ZoneOffset.UTC);
+            case ENUM:
+                return readEnum();
+            case META:
+                return readMeta();
+            case LIST: {
+                int size = readSize(MAX_COLLECTION_SIZE);
+                List<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(readTag()));
+                }
+                return list;
+            }
+            case MAP: {
+                int size = readSize(MAX_COLLECTION_SIZE);
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(readTag()), readValue(readTag()));
+                }
+                return map;
+            }
+            case OBJECT:
+                return readObject();
+            default:
+                throw new IOException("Неизвестный тег значения в снимке: " + tag);
+        }
+    }
+
+    private Object readObject() throws IOException {
+        ClassRef ref = readClass();
+        Object value = ref.plan == null ? null : ref.plan.newInstance();
+
+        for (int field = readVarInt(); field != 0; field = readVarInt()) {
+            if (field < 1 || field > ref.fields.length) {
+                throw new IOException("Неизвестный номер поля в снимке: " + field);
+            }
+
+            Object fieldValue = readValue(readTag());
+            if (value == null) continue;
+
+            int index = ref.fields[field - 1];
+            if (index < 0) continue;
+
+            fieldValue = convert(fieldValue, ref.plan.types[index]);
+            if (fieldValue != null) ref.plan.set(index, value, fieldValue);
+        }
+        return value;
+    }
+
+    /**
+     * Приводит значение к типу поля, если тип поля изменился с момента записи снимка. Значения, которые
+     * привести нельзя, пропускаются
+     */
+    private static Object convert(Object value, Class<?> type) {
+        if (value == null || type.isInstance(value)) return value;
+
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Long.class || type == long.class) return number.longValue();
+            if (type == Integer.class || type == int.class) return number.intValue();
+            if (type == Double.class || type == double.class) return number.doubleValue();
+        }
+        if (value instanceof Boolean && type == boolean.class) return value;
+        return null;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws IOException {
+        ClassRef ref = readClass();
+        String name = readSymbol();
+        if (ref.type == null || !ref.type.isEnum()) return null;
+
+        try {
+            return Enum.valueOf((Class<? extends Enum>) ref.type, name);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Неизвестное значение {} перечисления {} в снимке", name, ref.type.getName());
+            return null;
+        }
+    }
+
+    private Meta readMeta() throws IOException {
+        int flags = readVarInt();
+        Meta meta = new Meta();
+
+        String uuid = null;
+        if ((flags & META_HREF_UUID) != 0) {
+            String prefix = readSymbol();
+            uuid = readUuid(new StringBuilder(UUID_LENGTH)).toString();
+            meta.setHref(prefix + uuid);
+        } else if ((flags & META_HREF) != 0) {
+            meta.setHref(readUtf());
+        }
+        if ((flags & META_METADATA_HREF) != 0) meta.setMetadataHref(readSymbol());
+        if ((flags & META_TYPE) != 0) meta.setType(MetaTypeRegistry.byApiName(readSymbol()));
+        if ((flags & META_MEDIA_TYPE) != 0) meta.setMediaType(mediaType(readSymbol()));
+        if ((flags & META_UUID_HREF_SAME_ID) != 0) {
+            meta.setUuidHref(readSymbol() + uuid);
+        } else if ((flags & META_UUID_HREF) != 0) {
+            meta.setUuidHref(readUtf());
+        }
+        if ((flags & META_SIZE) != 0) meta.setSize((int) unzigzag(readVarLong()));
+        if ((flags & META_LIMIT) != 0) meta.setLimit((int) unzigzag(readVarLong()));
+        if ((flags & META_OFFSET) != 0) meta.setOffset((int) unzigzag(readVarLong()));
+        return meta;
+    }
+
+    private static MediaType mediaType(String name) {
+        try {
+            return MediaType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private ClassRef readClass() throws IOException {
+        int index = readVarInt();
+        if (index != 0) {
+            if (index < 0 || index > classes.size()) throw new IOException("Неизвестный номер класса в снимке: " + index);
+            return classes.get(index - 1);
+        }
+
+        String name = readUtf();
+        int fieldCount = readSize(MAX_FIELD_COUNT);
+        String[] fieldNames = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = readUtf();
+        }
+
+        ClassRef ref = new ClassRef(name, fieldNames);
+        classes.add(ref);
+        return ref;
+    }
+
+    private String readSymbol() throws IOException {
+        int index = readVarInt();
+        if (index != 0) {
+            if (index < 0 || index > symbols.size()) throw new IOException("Неизвестный номер строки в снимке: " + index);
+            return symbols.get(index - 1);
+        }
+
+        String value = readUtf();
+        symbols.add(value);
+        return value;
+    }
+
+    private StringBuilder readUuid(StringBuilder sb) throws IOException {
+        long mostSigBits = in.readLong();
+        long leastSigBits = in.readLong();
+        return UuidUtils.appendUuid(sb, mostSigBits, leastSigBits);
+    }
+
+    private int readTag() throws IOException {
+        int tag = in.read();
+        if (tag < 0) throw new EOFException("Снимок обрывается посередине значения");
+        return tag;
+    }
+
+    private String readUtf() throws IOException {
+        byte[] bytes = new byte[readSize(MAX_STRING_LENGTH)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Размер строки или коллекции. Испорченный размер приводит к ошибке чтения, а не к выделению памяти
+     */
+    private int readSize(int max) throws IOException {
+        long size = readVarLong();
+        if (size < 0 || size > max) throw new IOException("Недопустимый размер в снимке: " + size);
+        return (int) size;
+    }
+
+    private int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readTag();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Слишком длинное число в снимке");
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Класс из словаря снимка и соответствие его полей в снимке полям текущей версии класса
+     */
+    private static final class ClassRef {
+        final Class<?> type;
+        final ClassPlan plan;
+        final int[] fields;
+
+        ClassRef(String name, String[] fieldNames) {
+            this.type = findClass(name);
+
+            ClassPlan plan = type == null || type.isEnum() ? null : ClassPlan.of(type);
+            this.plan = plan != null && plan.isInstantiable() ? plan : null;
+
+            fields = new int[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                fields[i] = this.plan == null ? -1 : this.plan.indexOf(fieldNames[i]);
+            }
+        }
+
+        /**
+         * Класс из снимка или <code>null</code>, если его нет или он не может храниться в снимке
+         */
+        private static Class<?> findClass(String name) {
+            if (!isSnapshotClass(name)) {
+                logger.warn("Класс {} не может храниться в снимке, его объекты будут пропущены", name);
+                return null;
+            }
+
+            try {
+                return Class.forName(name, false, SnapshotReader.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                logger.warn("Класс {} из снимка не найден, его объекты будут пропущены", name);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package ru.moysklad.remap_1_2.utils.snapshot;
+
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.utils.UuidUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ru.moysklad.remap_1_2.utils.UuidUtils.UUID_LENGTH;
+import static ru.moysklad.remap_1_2.utils.snapshot.SnapshotFormat.*;
+
+/**
+ * Запись сущностей в компактный двоичный снимок (формат описан в {@link SnapshotFormat}).
+ * <br>
+ * Значения записываются последовательно, поэтому строки больших списков можно записывать по одной, не
+ * собирая их в памяти. Прочитать снимок можно {@link SnapshotReader}. Записываются все поля сущностей,
+ * кроме статических; циклические ссылки между объектами не поддерживаются.
+ * <br>
+ * Поддерживаются классы SDK с конструктором без параметров, строки, числа <code>Integer</code>,
+ * <code>Long</code> и <code>Double</code>, <code>Boolean</code>, {@link LocalDateTime}, перечисления,
+ * списки и словари из таких значений
+ * <pre>
+ * try (SnapshotWriter writer = new SnapshotWriter(new FileOutputStream(file))) {
+ *     writer.writeAll(page.getRows());
+ * }
+ * </pre>
+ */
+public final class SnapshotWriter implements Closeable, Flushable {
+    private final DataOutputStream out;
+    private final Map<Class<?>, Integer> classes = new IdentityHashMap<>();
+    private final Map<String, Integer> symbols = new HashMap<>();
+
+    public SnapshotWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+        writeVarInt(VERSION);
+    }
+
+    /**
+     * Записывает значение (как правило, сущность)
+     */
+    public void write(Object value) throws IOException {
+        writeValue(value);
+    }
+
+    /**
+     * Записывает значения по одному, например строки списка
+     */
+    public void writeAll(Iterable<?> values) throws IOException {
+        for (Object value : values) {
+            writeValue(value);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Boolean) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            out.write(INT);
+            writeVarLong(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            writeVarLong(zigzag((Long) value));
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.write(DATE_TIME);
+            writeVarLong(zigzag(dateTime.toEpochSecond(ZoneOffset.UTC)));
+            writeVarInt(dateTime.getNano());
+        } else if (value instanceof Enum) {
+            Class<?> type = ((Enum<?>) value).getDeclaringClass();
+            if (!isSnapshotClass(type.getName())) {
+                throw new IllegalArgumentException("Неподдерживаемый тип значения для снимка: " + type.getName());
+            }
+
+            out.write(ENUM);
+            writeClass(type, null);
+            writeSymbol(((Enum<?>) value).name());
+        } else if (value instanceof Meta) {
+            writeMeta((Meta) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.write(LIST);
+            writeVarInt(list.size());
+            for (Object element : list) {
+                writeValue(element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.write(MAP);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else {
+            writeObject(value);
+        }
+    }
+
+    /**
+     * Записывает непустые поля объекта парами «номер поля + 1, значение»; <code>0</code> завершает объект
+     */
+    private void writeObject(Object value) throws IOException {
+        Class<?> type = value.getClass();
+        if (!isSnapshotClass(type.getName())) {
+            throw new IllegalArgumentException("Неподдерживаемый тип значения для снимка: " + type.getName());
+        }
+
+        ClassPlan plan = ClassPlan.of(type);
+        if (!plan.isInstantiable()) {
+            throw new IllegalArgumentException("У класса " + type.getName() + " нет конструктора без параметров");
+        }
+
+        out.write(OBJECT);
+        writeClass(type, plan);
+        for (int i = 0; i < plan.names.length; i++) {
+            Object field = plan.get(i, value);
+            if (field == null) continue;
+
+            writeVarInt(i + 1);
+            writeValue(field);
+        }
+        writeVarInt(0);
+    }
+
+    /**
+     * Ссылка на объект и ссылка на UI, которые заканчиваются на UUID, записываются как префикс из словаря
+     * и UUID в виде двух чисел
+     */
+    private void writeMeta(Meta meta) throws IOException {
+        String href = meta.getHref();
+        String uuidHref = meta.getUuidHref();
+        int idStart = href == null ? -1 : href.length() - UUID_LENGTH;
+        boolean hrefUuid = UuidUtils.isUuid(href == null ? "" : href, idStart);
+        int uuidHrefIdStart = uuidHref == null ? -1 : uuidHref.length() - UUID_LENGTH;
+        boolean uuidHrefSameId = hrefUuid && uuidHref != null && UuidUtils.isUuid(uuidHref, uuidHrefIdStart)
+                && uuidHref.regionMatches(uuidHrefIdStart, href, idStart, UUID_LENGTH);
+
+        int flags = 0;
+        if (href != null) flags |= hrefUuid ? META_HREF | META_HREF_UUID : META_HREF;
+        if (meta.getMetadataHref() != null) flags |= META_METADATA_HREF;
+        if (meta.getType() != null) flags |= META_TYPE;
+        if (meta.getMediaType() != null) flags |= META_MEDIA_TYPE;
+        if (uuidHref != null) flags |= uuidHrefSameId ? META_UUID_HREF | META_UUID_HREF_SAME_ID : META_UUID_HREF;
+        if (meta.getSize() != null) flags |= META_SIZE;
+        if (meta.getLimit() != null) flags |= META_LIMIT;
+        if (meta.getOffset() != null) flags |= META_OFFSET;
+
+        out.write(META);
+        writeVarInt(flags);
+        if (hrefUuid) {
+            writeSymbol(href.substring(0, idStart));
+            out.writeLong(UuidUtils.mostSigBits(href, idStart));
+            out.writeLong(UuidUtils.leastSigBits(href, idStart));
+        } else if (href != null) {
+            writeUtf(href);
+        }
+        if (meta.getMetadataHref() != null) writeSymbol(meta.getMetadataHref());
+        if (meta.getType() != null) writeSymbol(meta.getType().getApiName());
+        if (meta.getMediaType() != null) writeSymbol(meta.getMediaType().name());
+        if (uuidHrefSameId) {
+            writeSymbol(uuidHref.substring(0, uuidHrefIdStart));
+        } else if (uuidHref != null) {
+            writeUtf(uuidHref);
+        }
+        if (meta.getSize() != null) writeVarLong(zigzag(meta.getSize()));
+        if (meta.getLimit() != null) writeVarLong(zigzag(meta.getLimit()));
+        if (meta.getOffset() != null) writeVarLong(zigzag(meta.getOffset()));
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value.length() == UUID_LENGTH && UuidUtils.isUuid(value, 0)) {
+            out.write(UUID);
+            out.writeLong(UuidUtils.mostSigBits(value, 0));
+            out.writeLong(UuidUtils.leastSigBits(value, 0));
+        } else {
+            out.write(STRING);
+            writeUtf(value);
+        }
+    }
+
+    /**
+     * Номер класса в словаре или <code>0</code>, за которым следуют имя класса и имена его полей
+     */
+    private void writeClass(Class<?> type, ClassPlan plan) throws IOException {
+        Integer index = classes.get(type);
+        if (index != null) {
+            writeVarInt(index + 1);
+            return;
+        }
+
+        classes.put(type, classes.size());
+        writeVarInt(0);
+        writeUtf(type.getName());
+        if (plan == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(plan.names.length);
+        for (String name : plan.names) {
+            writeUtf(name);
+        }
+    }
+
+    /**
+     * Номер строки в словаре или <code>0</code>, за которым следует сама строка
+     */
+    private void writeSymbol(String value) throws IOException {
+        Integer index = symbols.get(value);
+        if (index != null) {
+            writeVarInt(index + 1);
+            return;
+        }
+
+        symbols.put(value, symbols.size());
+        writeVarInt(0);
+        writeUtf(value);
+    }
+
+    private void writeUtf(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
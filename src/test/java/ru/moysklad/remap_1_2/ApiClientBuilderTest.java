@@ -0,0 +1,101 @@
+package ru.moysklad.remap_1_2;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.StubHttpClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static ru.moysklad.remap_1_2.utils.Constants.MAX_PARALLEL_REQUESTS;
+
+public class ApiClientBuilderTest {
+    private HttpServer server;
+    private String host;
+
+    @Before
+    public void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"id\":\"1\",\"name\":\"ООО Ромашка\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        host = "127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    public void test_pooledClientIsBuilt() throws IOException, ApiClientException {
+        try (ApiClient api = ApiClient.builder(host)
+                .forceHttps(false)
+                .credentials("admin@test", "password")
+                .maxConnections(8, 3)
+                .build()) {
+
+            assertEquals("http://" + host, api.getHost());
+            assertEquals("admin@test", api.getLogin());
+
+            Counterparty counterparty = api.entity().counterparty().get("1");
+            assertEquals("ООО Ромашка", counterparty.getName());
+
+            PoolStats stats = api.getPoolStats();
+            assertEquals(8, stats.getMax());
+            assertEquals(0, stats.getLeased());
+            assertEquals(1, stats.getAvailable());
+        }
+    }
+
+    @Test
+    public void test_idleConnectionsAreReaped() throws Exception {
+        try (ApiClient api = ApiClient.builder(host)
+                .forceHttps(false)
+                .token("token")
+                .idleTimeout(100, TimeUnit.MILLISECONDS)
+                .build()) {
+
+            api.entity().counterparty().get("1");
+            assertEquals(1, api.getPoolStats().getAvailable());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (api.getPoolStats().getAvailable() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, api.getPoolStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void test_customClientHasNoPoolStats() {
+        ApiClient api = ApiClient.builder(host).token("token").httpClient(new StubHttpClient()).build();
+
+        assertEquals("https://" + host, api.getHost());
+        assertEquals("token", api.getToken());
+        assertNull(api.getPoolStats());
+    }
+
+    @Test
+    public void test_defaultConstructorUsesPool() {
+        ApiClient api = new ApiClient(host, false, "admin@test", "password");
+
+        assertNotNull(api.getPoolStats());
+        assertEquals(2 * MAX_PARALLEL_REQUESTS, api.getPoolStats().getMax());
+    }
+}
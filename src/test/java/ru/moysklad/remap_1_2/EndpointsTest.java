@@ -2,7 +2,9 @@ package ru.moysklad.remap_1_2;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import ru.moysklad.remap_1_2.clients.endpoints.ApiChainElement;
 import ru.moysklad.remap_1_2.clients.endpoints.ApiEndpoint;
 import ru.moysklad.remap_1_2.clients.endpoints.ExportEndpoint;
@@ -15,16 +17,24 @@ import ru.moysklad.remap_1_2.utils.MockHttpClient;
 import ru.moysklad.remap_1_2.utils.TestRandomizers;
 import ru.moysklad.remap_1_2.utils.params.ApiParam;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
 public class EndpointsTest implements TestRandomizers {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private ApiClient api;
     private MockHttpClient mockHttpClient;
     private Set<String> expected, newMethods;
@@ -92,11 +102,19 @@ public class EndpointsTest implements TestRandomizers {
                 ArrayList<Object> params = new ArrayList<>();
                 for (int i = 0; i < method1.getParameterCount(); i++) {
                     if (method1.getParameterTypes()[i] == File.class) {
-                        params.add(new File("test.xls"));
+                        params.add(new File(folder.getRoot(), "test.xls"));
+                    } else if (method1.getParameterTypes()[i] == OutputStream.class) {
+                        params.add(new ByteArrayOutputStream());
+                    } else if (method1.getParameterTypes()[i] == WritableByteChannel.class) {
+                        params.add(Channels.newChannel(new ByteArrayOutputStream()));
                     } else if (method1.getParameterTypes()[i] == Collection.class) {
                         params.add(new ArrayList());
                     } else if (method1.getParameterTypes()[i] == List.class) {
                         params.add(new ArrayList());
+                    } else if (method1.getParameterTypes()[i] == Set.class) {
+                        params.add(new HashSet());
+                    } else if (method1.getParameterTypes()[i] == Consumer.class) {
+                        params.add((Consumer) o -> {});
                     } else if (method1.getParameterTypes()[i] == String.class) {
                         params.add("ID");
                     } else if (method1.getParameterTypes()[i] == ApiParam[].class) {
@@ -107,6 +125,8 @@ public class EndpointsTest implements TestRandomizers {
                         params.add(new ExportEndpoint.PrintRequest[0]);
                     } else if (method1.getParameterTypes()[i] == boolean.class) {
                         params.add(false);
+                    } else if (method1.getParameterTypes()[i] == int.class) {
+                        params.add(1);
                     } else if (method1.getParameterTypes()[i] == ListEntity.class) {
                         params.add(new ListEntity());
                     } else if (method1.getParameterTypes()[i] == DocumentEntity.class) {
@@ -2,7 +2,9 @@ package ru.moysklad.remap_1_2;
 
 import org.apache.http.HttpRequest;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import ru.moysklad.remap_1_2.entities.Template;
 import ru.moysklad.remap_1_2.utils.ApiClientException;
 import ru.moysklad.remap_1_2.utils.MockHttpClient;
@@ -13,6 +15,9 @@ import java.io.IOException;
 import static org.junit.Assert.*;
 
 public class HeadersTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private ApiClient api;
     private MockHttpClient mockHttpClient;
 
@@ -117,19 +122,19 @@ public class HeadersTest {
     @Test
     public void printDocumentHeaderTest() throws IOException, ApiClientException {
         api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", mockHttpClient);
-        api.entity().demand().export("ID", new Template(), new File("test0.xls"));
+        api.entity().demand().export("ID", new Template(), new File(folder.getRoot(), "test0.xls"));
 
         HttpRequest req0 = mockHttpClient.getLastExecutedRequest();
         assertNotNull(req0);
         assertNull(req0.getFirstHeader("X-Lognex-Get-Content"));
 
-        api.entity().demand().export("ID", new Template(), new File("test1.xls"), true);
+        api.entity().demand().export("ID", new Template(), new File(folder.getRoot(), "test1.xls"), true);
 
         HttpRequest req1 = mockHttpClient.getLastExecutedRequest();
         assertNotNull(req1);
         assertEquals("true", req1.getFirstHeader("X-Lognex-Get-Content").getValue());
 
-        api.entity().demand().export("ID", new Template(), new File("test2.xls"), false);
+        api.entity().demand().export("ID", new Template(), new File(folder.getRoot(), "test2.xls"), false);
 
         HttpRequest req2 = mockHttpClient.getLastExecutedRequest();
         assertNotNull(req2);
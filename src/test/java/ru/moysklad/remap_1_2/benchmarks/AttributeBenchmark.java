@@ -0,0 +1,46 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.Attribute;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор и сериализация дополнительных полей: строка каталога с 36 полями разных типов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributeBenchmark {
+    private ApiClient api;
+    private String json;
+    private Attribute[] attributes;
+
+    @Setup
+    public void setup() {
+        api = new ApiClient("online.moysklad.ru", true, "login", "password");
+        json = BenchmarkFixtures.attributes(36);
+        attributes = api.getGson().fromJson(json, Attribute[].class);
+    }
+
+    @Benchmark
+    public Attribute[] decode() {
+        return api.getGson().fromJson(json, Attribute[].class);
+    }
+
+    @Benchmark
+    public String encode() {
+        return api.getGson().toJson(attributes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AttributeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,336 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Генератор ответов API для бенчмарков. Ответы собираются в том же виде, в каком их отдаёт
+ * <code>/entity/customerorder?expand=positions,agent</code>: ссылки на связанные сущности содержат
+ * полные <code>meta</code>, а позиции и доп. поля раскрыты
+ */
+public final class BenchmarkFixtures {
+    public static final String HOST = "https://online.moysklad.ru/api/remap/1.2";
+
+    private static final String[] SHARED_IDS = {
+            uuid(1), uuid(2), uuid(3), uuid(4), uuid(5), uuid(6)
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Страница списка заказов покупателей с раскрытыми позициями
+     *
+     * @param rows      количество заказов на странице
+     * @param positions количество позиций в каждом заказе
+     */
+    public static String customerOrderPage(int rows, int positions) {
+        Random rnd = new Random(rows * 31L + positions);
+
+        JsonObject page = new JsonObject();
+        page.add("meta", listMeta("customerorder", rows, 1000, 0));
+
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < rows; i++) {
+            array.add(customerOrder(rnd, positions));
+        }
+        page.add("rows", array);
+
+        return page.toString();
+    }
+
+    /**
+     * Один заказ покупателя с раскрытыми позициями
+     */
+    public static String customerOrder(int positions) {
+        return customerOrder(new Random(positions), positions).toString();
+    }
+
+    /**
+     * Страница списка позиций заказа покупателя
+     *
+     * @param rows количество позиций на странице
+     */
+    public static String positionPage(int rows) {
+        return positionPage(rows, 0);
+    }
+
+    /**
+     * Страница списка позиций заказа покупателя, в которых встречается ограниченный набор товаров
+     *
+     * @param rows        количество позиций на странице
+     * @param assortments количество разных товаров, <code>0</code> — в каждой позиции свой товар
+     */
+    public static String positionPage(int rows, int assortments) {
+        Random rnd = new Random(rows * 31L + assortments);
+
+        JsonObject page = new JsonObject();
+        page.add("meta", listMeta("customerorderposition", rows, 1000, 0));
+
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < rows; i++) {
+            array.add(position(rnd, assortments == 0 ? UUID.randomUUID().toString() : uuid(100 + rnd.nextInt(assortments))));
+        }
+        page.add("rows", array);
+
+        return page.toString();
+    }
+
+    /**
+     * Страница списка товаров
+     *
+     * @param rows количество товаров на странице
+     */
+    public static String productPage(int rows) {
+        Random rnd = new Random(rows);
+
+        JsonObject page = new JsonObject();
+        page.add("meta", listMeta("product", rows, 1000, 0));
+
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < rows; i++) {
+            array.add(product(rnd));
+        }
+        page.add("rows", array);
+
+        return page.toString();
+    }
+
+    /**
+     * Массив дополнительных полей всех основных типов, включая ссылки на контрагентов
+     *
+     * @param count количество полей
+     */
+    public static String attributes(int count) {
+        JsonArray attributes = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            switch (i % 6) {
+                case 0:
+                    attributes.add(attribute("string", "Канал продаж"));
+                    break;
+                case 1:
+                    attributes.add(attribute("long", 42));
+                    break;
+                case 2:
+                    attributes.add(attribute("double", 3.5));
+                    break;
+                case 3:
+                    attributes.add(attribute("boolean", true));
+                    break;
+                case 4:
+                    attributes.add(attribute("time", "2021-03-04 12:10:00.000"));
+                    break;
+                default:
+                    JsonObject attribute = attribute("counterparty", null);
+                    attribute.add("value", reference("counterparty", UUID.randomUUID().toString()));
+                    attributes.add(attribute);
+            }
+        }
+        return attributes.toString();
+    }
+
+    private static JsonObject customerOrder(Random rnd, int positions) {
+        String id = UUID.randomUUID().toString();
+
+        JsonObject order = new JsonObject();
+        order.add("meta", meta("customerorder", id));
+        order.addProperty("id", id);
+        order.addProperty("accountId", SHARED_IDS[0]);
+        order.add("owner", reference("employee", SHARED_IDS[1]));
+        order.addProperty("shared", true);
+        order.add("group", reference("group", SHARED_IDS[2]));
+        order.addProperty("updated", "2021-03-04 12:10:31.000");
+        order.addProperty("name", String.format("%05d", rnd.nextInt(100000)));
+        order.addProperty("externalCode", UUID.randomUUID().toString());
+        order.addProperty("moment", "2021-03-04 12:10:00.000");
+        order.addProperty("applicable", true);
+        order.add("rate", rate());
+        order.addProperty("sum", rnd.nextInt(10_000_000));
+        order.add("store", reference("store", SHARED_IDS[3]));
+        order.add("agent", reference("counterparty", UUID.randomUUID().toString()));
+        order.add("organization", reference("organization", SHARED_IDS[4]));
+        order.add("state", stateReference(SHARED_IDS[5]));
+        order.addProperty("created", "2021-03-04 12:10:31.000");
+        order.addProperty("printed", false);
+        order.addProperty("published", false);
+        order.addProperty("vatEnabled", true);
+        order.addProperty("vatIncluded", true);
+        order.addProperty("vatSum", rnd.nextInt(100_000));
+        order.addProperty("payedSum", 0);
+        order.addProperty("shippedSum", 0);
+        order.addProperty("invoicedSum", 0);
+        order.addProperty("reservedSum", 0);
+
+        JsonArray attributes = new JsonArray();
+        attributes.add(attribute("string", "Канал продаж"));
+        attributes.add(attribute("long", 42));
+        attributes.add(attribute("double", 3.5));
+        attributes.add(attribute("boolean", true));
+        order.add("attributes", attributes);
+
+        JsonObject positionList = new JsonObject();
+        positionList.add("meta", listMeta("customerorderposition", positions, 1000, 0));
+        JsonArray positionRows = new JsonArray();
+        for (int i = 0; i < positions; i++) {
+            positionRows.add(position(rnd, UUID.randomUUID().toString()));
+        }
+        positionList.add("rows", positionRows);
+        order.add("positions", positionList);
+
+        return order;
+    }
+
+    private static JsonObject position(Random rnd, String assortmentId) {
+        String id = UUID.randomUUID().toString();
+
+        JsonObject position = new JsonObject();
+        JsonObject meta = new JsonObject();
+        meta.addProperty("href", HOST + "/entity/customerorder/" + UUID.randomUUID() + "/positions/" + id);
+        meta.addProperty("type", "customerorderposition");
+        meta.addProperty("mediaType", "application/json");
+        position.add("meta", meta);
+        position.addProperty("id", id);
+        position.addProperty("accountId", SHARED_IDS[0]);
+        position.addProperty("quantity", 1 + rnd.nextInt(20));
+        position.addProperty("price", rnd.nextInt(1_000_000));
+        position.addProperty("discount", rnd.nextInt(30));
+        position.addProperty("vat", 20);
+        position.add("assortment", reference("product", assortmentId));
+        position.addProperty("shipped", 0);
+        position.addProperty("reserve", 0);
+        return position;
+    }
+
+    private static JsonObject product(Random rnd) {
+        String id = UUID.randomUUID().toString();
+
+        JsonObject product = new JsonObject();
+        product.add("meta", meta("product", id));
+        product.addProperty("id", id);
+        product.addProperty("accountId", SHARED_IDS[0]);
+        product.add("owner", reference("employee", SHARED_IDS[1]));
+        product.addProperty("shared", true);
+        product.add("group", reference("group", SHARED_IDS[2]));
+        product.addProperty("updated", "2021-03-04 12:10:31.000");
+        product.addProperty("name", "Товар " + rnd.nextInt(100000));
+        product.addProperty("code", String.valueOf(rnd.nextInt(100000)));
+        product.addProperty("externalCode", UUID.randomUUID().toString());
+        product.addProperty("archived", false);
+        product.addProperty("pathName", "Группа");
+        product.add("productFolder", reference("productfolder", SHARED_IDS[3]));
+        product.addProperty("vat", 20);
+        product.addProperty("effectiveVat", 20);
+        product.add("uom", reference("uom", SHARED_IDS[4]));
+        product.add("minPrice", price(rnd, null));
+        product.add("buyPrice", price(rnd, null));
+
+        JsonArray salePrices = new JsonArray();
+        salePrices.add(price(rnd, "Цена продажи"));
+        salePrices.add(price(rnd, "Оптовая цена"));
+        product.add("salePrices", salePrices);
+
+        JsonArray barcodes = new JsonArray();
+        JsonObject barcode = new JsonObject();
+        barcode.addProperty("ean13", String.format("2000000%06d", rnd.nextInt(1000000)));
+        barcodes.add(barcode);
+        product.add("barcodes", barcodes);
+
+        product.addProperty("article", "A-" + rnd.nextInt(10000));
+        product.addProperty("weight", rnd.nextInt(1000) / 10.0);
+        product.addProperty("volume", rnd.nextInt(100) / 10.0);
+        product.addProperty("minimumBalance", rnd.nextInt(50));
+        product.addProperty("variantsCount", 0);
+        product.addProperty("isSerialTrackable", false);
+        product.addProperty("trackingType", "NOT_TRACKED");
+        product.addProperty("paymentItemType", "GOOD");
+
+        JsonArray attributes = new JsonArray();
+        attributes.add(attribute("string", "Бренд"));
+        attributes.add(attribute("double", 3.5));
+        product.add("attributes", attributes);
+        return product;
+    }
+
+    private static JsonObject price(Random rnd, String priceTypeName) {
+        JsonObject price = new JsonObject();
+        price.addProperty("value", (double) rnd.nextInt(1_000_000));
+        price.add("currency", reference("currency", uuid(7)));
+        if (priceTypeName != null) {
+            JsonObject priceType = new JsonObject();
+            priceType.add("meta", meta("pricetype", uuid(priceTypeName.length())));
+            priceType.addProperty("id", uuid(priceTypeName.length()));
+            priceType.addProperty("name", priceTypeName);
+            priceType.addProperty("externalCode", "cbcf493b-55bc-11d9-848a-00112f43529a");
+            price.add("priceType", priceType);
+        }
+        return price;
+    }
+
+    private static JsonObject attribute(String type, Object value) {
+        JsonObject attribute = new JsonObject();
+        String id = UUID.randomUUID().toString();
+        JsonObject meta = new JsonObject();
+        meta.addProperty("href", HOST + "/entity/customerorder/metadata/attributes/" + id);
+        meta.addProperty("type", "attributemetadata");
+        meta.addProperty("mediaType", "application/json");
+        attribute.add("meta", meta);
+        attribute.addProperty("id", id);
+        attribute.addProperty("name", type + " attribute");
+        attribute.addProperty("type", type);
+        if (value instanceof String) attribute.addProperty("value", (String) value);
+        else if (value instanceof Number) attribute.addProperty("value", (Number) value);
+        else if (value instanceof Boolean) attribute.addProperty("value", (Boolean) value);
+        return attribute;
+    }
+
+    private static JsonObject rate() {
+        JsonObject rate = new JsonObject();
+        rate.add("currency", reference("currency", uuid(7)));
+        return rate;
+    }
+
+    private static JsonObject reference(String type, String id) {
+        JsonObject reference = new JsonObject();
+        reference.add("meta", meta(type, id));
+        return reference;
+    }
+
+    private static JsonObject stateReference(String id) {
+        JsonObject reference = new JsonObject();
+        JsonObject meta = new JsonObject();
+        meta.addProperty("href", HOST + "/entity/customerorder/metadata/states/" + id);
+        meta.addProperty("metadataHref", HOST + "/entity/customerorder/metadata");
+        meta.addProperty("type", "state");
+        meta.addProperty("mediaType", "application/json");
+        reference.add("meta", meta);
+        return reference;
+    }
+
+    private static JsonObject meta(String type, String id) {
+        JsonObject meta = new JsonObject();
+        meta.addProperty("href", HOST + "/entity/" + type + "/" + id);
+        meta.addProperty("metadataHref", HOST + "/entity/" + type + "/metadata");
+        meta.addProperty("type", type);
+        meta.addProperty("mediaType", "application/json");
+        meta.addProperty("uuidHref", "https://online.moysklad.ru/app/#" + type + "/edit?id=" + id);
+        return meta;
+    }
+
+    private static JsonObject listMeta(String type, int size, int limit, int offset) {
+        JsonObject meta = new JsonObject();
+        meta.addProperty("href", HOST + "/entity/" + type);
+        meta.addProperty("type", type);
+        meta.addProperty("mediaType", "application/json");
+        meta.addProperty("size", size);
+        meta.addProperty("limit", limit);
+        meta.addProperty("offset", offset);
+        return meta;
+    }
+
+    private static String uuid(int n) {
+        return new UUID(0x0a1b2c3d4e5f6071L + n, 0x0102030405060708L * n).toString();
+    }
+}
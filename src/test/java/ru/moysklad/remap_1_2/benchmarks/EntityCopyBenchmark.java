@@ -0,0 +1,83 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.Entity;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Копирование заказа покупателя с раскрытыми позициями, контрагентом и доп. полями: раньше
+ * {@link Entity#set(Entity)} на каждом вызове искал геттеры и сеттеры через рефлексию
+ * ({@link #reflectiveSet()}), теперь использует закэшированный план копирования ({@link #set()})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityCopyBenchmark {
+    @Param({"5", "100"})
+    private int positions;
+
+    private CustomerOrder order;
+
+    @Setup
+    public void setup() {
+        ApiClient api = new ApiClient("online.moysklad.ru", true, "login", "password");
+        order = api.getGson().fromJson(BenchmarkFixtures.customerOrder(positions), CustomerOrder.class);
+    }
+
+    @Benchmark
+    public CustomerOrder set() {
+        CustomerOrder copy = new CustomerOrder();
+        copy.set(order);
+        return copy;
+    }
+
+    @Benchmark
+    public CustomerOrder cloneOrder() {
+        return Entity.clone(order);
+    }
+
+    @Benchmark
+    public CustomerOrder reflectiveSet() throws Exception {
+        CustomerOrder copy = new CustomerOrder();
+        reflectiveSet(copy, order);
+        return copy;
+    }
+
+    /**
+     * Прежняя реализация {@link Entity#set(Entity)}
+     */
+    private static void reflectiveSet(Object target, Object other) throws Exception {
+        for (Method method : other.getClass().getMethods()) {
+            if (!method.getName().startsWith("get")) continue;
+
+            Method setter;
+            try {
+                setter = target.getClass().getMethod(method.getName().replace("get", "set"), method.getReturnType());
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+
+            Object o = method.invoke(other);
+            if (o instanceof Entity) {
+                Object clone = o.getClass().getConstructor().newInstance();
+                reflectiveSet(clone, o);
+                o = clone;
+            }
+            setter.invoke(target, o);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EntityCopyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
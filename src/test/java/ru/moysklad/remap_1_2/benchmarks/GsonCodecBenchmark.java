@@ -0,0 +1,47 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость одного вызова API на стороне кодека: раньше каждый запрос строил собственный GSON
+ * ({@link #perRequestGson()}), теперь используется экземпляр, принадлежащий ApiClient ({@link #sharedGson()})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GsonCodecBenchmark {
+    private ApiClient api;
+    private String json;
+
+    @Setup
+    public void setup() {
+        api = new ApiClient("online.moysklad.ru", true, "login", "password");
+        json = BenchmarkFixtures.customerOrder(5);
+    }
+
+    @Benchmark
+    public CustomerOrder perRequestGson() {
+        Gson gson = ApiClient.createGson();
+        return gson.fromJson(json, CustomerOrder.class);
+    }
+
+    @Benchmark
+    public CustomerOrder sharedGson() {
+        return api.getGson().fromJson(json, CustomerOrder.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GsonCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
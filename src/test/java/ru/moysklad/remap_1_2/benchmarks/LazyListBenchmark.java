@@ -0,0 +1,62 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Просмотр страницы из 100 заказов покупателей по 20 позиций, при котором читаются только поля самих
+ * заказов: полный разбор против отложенного разбора строк списков
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LazyListBenchmark {
+    private static final Type PAGE_TYPE = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+
+    private Gson eager;
+    private Gson lazy;
+    private String json;
+
+    @Setup
+    public void setup() {
+        eager = ApiClient.createGson(false);
+        lazy = ApiClient.createGson(false, null, true);
+        json = BenchmarkFixtures.customerOrderPage(100, 20);
+    }
+
+    @Benchmark
+    public long scanEager() {
+        return scan(eager);
+    }
+
+    @Benchmark
+    public long scanLazy() {
+        return scan(lazy);
+    }
+
+    private long scan(Gson gson) {
+        ListEntity<CustomerOrder> page = gson.fromJson(json, PAGE_TYPE);
+        long sum = 0;
+        for (CustomerOrder order : page.getRows()) {
+            sum += order.getSum() + order.getName().length() + order.getId().length() + order.getMoment().getDayOfMonth();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LazyListBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск {@link Meta.Type}: раньше каждый вызов перебирал все значения перечисления
+ * ({@link #linearByApiName()}, {@link #linearByClass()}), теперь используется таблица
+ * ({@link #registryByApiName()}, {@link #registryByClass()}). {@link #decodePage()} показывает
+ * стоимость разбора страницы, в которой тип ищется для каждого объекта <code>meta</code>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetaTypeBenchmark {
+    private static final Type PAGE_TYPE = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+
+    private ApiClient api;
+    private String page;
+    private String apiName = "retailsalesreturn";
+    private Class<? extends MetaEntity> clazz = Meta.Type.RETAIL_SALES_RETURN.getModelClass();
+
+    @Setup
+    public void setup() {
+        api = new ApiClient("online.moysklad.ru", true, "login", "password");
+        page = BenchmarkFixtures.customerOrderPage(100, 10);
+    }
+
+    @Benchmark
+    public Meta.Type linearByApiName() {
+        return Arrays.stream(Meta.Type.values())
+                .filter(t -> t.getApiName().equals(apiName))
+                .findFirst().orElse(null);
+    }
+
+    @Benchmark
+    public Meta.Type registryByApiName() {
+        return Meta.Type.find(apiName);
+    }
+
+    @Benchmark
+    public Meta.Type linearByClass() {
+        return Arrays.stream(Meta.Type.values())
+                .filter(t -> t.getModelClass().getSimpleName().equals(clazz.getSimpleName()))
+                .findFirst().orElse(null);
+    }
+
+    @Benchmark
+    public Meta.Type registryByClass() {
+        return Meta.Type.find(clazz);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ListEntity<CustomerOrder> decodePage() {
+        return api.getGson().fromJson(page, PAGE_TYPE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MetaTypeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
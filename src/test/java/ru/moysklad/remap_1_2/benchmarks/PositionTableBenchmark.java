@@ -0,0 +1,84 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.documents.positions.CustomerOrderDocumentPosition;
+import ru.moysklad.remap_1_2.entities.views.PositionTable;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Суммы по товарам для 500 000 позиций (5000 разных товаров): список сущностей позиций против таблицы
+ * позиций, хранящей данные по столбцам
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PositionTableBenchmark {
+    private static final Type PAGE_TYPE = new TypeToken<ListEntity<CustomerOrderDocumentPosition>>() {}.getType();
+    private static final int PAGES = 500;
+
+    private List<CustomerOrderDocumentPosition> positions;
+    private PositionTable table;
+
+    @Setup
+    public void setup() throws IOException {
+        Gson gson = ApiClient.createGson(false);
+        String page = BenchmarkFixtures.positionPage(1000, 5000);
+
+        positions = new ArrayList<>();
+        table = new PositionTable();
+        for (int i = 0; i < PAGES; i++) {
+            ListEntity<CustomerOrderDocumentPosition> list = gson.fromJson(page, PAGE_TYPE);
+            positions.addAll(list.getRows());
+            table.read(new StringReader(page), "store", LocalDate.of(2021, 1, 1).plusDays(i % 90));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Double> sumByAssortmentEntities() {
+        Map<String, Double> sums = new HashMap<>();
+        for (CustomerOrderDocumentPosition position : positions) {
+            double sum = position.getPrice() * position.getQuantity() * (1 - position.getDiscount() / 100);
+            sums.merge(((MetaEntity) position.getAssortment()).getMeta().getId(), sum, Double::sum);
+        }
+        return sums;
+    }
+
+    @Benchmark
+    public Map<String, Double> sumByAssortmentTable() {
+        return table.sumByAssortment(PositionTable.Measure.SUM);
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> sumByDayTable() {
+        return table.sumByDay(PositionTable.Measure.SUM);
+    }
+
+    @Benchmark
+    public double totalTable() {
+        return table.total(PositionTable.Measure.SUM);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PositionTableBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.utils.snapshot.SnapshotReader;
+import ru.moysklad.remap_1_2.utils.snapshot.SnapshotWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение и чтение страницы из 100 заказов покупателей по 10 позиций: JSON против бинарного снимка
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+    private static final Type PAGE_TYPE = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+
+    private Gson gson;
+    private ListEntity<CustomerOrder> page;
+    private byte[] json;
+    private byte[] snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        gson = ApiClient.createGson(false);
+        page = gson.fromJson(BenchmarkFixtures.customerOrderPage(100, 10), PAGE_TYPE);
+        json = encodeJson();
+        snapshot = encodeSnapshot();
+        System.out.println("\nJSON: " + json.length + " байт, снимок: " + snapshot.length + " байт");
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return gson.toJson(page).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeSnapshot() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out)) {
+            writer.write(page);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public ListEntity<CustomerOrder> decodeJson() {
+        return gson.fromJson(new String(json, StandardCharsets.UTF_8), PAGE_TYPE);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public ListEntity<CustomerOrder> decodeSnapshot() throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(snapshot))) {
+            return reader.read(ListEntity.class);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SnapshotBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.moysklad.remap_1_2.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.documents.positions.CustomerOrderDocumentPosition;
+import ru.moysklad.remap_1_2.entities.products.Product;
+import ru.moysklad.remap_1_2.entities.views.PositionView;
+import ru.moysklad.remap_1_2.entities.views.ProductView;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.utils.json.ViewDecoder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчёт суммы по странице из 1000 позиций и закупочной стоимости по странице из 1000 товаров:
+ * полные сущности против облегчённых моделей для чтения
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViewBenchmark {
+    private static final Type POSITIONS_TYPE = new TypeToken<ListEntity<CustomerOrderDocumentPosition>>() {}.getType();
+    private static final Type PRODUCTS_TYPE = new TypeToken<ListEntity<Product>>() {}.getType();
+
+    private Gson gson;
+    private ViewDecoder<PositionView> positionDecoder;
+    private ViewDecoder<ProductView> productDecoder;
+    private String positions;
+    private String products;
+
+    @Setup
+    public void setup() {
+        gson = ApiClient.createGson(false);
+        positionDecoder = PositionView.decoder(EnumSet.of(PositionView.Field.QUANTITY, PositionView.Field.PRICE));
+        productDecoder = ProductView.decoder(EnumSet.of(ProductView.Field.BUY_PRICE, ProductView.Field.MINIMUM_BALANCE));
+        positions = BenchmarkFixtures.positionPage(1000);
+        products = BenchmarkFixtures.productPage(1000);
+    }
+
+    @Benchmark
+    public double positionsEntities() {
+        ListEntity<CustomerOrderDocumentPosition> page = gson.fromJson(positions, POSITIONS_TYPE);
+        double sum = 0;
+        for (CustomerOrderDocumentPosition position : page.getRows()) {
+            sum += position.getPrice() * position.getQuantity();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double positionsViews() throws IOException {
+        double sum = 0;
+        for (PositionView position : positionDecoder.readList(positions)) {
+            sum += position.getPrice() * position.getQuantity();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double productsEntities() {
+        ListEntity<Product> page = gson.fromJson(products, PRODUCTS_TYPE);
+        double sum = 0;
+        for (Product product : page.getRows()) {
+            sum += product.getBuyPrice().getValue() * product.getMinimumBalance();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double productsViews() throws IOException {
+        double sum = 0;
+        for (ProductView product : productDecoder.readList(products)) {
+            sum += product.getBuyPrice() * product.getMinimumBalance();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ViewBenchmark.class.getSimpleName()).build()).run();
+    }
+}
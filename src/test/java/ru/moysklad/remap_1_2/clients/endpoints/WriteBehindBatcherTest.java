@@ -0,0 +1,169 @@
+package ru.moysklad.remap_1_2.clients.endpoints;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+import ru.moysklad.remap_1_2.utils.ApiClientException;
+import ru.moysklad.remap_1_2.utils.RateLimiter;
+import ru.moysklad.remap_1_2.utils.RetryPolicy;
+import ru.moysklad.remap_1_2.utils.StubHttpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindBatcherTest {
+    private StubHttpClient client;
+    private ApiClient api;
+
+    @Before
+    public void init() {
+        AtomicInteger ids = new AtomicInteger();
+        client = new StubHttpClient().respond(request -> {
+            // Возвращает сущности из запроса, присваивая id новым; сущность с именем «Ошибка» заменяется ошибкой
+            JsonArray response = new JsonArray();
+            for (JsonElement element : body(request)) {
+                JsonObject entity = element.getAsJsonObject();
+                if (entity.has("name") && entity.get("name").getAsString().equals("Ошибка")) {
+                    response.add(new JsonParser().parse("{\"errors\":[{\"error\":\"Ошибка сохранения объекта\",\"code\":3000}]}"));
+                    continue;
+                }
+                if (!entity.has("id")) entity.addProperty("id", "new-" + ids.incrementAndGet());
+                response.add(entity);
+            }
+            return StubHttpClient.response(200, response.toString());
+        });
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client)
+                .rateLimiter(RateLimiter.unlimited())
+                .retryPolicy(RetryPolicy.none());
+    }
+
+    @Test
+    public void test_writesAreSentInOneRequest() throws Exception {
+        List<CompletableFuture<Counterparty>> futures = new ArrayList<>();
+        try (WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind(1, TimeUnit.MINUTES, 1000)) {
+            for (int i = 0; i < 10; i++) futures.add(batcher.create(counterparty("ООО Ромашка " + i)));
+            assertEquals(10, batcher.getPendingCount());
+            assertEquals(0, client.getRequests().size());
+        }
+
+        assertEquals(1, client.getRequests().size());
+        for (int i = 0; i < 10; i++) {
+            Counterparty created = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals("ООО Ромашка " + i, created.getName());
+            assertNotNull(created.getId());
+        }
+    }
+
+    @Test
+    public void test_singleThreadExecutorDoesNotDeadlock() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        api.executor(executor);
+
+        try (WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind(1, TimeUnit.MINUTES, 1000)) {
+            CompletableFuture<Counterparty> created = batcher.create(counterparty("ООО Ромашка"));
+            batcher.flush().get(5, TimeUnit.SECONDS);
+
+            assertEquals("ООО Ромашка", created.get().getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_windowTriggersFlush() throws Exception {
+        WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind(20, TimeUnit.MILLISECONDS, 1000);
+
+        Counterparty created = batcher.create(counterparty("ООО Ромашка")).get(5, TimeUnit.SECONDS);
+
+        assertEquals("ООО Ромашка", created.getName());
+        assertEquals(1, client.getRequests().size());
+        batcher.close();
+    }
+
+    @Test
+    public void test_batchSizeTriggersFlush() throws Exception {
+        try (WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind(1, TimeUnit.MINUTES, 3)) {
+            List<CompletableFuture<Counterparty>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) futures.add(batcher.create(counterparty("ООО Ромашка " + i)));
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+            assertEquals(1, client.getRequests().size());
+            assertEquals(0, batcher.getPendingCount());
+        }
+    }
+
+    @Test
+    public void test_updatesOfSameEntityAreCoalesced() throws Exception {
+        CompletableFuture<Counterparty> first;
+        CompletableFuture<Counterparty> second;
+        try (WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind(1, TimeUnit.MINUTES, 1000)) {
+            first = batcher.update("1", counterparty("ООО Ромашка"));
+            second = batcher.update("1", counterparty("ООО Лютик"));
+            batcher.update("2", counterparty("ООО Василёк"));
+            assertEquals(2, batcher.getPendingCount());
+        }
+
+        JsonArray sent = new JsonParser().parse(new String(client.getLastRequestBody(), StandardCharsets.UTF_8)).getAsJsonArray();
+        assertEquals(2, sent.size());
+        assertEquals("ООО Лютик", sent.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals("ООО Лютик", first.get(5, TimeUnit.SECONDS).getName());
+        assertEquals("ООО Лютик", second.get(5, TimeUnit.SECONDS).getName());
+    }
+
+    @Test
+    public void test_itemErrorFailsOnlyItsFuture() throws Exception {
+        CompletableFuture<Counterparty> valid;
+        CompletableFuture<Counterparty> invalid;
+        try (WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind(1, TimeUnit.MINUTES, 1000)) {
+            valid = batcher.create(counterparty("ООО Ромашка"));
+            invalid = batcher.create(counterparty("Ошибка"));
+        }
+
+        assertEquals("ООО Ромашка", valid.get(5, TimeUnit.SECONDS).getName());
+        try {
+            invalid.get(5, TimeUnit.SECONDS);
+            fail("Ожидалось исключение ExecutionException");
+        } catch (ExecutionException e) {
+            ApiClientException cause = (ApiClientException) e.getCause();
+            assertEquals(400, cause.getStatusCode());
+            assertEquals("Ошибка сохранения объекта", cause.getErrorResponse().getErrors().get(0).getError());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_closedBatcherRejectsWrites() {
+        WriteBehindBatcher<Counterparty> batcher = api.entity().counterparty().writeBehind();
+        batcher.close();
+        batcher.create(counterparty("ООО Ромашка"));
+    }
+
+    private static Counterparty counterparty(String name) {
+        Counterparty counterparty = new Counterparty();
+        counterparty.setName(name);
+        return counterparty;
+    }
+
+    private static JsonArray body(HttpRequest request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((HttpEntityEnclosingRequest) request).getEntity().writeTo(out);
+        return new JsonParser().parse(new String(out.toByteArray(), StandardCharsets.UTF_8)).getAsJsonArray();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.moysklad.remap_1_2.entities;
+
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.benchmarks.BenchmarkFixtures;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+import ru.moysklad.remap_1_2.entities.documents.Move;
+
+import static org.junit.Assert.*;
+
+public class EntityCopyTest {
+    @Test
+    public void test_setCopiesFieldsAndClonesNestedEntities() {
+        CustomerOrder original = new ApiClient("online.moysklad.ru", true, "login", "password")
+                .getGson().fromJson(BenchmarkFixtures.customerOrder(3), CustomerOrder.class);
+
+        CustomerOrder copy = new CustomerOrder();
+        copy.set(original);
+
+        assertEquals(original, copy);
+        assertEquals(original.getName(), copy.getName());
+        assertEquals(original.getSum(), copy.getSum());
+
+        assertNotSame(original.getAgent(), copy.getAgent());
+        assertEquals(original.getAgent(), copy.getAgent());
+        assertNotSame(original.getPositions(), copy.getPositions());
+        // Списки не клонируются
+        assertSame(original.getPositions().getRows(), copy.getPositions().getRows());
+        assertSame(original.getAttributes(), copy.getAttributes());
+    }
+
+    @Test
+    public void test_setCopiesPropertiesContainingGet() {
+        Store store = new Store();
+        store.setId("1");
+        Move original = new Move();
+        original.setTargetStore(store);
+
+        Move copy = new Move();
+        copy.set(original);
+
+        assertEquals("1", copy.getTargetStore().getId());
+        assertNotSame(store, copy.getTargetStore());
+    }
+
+    @Test
+    public void test_cloneCreatesNewInstance() {
+        Store store = new Store();
+        store.setId("1");
+        store.setName("Основной склад");
+
+        Store clone = Entity.clone(store);
+
+        assertNotSame(store, clone);
+        assertEquals(store, clone);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.moysklad.remap_1_2.entities;
+
+import org.junit.Test;
+import ru.moysklad.remap_1_2.entities.discounts.RoundOffDiscount;
+import ru.moysklad.remap_1_2.entities.documents.positions.CommissionReportDocumentPosition;
+import ru.moysklad.remap_1_2.entities.documents.positions.RetailSalesDocumentPosition;
+import ru.moysklad.remap_1_2.entities.products.Product;
+
+import static org.junit.Assert.*;
+
+public class MetaTypeRegistryTest {
+    @Test
+    public void test_everyTypeIsFoundByApiName() {
+        for (Meta.Type type : Meta.Type.values()) {
+            assertSame(type, MetaTypeRegistry.byApiName(type.getApiName()));
+            assertSame(type, Meta.Type.find(type.getApiName()));
+            assertSame(type.getModelClass(), MetaTypeRegistry.modelClass(type.getApiName()));
+        }
+        assertNull(MetaTypeRegistry.byApiName("unknown"));
+        assertNull(MetaTypeRegistry.byApiName(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_unknownApiNameIsRejected() {
+        Meta.Type.find("unknown");
+    }
+
+    @Test
+    public void test_classSharedByTypesResolvesToFirstDeclared() {
+        assertSame(Meta.Type.COMMISSION_REPORT_IN_POSITION, Meta.Type.find(CommissionReportDocumentPosition.class));
+        assertSame(Meta.Type.PRODUCT, Meta.Type.find(Product.class));
+    }
+
+    @Test
+    public void test_subclassResolvesToRegisteredSuperclass() {
+        class CustomProduct extends Product {
+        }
+
+        assertSame(Meta.Type.PRODUCT, Meta.Type.find(CustomProduct.class));
+        assertSame(Meta.Type.DISCOUNT, MetaTypeRegistry.byClass(RoundOffDiscount.class));
+        // Суперкласс DocumentPosition соответствует нескольким типам
+        assertNull(MetaTypeRegistry.byClass(RetailSalesDocumentPosition.class));
+    }
+
+    @Test
+    public void test_typeOfEntityDependsOnFields() {
+        Template template = new Template();
+        template.setIsEmbedded(true);
+        assertSame(Meta.Type.EMBEDDED_TEMPLATE, Meta.Type.find(template));
+
+        template.setIsEmbedded(false);
+        assertSame(Meta.Type.CUSTOM_TEMPLATE, Meta.Type.find(template));
+    }
+}
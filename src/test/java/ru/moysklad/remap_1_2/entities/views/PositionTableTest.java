@@ -0,0 +1,77 @@
+package ru.moysklad.remap_1_2.entities.views;
+
+import org.junit.Test;
+import ru.moysklad.remap_1_2.benchmarks.BenchmarkFixtures;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.Assert.*;
+
+public class PositionTableTest {
+    private static final LocalDate DAY = LocalDate.of(2021, 3, 4);
+
+    @Test
+    public void test_readPositions() throws IOException {
+        String json = BenchmarkFixtures.positionPage(50);
+        List<PositionView> views = PositionView.decoder().readList(json);
+
+        PositionTable table = new PositionTable(4);
+        assertEquals(50, table.read(new StringReader(json), "store", DAY));
+        assertEquals(50, table.size());
+
+        for (int i = 0; i < views.size(); i++) {
+            PositionView view = views.get(i);
+            assertEquals(view.getAssortmentId(), table.getAssortmentId(i));
+            assertEquals(view.getPrice(), table.getPrice(i));
+            assertEquals(view.getQuantity(), table.getQuantity(i), 0);
+            assertEquals(view.getDiscount(), table.getDiscount(i), 0);
+            assertEquals(view.getVat(), table.getVat(i));
+            assertEquals("store", table.getStoreId(i));
+            assertEquals(DAY, table.getDay(i));
+        }
+    }
+
+    @Test
+    public void test_sums() throws IOException {
+        PositionTable table = new PositionTable();
+        table.read(new StringReader(positions("a", 100, 2, 0, 20)), "s1", DAY);
+        table.appendAll(PositionView.decoder().readList(positions("a", 300, 1, 50, 20)), "s2", DAY.plusDays(1));
+        table.appendAll(PositionView.decoder().readList(positions("b", 1000, 3, 10, 0)), null, null);
+
+        assertEquals(6, table.total(PositionTable.Measure.QUANTITY), 0);
+        assertEquals(200 + 150 + 2700, table.total(PositionTable.Measure.SUM), 1e-9);
+        assertEquals(350.0 * 20 / 120, table.total(PositionTable.Measure.INCLUDED_VAT_SUM), 1e-9);
+        assertEquals(350.0 * 20 / 100, table.total(PositionTable.Measure.ADDED_VAT_SUM), 1e-9);
+
+        Map<String, Double> byAssortment = table.sumByAssortment(PositionTable.Measure.SUM);
+        assertEquals(2, byAssortment.size());
+        assertEquals(350, byAssortment.get("a"), 1e-9);
+        assertEquals(2700, byAssortment.get("b"), 1e-9);
+
+        Map<String, Double> byStore = table.sumByStore(PositionTable.Measure.QUANTITY);
+        assertEquals(2, byStore.size());
+        assertEquals(2, byStore.get("s1"), 0);
+        assertEquals(1, byStore.get("s2"), 0);
+
+        SortedMap<LocalDate, Double> byDay = table.sumByDay(PositionTable.Measure.SUM);
+        assertEquals(DAY, byDay.firstKey());
+        assertEquals(200, byDay.get(DAY), 1e-9);
+        assertEquals(150, byDay.get(DAY.plusDays(1)), 1e-9);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void test_rowOutOfRange() {
+        new PositionTable().getPrice(0);
+    }
+
+    private static String positions(String assortmentId, long price, double quantity, double discount, int vat) {
+        return "[{\"assortment\":{\"meta\":{\"href\":\"" + BenchmarkFixtures.HOST + "/entity/product/" + assortmentId +
+                "\",\"type\":\"product\"}},\"price\":" + price + ",\"quantity\":" + quantity +
+                ",\"discount\":" + discount + ",\"vat\":" + vat + "}]";
+    }
+}
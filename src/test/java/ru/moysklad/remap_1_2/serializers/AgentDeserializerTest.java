@@ -153,4 +153,32 @@ public class AgentDeserializerTest implements TestAsserts, TestRandomizers {
             );
         }
     }
+
+    @Test
+    public void test_deserializeWithUnknownMetaType() {
+        Gson gsonCustom = ApiClient.createGson();
+
+        try {
+            gsonCustom.fromJson("{\"meta\":{\"type\":\"unknowntype\"}}", Agent.class);
+            fail("Ожидалось исключение JsonParseException!");
+        } catch (JsonParseException ex) {
+            assertEquals(
+                    ex.getMessage(),
+                    "Can't parse field 'agent': meta.type must be one of [organization, counterparty, employee]"
+            );
+        }
+    }
+
+    @Test
+    public void test_deserializeWithMetaAfterFields() {
+        Gson gsonCustom = ApiClient.createGson();
+
+        Agent parsed = gsonCustom.fromJson(
+                "{\"name\":\"ООО Ромашка\",\"meta\":{\"href\":\"https://test.moysklad/api/remap/1.2/entity/employee/1\",\"type\":\"employee\"}}",
+                Agent.class
+        );
+        assertEquals(Employee.class, parsed.getClass());
+        assertEquals("ООО Ромашка", ((Employee) parsed).getName());
+        assertEquals(Meta.Type.EMPLOYEE, parsed.getMeta().getType());
+    }
 }
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import org.junit.Test;
 import ru.moysklad.remap_1_2.ApiClient;
 import ru.moysklad.remap_1_2.entities.*;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
 import ru.moysklad.remap_1_2.entities.products.Product;
 import ru.moysklad.remap_1_2.utils.TestAsserts;
 import ru.moysklad.remap_1_2.utils.TestRandomizers;
@@ -263,4 +264,51 @@ public class AttributeSerializerTest implements TestAsserts, TestRandomizers {
         assertNull(parsed.getEntityType());
         assertNull(parsed.getValue());
     }
+
+    @Test
+    public void test_serializeTimeDoesNotChangeSource() {
+        Gson gsonCustom = ApiClient.createGson();
+
+        Attribute e = new Attribute();
+        e.setType(Attribute.Type.timeValue);
+        LocalDateTime date = LocalDateTime.of(2020, 1, 2, 3, 4, 5);
+        e.setValue(date);
+
+        String data = gsonCustom.toJson(e);
+
+        assertSame(date, e.getValue());
+        assertEquals(data, gsonCustom.toJson(e));
+        assertEquals("{\"type\":\"time\",\"value\":\"2020-01-02 03:04:05.000\"}", data);
+    }
+
+    @Test
+    public void test_deserializeValueBeforeType() {
+        Gson gsonCustom = ApiClient.createGson();
+
+        Attribute parsed = gsonCustom.fromJson("{\"value\":42,\"name\":\"Количество\",\"type\":\"long\"}", Attribute.class);
+        assertEquals(Attribute.Type.longValue, parsed.getType());
+        assertEquals("Количество", parsed.getName());
+        assertEquals(42L, parsed.getValue());
+
+        parsed = gsonCustom.fromJson(
+                "{\"value\":{\"meta\":{\"type\":\"counterparty\"},\"name\":\"ООО Ромашка\"},\"type\":\"counterparty\"}",
+                Attribute.class
+        );
+        assertEquals(Meta.Type.COUNTERPARTY, parsed.getEntityType());
+        assertNull(parsed.getType());
+        assertEquals(Counterparty.class, parsed.getValue().getClass());
+        assertEquals("ООО Ромашка", parsed.getValueAs(Counterparty.class).getName());
+    }
+
+    @Test
+    public void test_deserializeWithoutType() {
+        Gson gsonCustom = ApiClient.createGson();
+
+        try {
+            gsonCustom.fromJson("{\"value\":\"STRING\"}", Attribute.class);
+            fail("Ожидалось исключение IllegalArgumentException!");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("В пришедшей сущности дополнительного параметра нет поля 'type'!", ex.getMessage());
+        }
+    }
 }
@@ -3,19 +3,25 @@ package ru.moysklad.remap_1_2.serializers;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.reflect.TypeToken;
 import org.junit.Test;
 import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.benchmarks.BenchmarkFixtures;
 import ru.moysklad.remap_1_2.entities.Context;
 import ru.moysklad.remap_1_2.entities.Meta;
 import ru.moysklad.remap_1_2.entities.MetaEntity;
 import ru.moysklad.remap_1_2.entities.agents.Employee;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
 import ru.moysklad.remap_1_2.entities.documents.DocumentPosition;
 import ru.moysklad.remap_1_2.entities.documents.positions.DemandDocumentPosition;
 import ru.moysklad.remap_1_2.responses.ListEntity;
 import ru.moysklad.remap_1_2.utils.TestAsserts;
 import ru.moysklad.remap_1_2.utils.TestRandomizers;
 
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 
 import static org.junit.Assert.*;
 
@@ -111,4 +117,73 @@ public class ListEntityDeserializerTest implements TestAsserts, TestRandomizers
         assertEquals(Integer.valueOf(15), parsed.getRows().get(0).getVat());
         assertEquals(Double.valueOf(2), parsed.getRows().get(0).getQuantity());
     }
+
+    @Test
+    public void test_deserializeLazyRows() {
+        Gson eager = ApiClient.createGson(false);
+        Gson lazy = ApiClient.createGson(false, null, true);
+        String json = BenchmarkFixtures.customerOrderPage(3, 4);
+        Type pageType = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+
+        ListEntity<CustomerOrder> expected = eager.fromJson(json, pageType);
+        ListEntity<CustomerOrder> actual = lazy.fromJson(json, pageType);
+
+        assertEquals(3, actual.getRows().size());
+        assertEquals(4, actual.getRows().get(0).getPositions().getRows().size());
+        assertSame(actual.getRows().get(0), actual.getRows().get(0));
+        assertEquals(expected.getRows().get(1).getPositions().getRows().get(2).getQuantity(),
+                actual.getRows().get(1).getPositions().getRows().get(2).getQuantity());
+        assertEquals(eager.toJson(expected), eager.toJson(actual));
+    }
+
+    @Test
+    public void test_readLazyRowsConcurrently() throws Exception {
+        Gson lazy = ApiClient.createGson(false, null, true);
+        Type pageType = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+        String json = BenchmarkFixtures.customerOrderPage(200, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            for (int attempt = 0; attempt < 20; attempt++) {
+                List<CustomerOrder> rows = lazy.<ListEntity<CustomerOrder>>fromJson(json, pageType).getRows();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<List<CustomerOrder>>> readers = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    readers.add(executor.submit(() -> {
+                        start.await();
+                        List<CustomerOrder> read = new ArrayList<>();
+                        for (int i = 0; i < rows.size(); i++) read.add(rows.get(i));
+                        return read;
+                    }));
+                }
+                start.countDown();
+
+                List<CustomerOrder> first = readers.get(0).get(5, TimeUnit.SECONDS);
+                for (Future<List<CustomerOrder>> reader : readers) {
+                    List<CustomerOrder> read = reader.get(5, TimeUnit.SECONDS);
+                    for (int i = 0; i < rows.size(); i++) {
+                        assertNotNull(read.get(i));
+                        assertSame(first.get(i), read.get(i));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_modifyLazyRows() {
+        Gson lazy = ApiClient.createGson(false, null, true);
+        Type pageType = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+        ListEntity<CustomerOrder> page = lazy.fromJson(BenchmarkFixtures.customerOrderPage(3, 0), pageType);
+        CustomerOrder second = page.getRows().get(1);
+
+        page.getRows().remove(0);
+        page.getRows().add(new CustomerOrder());
+
+        assertEquals(3, page.getRows().size());
+        assertSame(second, page.getRows().get(0));
+        assertNull(page.getRows().get(2).getId());
+    }
 }
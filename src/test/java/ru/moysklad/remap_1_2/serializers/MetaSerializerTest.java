@@ -0,0 +1,103 @@
+package ru.moysklad.remap_1_2.serializers;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.MediaType;
+import ru.moysklad.remap_1_2.entities.Meta;
+
+import static org.junit.Assert.*;
+
+public class MetaSerializerTest {
+    private static final String HOST = "https://online.moysklad.ru/api/remap/1.2";
+    private static final String ID = "7944ef04-f831-11e5-7a69-971500188b19";
+
+    @Test
+    public void test_roundTrip() {
+        String json = "{\"href\":\"" + HOST + "/entity/customerorder/" + ID + "\"," +
+                "\"metadataHref\":\"" + HOST + "/entity/customerorder/metadata\"," +
+                "\"type\":\"customerorder\"," +
+                "\"mediaType\":\"application/json\"," +
+                "\"uuidHref\":\"https://online.moysklad.ru/app/#customerorder/edit?id=" + ID + "\"}";
+        Gson gson = ApiClient.createGson(false);
+
+        Meta meta = gson.fromJson(json, Meta.class);
+
+        assertEquals(HOST + "/entity/customerorder/" + ID, meta.getHref());
+        assertEquals("https://online.moysklad.ru/app/#customerorder/edit?id=" + ID, meta.getUuidHref());
+        assertEquals(Meta.Type.CUSTOMER_ORDER, meta.getType());
+        assertEquals(MediaType.json, meta.getMediaType());
+        assertEquals(ID, meta.getId());
+        assertEquals(gson.toJson(new JsonParser().parse(json)), gson.toJson(meta));
+    }
+
+    @Test
+    public void test_serializeWithoutRegisteredAdapters() {
+        Meta meta = new Meta();
+        meta.setHref(HOST + "/entity/customerorder/" + ID + "/positions/" + ID);
+        meta.setType(Meta.Type.CUSTOMER_ORDER_POSITION);
+        Gson gson = new GsonBuilder().create();
+
+        String json = gson.toJson(meta);
+
+        assertEquals("{\"href\":\"" + HOST + "/entity/customerorder/" + ID + "/positions/" + ID + "\"," +
+                "\"type\":\"CUSTOMER_ORDER_POSITION\"}", json);
+        assertEquals(meta, gson.fromJson(json, Meta.class));
+    }
+
+    @Test
+    public void test_hrefsAreShared() {
+        Gson gson = ApiClient.createGson(false);
+        String json = "{\"href\":\"" + HOST + "/entity/product/%s\",\"metadataHref\":\"" + HOST + "/entity/product/metadata\"}";
+
+        Meta first = gson.fromJson(String.format(json, ID), Meta.class);
+        Meta second = gson.fromJson(String.format(json, ID.replace('7', '8')), Meta.class);
+
+        assertSame(first.getMetadataHref(), second.getMetadataHref());
+        assertNotEquals(first, second);
+        assertEquals(first, gson.fromJson(String.format(json, ID), Meta.class));
+        assertEquals(first.hashCode(), gson.fromJson(String.format(json, ID), Meta.class).hashCode());
+    }
+
+    @Test
+    public void test_hrefWithoutCanonicalUuidIsKept() {
+        Meta meta = new Meta();
+
+        meta.setHref(HOST + "/entity/product/" + ID.toUpperCase());
+        assertEquals(HOST + "/entity/product/" + ID.toUpperCase(), meta.getHref());
+        assertTrue(meta.hasId(ID.toUpperCase()));
+        assertFalse(meta.hasId(ID));
+
+        meta.setHref(HOST + "/entity/product?limit=10");
+        assertEquals(HOST + "/entity/product?limit=10", meta.getHref());
+
+        meta.setHref(null);
+        assertNull(meta.getHref());
+        assertNull(meta.getId());
+    }
+
+    @Test
+    public void test_hasId() {
+        Meta meta = new Meta();
+        meta.setHref(HOST + "/entity/product/" + ID);
+
+        assertTrue(meta.hasId(ID));
+        assertFalse(meta.hasId(ID.toUpperCase()));
+        assertFalse(meta.hasId(ID.replace('7', '8')));
+        assertFalse(meta.hasId("1"));
+        assertFalse(meta.hasId(null));
+    }
+
+    @Test
+    public void test_uuidHrefSurvivesHrefChange() {
+        Meta meta = new Meta();
+        meta.setUuidHref("https://online.moysklad.ru/app/#good/edit?id=" + ID);
+        meta.setHref(HOST + "/entity/product/" + ID);
+
+        meta.setHref(HOST + "/entity/product/" + ID.replace('7', '8'));
+
+        assertEquals("https://online.moysklad.ru/app/#good/edit?id=" + ID, meta.getUuidHref());
+    }
+}
@@ -0,0 +1,75 @@
+package ru.moysklad.remap_1_2.serializers;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.benchmarks.BenchmarkFixtures;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.Store;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.utils.json.ReferenceInterner;
+
+import java.lang.reflect.Type;
+
+import static org.junit.Assert.*;
+
+public class ReferenceInternerTest {
+    private static final Type PAGE_TYPE = new TypeToken<ListEntity<CustomerOrder>>() {}.getType();
+
+    @Test
+    public void test_referencesAreSharedBetweenRows() {
+        Gson gson = ApiClient.createGson(false, new ReferenceInterner());
+
+        ListEntity<CustomerOrder> page = gson.fromJson(BenchmarkFixtures.customerOrderPage(3, 2), PAGE_TYPE);
+
+        CustomerOrder first = page.getRows().get(0);
+        for (CustomerOrder row : page.getRows()) {
+            assertSame(first.getOrganization(), row.getOrganization());
+            assertSame(first.getStore(), row.getStore());
+            assertSame(first.getGroup(), row.getGroup());
+            assertSame(first.getOwner(), row.getOwner());
+            assertSame(first.getState(), row.getState());
+            assertSame(first.getRate().getCurrency(), row.getRate().getCurrency());
+        }
+        assertNotSame(first.getAgent(), page.getRows().get(1).getAgent());
+    }
+
+    @Test
+    public void test_decodedValuesAreUnchanged() {
+        Gson plain = ApiClient.createGson(false);
+        Gson interning = ApiClient.createGson(false, new ReferenceInterner());
+        String json = BenchmarkFixtures.customerOrderPage(5, 3);
+
+        ListEntity<CustomerOrder> expected = plain.fromJson(json, PAGE_TYPE);
+        ListEntity<CustomerOrder> actual = interning.fromJson(json, PAGE_TYPE);
+
+        assertEquals(plain.toJson(expected), plain.toJson(actual));
+    }
+
+    @Test
+    public void test_expandedEntitiesAreNotShared() {
+        ReferenceInterner interner = new ReferenceInterner();
+        CustomerOrder first = order("Склад");
+        CustomerOrder second = order("Склад");
+
+        interner.internReferences(first);
+        interner.internReferences(second);
+
+        assertNotSame(first.getStore(), second.getStore());
+    }
+
+    private static CustomerOrder order(String storeName) {
+        Meta meta = new Meta();
+        meta.setHref(BenchmarkFixtures.HOST + "/entity/store/7944ef04-f831-11e5-7a69-971500188b19");
+        meta.setType(Meta.Type.STORE);
+        Store store = new Store();
+        store.setMeta(meta);
+        store.setName(storeName);
+
+        CustomerOrder order = new CustomerOrder();
+        order.setStore(store);
+        return order;
+    }
+}
@@ -0,0 +1,110 @@
+package ru.moysklad.remap_1_2.serializers;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.benchmarks.BenchmarkFixtures;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.MetaEntity;
+import ru.moysklad.remap_1_2.entities.Price;
+import ru.moysklad.remap_1_2.entities.documents.positions.CustomerOrderDocumentPosition;
+import ru.moysklad.remap_1_2.entities.products.Product;
+import ru.moysklad.remap_1_2.entities.views.PositionView;
+import ru.moysklad.remap_1_2.entities.views.ProductView;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ViewDecoderTest {
+    private final Gson gson = ApiClient.createGson();
+
+    @Test
+    public void test_decodeProducts() throws IOException {
+        String json = BenchmarkFixtures.productPage(10);
+        ListEntity<Product> expected = gson.fromJson(json, new TypeToken<ListEntity<Product>>() {}.getType());
+        List<ProductView> actual = ProductView.decoder().readList(json);
+
+        assertEquals(10, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            Product product = expected.getRows().get(i);
+            ProductView view = actual.get(i);
+
+            assertEquals(product.getId(), view.getId());
+            assertEquals(product.getName(), view.getName());
+            assertEquals(product.getCode(), view.getCode());
+            assertEquals(product.getArticle(), view.getArticle());
+            assertEquals(product.getExternalCode(), view.getExternalCode());
+            assertEquals(product.getArchived(), view.isArchived());
+            assertEquals(product.getProductFolder().getMeta().getId(), view.getFolderId());
+            assertEquals((int) product.getVat(), view.getVat());
+            assertEquals(product.getWeight(), view.getWeight(), 0);
+            assertEquals(product.getVolume(), view.getVolume(), 0);
+            assertEquals(product.getMinimumBalance(), view.getMinimumBalance(), 0);
+            assertEquals((long) product.getBuyPrice().getValue(), view.getBuyPrice());
+            assertEquals((long) product.getMinPrice().getValue(), view.getMinPrice());
+            assertArrayEquals(product.getSalePrices().stream().mapToLong(Price::getValue).toArray(), view.getSalePrices());
+            assertEquals(0, view.getSalePrice(5));
+        }
+    }
+
+    @Test
+    public void test_decodePositions() throws IOException {
+        String json = BenchmarkFixtures.positionPage(10);
+        ListEntity<CustomerOrderDocumentPosition> expected = gson.fromJson(
+                json, new TypeToken<ListEntity<CustomerOrderDocumentPosition>>() {}.getType()
+        );
+        List<PositionView> actual = PositionView.decoder().readList(json);
+
+        assertEquals(10, actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            CustomerOrderDocumentPosition position = expected.getRows().get(i);
+            PositionView view = actual.get(i);
+
+            assertEquals(position.getId(), view.getId());
+            assertEquals(((MetaEntity) position.getAssortment()).getMeta().getId(), view.getAssortmentId());
+            assertEquals(Meta.Type.PRODUCT, view.getAssortmentType());
+            assertEquals(position.getQuantity(), view.getQuantity(), 0);
+            assertEquals((long) position.getPrice(), view.getPrice());
+            assertEquals(position.getDiscount(), view.getDiscount(), 0);
+            assertEquals((int) position.getVat(), view.getVat());
+            assertEquals(position.getReserve(), view.getReserve(), 0);
+            assertEquals((long) position.getShipped(), view.getShipped(), 0);
+        }
+    }
+
+    @Test
+    public void test_onlySelectedFieldsAreDecoded() throws IOException {
+        List<PositionView> views = PositionView.decoder(EnumSet.of(PositionView.Field.QUANTITY, PositionView.Field.PRICE))
+                .readList(BenchmarkFixtures.positionPage(3));
+
+        for (PositionView view : views) {
+            assertTrue(view.getQuantity() > 0);
+            assertNull(view.getId());
+            assertNull(view.getAssortmentId());
+            assertNull(view.getAssortmentType());
+            assertEquals(0, view.getVat());
+        }
+    }
+
+    @Test
+    public void test_nullsAndPlainArrays() throws IOException {
+        List<ProductView> views = ProductView.decoder().readList(
+                "[{\"id\":\"1\",\"vat\":null,\"buyPrice\":null,\"salePrices\":null,\"productFolder\":null,\"weight\":1.5}]"
+        );
+
+        assertEquals(1, views.size());
+        assertEquals("1", views.get(0).getId());
+        assertEquals(0, views.get(0).getVat());
+        assertEquals(0, views.get(0).getBuyPrice());
+        assertEquals(0, views.get(0).getSalePrices().length);
+        assertNull(views.get(0).getFolderId());
+        assertEquals(1.5, views.get(0).getWeight(), 0);
+
+        assertTrue(PositionView.decoder().readList("{\"meta\":{\"size\":0}}").isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveRateLimiterTest {
+    private StubHttpClient client;
+    private ApiClient api;
+    private AdaptiveRateLimiter limiter;
+
+    @Before
+    public void init() {
+        client = new StubHttpClient();
+        limiter = new AdaptiveRateLimiter(2);
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client)
+                .rateLimiter(limiter)
+                .retryPolicy(RetryPolicy.none());
+    }
+
+    @Test
+    public void test_requestsOverBudgetAreSpread() throws InterruptedException {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(2, 200, 10);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire();
+            limiter.release(null);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Два запроса из лимита, ещё два — по одному за каждые 100 мс
+        assertTrue("elapsed " + elapsed, elapsed >= 180);
+        assertEquals(0, limiter.getRemaining());
+    }
+
+    @Test
+    public void test_budgetIsLearnedFromHeaders() throws Exception {
+        assertEquals(-1, limiter.getRemaining());
+
+        client.respond(request -> StubHttpClient.response(200, "{}",
+                "X-RateLimit-Limit", "45",
+                "X-Lognex-Retry-TimeInterval", "3000",
+                "X-RateLimit-Remaining", "10"
+        ));
+        HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+
+        assertEquals(45, limiter.getLimit());
+        assertEquals(10, limiter.getRemaining());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void test_retryAfterBlocksNextRequest() throws Exception {
+        client.respond(request -> StubHttpClient.response(429,
+                "{\"errors\":[{\"error\":\"Превышено ограничение на количество запросов\",\"code\":1049}]}",
+                "X-Lognex-Retry-After", "200"
+        ));
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(429, e.getStatusCode());
+        }
+
+        client.respond(request -> StubHttpClient.response(200, "{}"));
+        long start = System.nanoTime();
+        HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+    }
+
+    @Test
+    public void test_inFlightRequestsAreLimited() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        client.respond(request -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return StubHttpClient.response(200, "{}");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Counterparty>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor.submit(() -> HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class)));
+            }
+            for (Future<Counterparty> future : futures) {
+                assertNotNull(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(6, client.getRequests().size());
+        assertTrue(maxInFlight.get() <= 2);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void test_defaultLimiterIsSharedPerAccount() {
+        ApiClient first = new ApiClient("test.moysklad", true, "admin@account", "[API_PASSWORD]", client);
+        ApiClient second = new ApiClient("test.moysklad", true, "admin@account", "[API_PASSWORD]", client);
+        ApiClient other = new ApiClient("test.moysklad", true, "user@account", "[API_PASSWORD]", client);
+
+        assertSame(first.getRateLimiter(), second.getRateLimiter());
+        assertNotSame(first.getRateLimiter(), other.getRateLimiter());
+    }
+}
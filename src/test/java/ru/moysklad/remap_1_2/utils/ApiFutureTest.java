@@ -0,0 +1,102 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ApiFutureTest {
+    private StubHttpClient client;
+    private ApiClient api;
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        executor = Executors.newFixedThreadPool(2, new DaemonThreadFactory("api-future-test"));
+        client = new StubHttpClient();
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client)
+                .rateLimiter(RateLimiter.unlimited())
+                .executor(executor);
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_resultIsCompletedOnExecutor() throws Exception {
+        client.respond(request -> {
+            assertTrue(Thread.currentThread().getName().startsWith("api-future-test"));
+            return StubHttpClient.response(200, "{\"id\":\"1\",\"name\":\"ООО Ромашка\"}");
+        });
+
+        Counterparty counterparty = api.entity().counterparty().getAsync("1").get(5, TimeUnit.SECONDS);
+
+        assertEquals("ООО Ромашка", counterparty.getName());
+    }
+
+    @Test
+    public void test_errorCompletesExceptionally() throws Exception {
+        client.respond(request -> StubHttpClient.response(404, "{\"errors\":[{\"error\":\"Объект не найден\",\"code\":1021}]}"));
+
+        try {
+            api.entity().counterparty().deleteAsync("1").get(5, TimeUnit.SECONDS);
+            fail("Ожидалось исключение ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ApiClientException);
+            assertEquals(404, ((ApiClientException) e.getCause()).getStatusCode());
+        }
+    }
+
+    @Test
+    public void test_cancelAbortsRunningRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch aborted = new CountDownLatch(1);
+        client.respond(request -> {
+            started.countDown();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!((HttpUriRequest) request).isAborted() && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            if (((HttpUriRequest) request).isAborted()) aborted.countDown();
+            throw new IOException("Соединение закрыто");
+        });
+
+        CompletableFuture<Counterparty> future = api.entity().counterparty().getAsync("1");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(future.cancel(true));
+        assertTrue(aborted.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+        assertEquals(1, client.getRequests().size());
+    }
+
+    @Test
+    public void test_cancelInterruptsRateLimiterWait() throws Exception {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(1);
+        api.rateLimiter(limiter);
+        limiter.acquire();
+
+        CompletableFuture<Counterparty> future = api.entity().counterparty().getAsync("1");
+        Thread.sleep(50);
+        assertTrue(future.cancel(true));
+
+        limiter.release(null);
+
+        // Отменённый вызов не должен занять освободившееся место и выполнить запрос
+        assertEquals("1", api.entity().counterparty().getAsync("1").thenApply(c -> "1").get(5, TimeUnit.SECONDS));
+        assertEquals(1, client.getRequests().size());
+    }
+}
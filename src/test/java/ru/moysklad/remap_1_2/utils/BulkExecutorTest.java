@@ -0,0 +1,260 @@
+package ru.moysklad.remap_1_2.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+import ru.moysklad.remap_1_2.responses.BulkResult;
+import ru.moysklad.remap_1_2.responses.MassDeleteResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BulkExecutorTest {
+    private StubHttpClient client;
+    private ApiClient api;
+
+    @Before
+    public void init() {
+        client = new StubHttpClient();
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client)
+                .rateLimiter(RateLimiter.unlimited())
+                .retryPolicy(RetryPolicy.none());
+    }
+
+    @Test
+    public void test_chunksAreLimitedByCountAndBytes() {
+        List<Counterparty> entities = counterparties(25);
+
+        List<BulkExecutor.Chunk> byCount = BulkExecutor.chunk(api.getGson(), entities, 10, Long.MAX_VALUE);
+        assertEquals(3, byCount.size());
+        assertEquals(10, byCount.get(0).getSize());
+        assertEquals(5, byCount.get(2).getSize());
+        assertEquals(20, byCount.get(2).getOffset());
+        assertEquals(api.getGson().toJson(entities.subList(10, 20)), new String(byCount.get(1).getBody(), StandardCharsets.UTF_8));
+
+        long entityBytes = api.getGson().toJson(entities.get(0)).getBytes(StandardCharsets.UTF_8).length;
+        List<BulkExecutor.Chunk> byBytes = BulkExecutor.chunk(api.getGson(), entities, 1000, 2 + 3 * entityBytes + 2 + 3);
+        assertEquals(9, byBytes.size());
+        for (BulkExecutor.Chunk chunk : byBytes) {
+            assertTrue(chunk.getBody().length <= 2 + 3 * entityBytes + 2 + 3);
+            List<Counterparty> part = entities.subList(chunk.getOffset(), chunk.getOffset() + chunk.getSize());
+            assertEquals(api.getGson().toJson(part), new String(chunk.getBody(), StandardCharsets.UTF_8));
+        }
+
+        // Сущность больше лимита отправляется отдельным запросом
+        assertEquals(25, BulkExecutor.chunk(api.getGson(), entities, 1000, 1).size());
+    }
+
+    @Test
+    public void test_chunksAreBuiltWhenClaimed() throws IOException {
+        List<Counterparty> entities = counterparties(30);
+        AtomicInteger serialized = new AtomicInteger();
+        List<Counterparty> recording = new AbstractList<Counterparty>() {
+            @Override
+            public Counterparty get(int index) {
+                serialized.accumulateAndGet(index + 1, Math::max);
+                return entities.get(index);
+            }
+
+            @Override
+            public int size() {
+                return entities.size();
+            }
+        };
+        List<Integer> serializedOnRequest = new ArrayList<>();
+        client.respond(request -> {
+            serializedOnRequest.add(serialized.get());
+            return StubHttpClient.response(200, echo(request, null).toString());
+        });
+        // Пул не выполняет задачи, поэтому все части обрабатывает вызывающий поток
+        api.executor(task -> {});
+
+        BulkResult<Counterparty> result = BulkExecutor.execute(api, "/entity/counterparty/", recording,
+                Counterparty.class, 10, Long.MAX_VALUE);
+
+        // Следующая часть сериализуется только после отправки предыдущей
+        assertEquals(Arrays.asList(10, 20, 30), serializedOnRequest);
+        assertFalse(result.hasFailures());
+        assertEquals("ООО Ромашка 29", result.getResults().get(29).getName());
+    }
+
+    @Test
+    public void test_resultsKeepInputOrder() throws IOException {
+        client.respond(request -> {
+            sleepRandomly();
+            return StubHttpClient.response(200, echo(request, null).toString());
+        });
+        List<Counterparty> entities = counterparties(95);
+
+        BulkResult<Counterparty> result = api.entity().counterparty().createOrUpdateBulk(entities, 10, Long.MAX_VALUE);
+
+        assertEquals(10, client.getRequests().size());
+        assertFalse(result.hasFailures());
+        for (int i = 0; i < entities.size(); i++) {
+            assertEquals(i, result.getItems().get(i).getIndex());
+            assertEquals("ООО Ромашка " + i, result.getResults().get(i).getName());
+        }
+    }
+
+    @Test
+    public void test_singleThreadExecutorDoesNotDeadlock() throws Exception {
+        client.respond(request -> StubHttpClient.response(200, echo(request, null).toString()));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        api.executor(executor);
+        List<Counterparty> entities = counterparties(35);
+
+        try {
+            BulkResult<Counterparty> result = api.async(
+                    () -> api.entity().counterparty().createOrUpdateBulk(entities, 10, Long.MAX_VALUE)
+            ).get(5, TimeUnit.SECONDS);
+
+            assertEquals(4, client.getRequests().size());
+            assertFalse(result.hasFailures());
+            assertEquals("ООО Ромашка 34", result.getResults().get(34).getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_interruptionStopsRemainingChunks() throws Exception {
+        CountDownLatch firstRequest = new CountDownLatch(1);
+        client.respond(request -> {
+            firstRequest.countDown();
+            sleepRandomly();
+            return StubHttpClient.response(200, echo(request, null).toString());
+        });
+        // Пул не выполняет задачи, поэтому все части обрабатывает вызывающий поток
+        api.executor(task -> {});
+        List<Counterparty> entities = counterparties(50);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Thread thread = new Thread(() -> {
+            try {
+                api.entity().counterparty().createOrUpdateBulk(entities, 5, Long.MAX_VALUE);
+            } catch (InterruptedIOException e) {
+                interrupted.set(true);
+            }
+        });
+        thread.start();
+        firstRequest.await(5, TimeUnit.SECONDS);
+        thread.interrupt();
+        thread.join(5000);
+
+        assertTrue(interrupted.get());
+        assertTrue(client.getRequests().size() < 10);
+    }
+
+    @Test
+    public void test_failuresAreReportedPerItem() throws IOException {
+        client.respond(request -> {
+            JsonArray response = echo(request, "ООО Ромашка 3");
+            if (response.get(0).getAsJsonObject().get("name").getAsString().equals("ООО Ромашка 5")) {
+                return StubHttpClient.response(500, "{\"errors\":[{\"error\":\"Внутренняя ошибка\",\"code\":1000}]}");
+            }
+            return StubHttpClient.response(200, response.toString());
+        });
+        List<Counterparty> entities = counterparties(8);
+
+        BulkResult<Counterparty> result = api.entity().counterparty().createOrUpdateBulk(entities, 5, Long.MAX_VALUE);
+
+        assertTrue(result.hasFailures());
+        assertEquals(4, result.getFailures().size());
+
+        BulkResult.Item<Counterparty> invalid = result.getItems().get(3);
+        assertNull(invalid.getResult());
+        assertNull(invalid.getException());
+        assertEquals("Ошибка сохранения объекта", invalid.getErrors().get(0).getError());
+
+        for (int i = 5; i < 8; i++) {
+            BulkResult.Item<Counterparty> failed = result.getItems().get(i);
+            assertTrue(failed.getException() instanceof ApiClientException);
+            assertEquals(500, ((ApiClientException) failed.getException()).getStatusCode());
+        }
+
+        assertTrue(result.getItems().get(4).isSuccess());
+        assertEquals("ООО Ромашка 4", result.getResults().get(4).getName());
+    }
+
+    @Test
+    public void test_deleteIsChunked() throws IOException {
+        client.respond(request -> {
+            JsonArray response = new JsonArray();
+            for (JsonElement ignored : body(request)) {
+                JsonObject info = new JsonObject();
+                info.addProperty("info", "Сущность удалена");
+                response.add(info);
+            }
+            return StubHttpClient.response(200, response.toString());
+        });
+        List<Counterparty> entities = counterparties(3);
+        for (int i = 0; i < entities.size(); i++) entities.get(i).setId(String.valueOf(i));
+
+        BulkResult<MassDeleteResponse> result = api.entity().counterparty().deleteBulk(entities, 2, Long.MAX_VALUE);
+
+        assertEquals(2, client.getRequests().size());
+        assertTrue(client.getLastRequest().getRequestLine().getUri().endsWith("/entity/counterparty/delete"));
+        assertEquals("Сущность удалена", result.getResults().get(2).getInfo());
+    }
+
+    private static List<Counterparty> counterparties(int count) {
+        List<Counterparty> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Counterparty counterparty = new Counterparty();
+            counterparty.setName("ООО Ромашка " + i);
+            entities.add(counterparty);
+        }
+        return entities;
+    }
+
+    private static JsonArray body(HttpRequest request) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((HttpEntityEnclosingRequest) request).getEntity().writeTo(out);
+        return new JsonParser().parse(new String(out.toByteArray(), StandardCharsets.UTF_8)).getAsJsonArray();
+    }
+
+    /**
+     * Возвращает сущности из запроса, заменяя сущность с указанным именем на ошибку
+     */
+    private static JsonArray echo(HttpRequest request, String invalidName) throws IOException {
+        JsonArray response = new JsonArray();
+        for (JsonElement element : body(request)) {
+            if (element.getAsJsonObject().get("name").getAsString().equals(invalidName)) {
+                response.add(new JsonParser().parse("{\"errors\":[{\"error\":\"Ошибка сохранения объекта\",\"code\":3000}]}"));
+            } else {
+                response.add(element);
+            }
+        }
+        return response;
+    }
+
+    private static void sleepRandomly() {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(1, 10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
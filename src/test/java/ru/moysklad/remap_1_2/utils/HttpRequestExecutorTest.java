@@ -0,0 +1,314 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.ExportRequest;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class HttpRequestExecutorTest {
+    private StubHttpClient client;
+    private ApiClient api;
+
+    @Before
+    public void init() {
+        client = new StubHttpClient();
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client);
+    }
+
+    @Test
+    public void test_listIsDecodedFromResponseStream() throws IOException, ApiClientException {
+        client.respond(request -> StubHttpClient.response(200,
+                "{\"meta\":{\"size\":2,\"limit\":1000,\"offset\":0}," +
+                        "\"rows\":[" +
+                        "{\"meta\":{\"type\":\"counterparty\"},\"id\":\"1\",\"name\":\"ООО Первый\"}," +
+                        "{\"meta\":{\"type\":\"counterparty\"},\"id\":\"2\",\"name\":\"ООО Второй\"}" +
+                        "]}"
+        ));
+
+        ListEntity<Counterparty> list = HttpRequestExecutor.path(api, "/entity/counterparty").list(Counterparty.class);
+
+        assertEquals(Integer.valueOf(2), list.getMeta().getSize());
+        assertEquals(2, list.getRows().size());
+        assertEquals("1", list.getRows().get(0).getId());
+        assertEquals("ООО Второй", list.getRows().get(1).getName());
+    }
+
+    @Test
+    public void test_errorBodyIsDecodedToErrorResponse() throws IOException {
+        client.respond(request -> StubHttpClient.response(412,
+                "{\"errors\":[{\"error\":\"Ошибка сохранения объекта\",\"code\":3004}]}"
+        ));
+
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty").get(Counterparty.class);
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(412, e.getStatusCode());
+            assertEquals(1, e.getErrorResponse().getErrors().size());
+            assertEquals(Integer.valueOf(3004), e.getErrorResponse().getErrors().get(0).getCode());
+        }
+    }
+
+    @Test
+    public void test_noContentResponseIsNull() throws IOException, ApiClientException {
+        client.respond(request -> StubHttpClient.response(204, (String) null));
+
+        assertNull(HttpRequestExecutor.path(api, "/entity/counterparty/1").put(Counterparty.class));
+    }
+
+    @Test
+    public void test_smallBodyIsNotCompressed() throws IOException, ApiClientException {
+        api.compression().compressionThreshold(1024);
+
+        HttpRequestExecutor.path(api, "/entity/counterparty").body(new Counterparty()).post();
+
+        HttpEntityEnclosingRequest request = (HttpEntityEnclosingRequest) client.getLastRequest();
+        assertNull(request.getEntity().getContentEncoding());
+        assertEquals("gzip", request.getFirstHeader("Accept-Encoding").getValue());
+        assertEquals("{}", new String(client.getLastRequestBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_largeBodyIsCompressed() throws IOException, ApiClientException {
+        api.compression().compressionThreshold(1024);
+        List<Counterparty> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Counterparty counterparty = new Counterparty();
+            counterparty.setName("ООО Ромашка " + i);
+            entities.add(counterparty);
+        }
+
+        HttpRequestExecutor.path(api, "/entity/counterparty").body(entities).post();
+
+        HttpEntityEnclosingRequest request = (HttpEntityEnclosingRequest) client.getLastRequest();
+        assertEquals("gzip", request.getEntity().getContentEncoding().getValue());
+        byte[] compressed = client.getLastRequestBody();
+        String json = IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8);
+        assertEquals(api.getGson().toJson(entities), json);
+        assertTrue(compressed.length < json.getBytes(StandardCharsets.UTF_8).length / 4);
+    }
+
+    @Test
+    public void test_compressionIsOffByDefault() throws IOException, ApiClientException {
+        HttpRequestExecutor.path(api, "/entity/counterparty").body(new Counterparty()).post();
+
+        assertNull(client.getLastRequest().getFirstHeader("Accept-Encoding"));
+        assertNull(((HttpEntityEnclosingRequest) client.getLastRequest()).getEntity().getContentEncoding());
+    }
+
+    @Test
+    public void test_gzipResponseIsDecoded() throws IOException, ApiClientException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write("{\"id\":\"1\",\"name\":\"ООО Ромашка\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        client.respond(request -> {
+            CloseableHttpResponse response = StubHttpClient.response(200, out.toByteArray(), ContentType.APPLICATION_JSON);
+            ((ByteArrayEntity) response.getEntity()).setContentEncoding("gzip");
+            return response;
+        });
+
+        assertEquals("ООО Ромашка", HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class).getName());
+    }
+
+    @Test
+    public void test_responseIsStreamedToFile() throws IOException, ApiClientException {
+        byte[] content = content(200_000);
+        client.respond(request -> StubHttpClient.response(200, content, ContentType.APPLICATION_OCTET_STREAM));
+
+        File file = Files.createTempFile("export", ".pdf").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), content(300_000));
+
+        HttpRequestExecutor.path(api, "/entity/demand/1/export/").body(new ExportRequest()).postAndSaveTo(file);
+
+        // Файл перезаписывается целиком, а не дописывается
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void test_responseIsStreamedToOutputStreamAndChannel() throws IOException, ApiClientException {
+        byte[] content = content(100_000);
+        client.respond(request -> StubHttpClient.response(200, content, ContentType.APPLICATION_OCTET_STREAM));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, HttpRequestExecutor.path(api, "/entity/demand/1/export/").body(new ExportRequest()).postAndWriteTo(out));
+        assertArrayEquals(content, out.toByteArray());
+
+        ByteArrayOutputStream channelOut = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(channelOut)) {
+            assertEquals(content.length, HttpRequestExecutor.path(api, "/entity/demand/1/export/").body(new ExportRequest()).postAndWriteTo(channel));
+        }
+        assertArrayEquals(content, channelOut.toByteArray());
+    }
+
+    @Test
+    public void test_exportErrorIsNotWrittenToStream() throws IOException {
+        client.respond(request -> StubHttpClient.response(400,
+                "{\"errors\":[{\"error\":\"Шаблон не найден\",\"code\":3006}]}"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            HttpRequestExecutor.path(api, "/entity/demand/1/export/").body(new ExportRequest()).postAndWriteTo(out);
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(400, e.getStatusCode());
+            assertEquals("Шаблон не найден", e.getErrorResponse().getErrors().get(0).getError());
+        }
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void test_collectionBodyKeepsContentLength() throws IOException, ApiClientException {
+        List<Counterparty> entities = counterparties(2);
+
+        HttpRequestExecutor.path(api, "/entity/counterparty").body(entities).post();
+
+        HttpEntityEnclosingRequest request = (HttpEntityEnclosingRequest) client.getLastRequest();
+        assertFalse(request.getEntity().isChunked());
+        assertEquals(client.getLastRequestBody().length, request.getEntity().getContentLength());
+    }
+
+    @Test
+    public void test_massOperationBodyIsStreamed() throws IOException, ApiClientException {
+        client.respond(request -> StubHttpClient.response(200, "[]"));
+        List<Counterparty> entities = counterparties(50);
+
+        api.entity().counterparty().createOrUpdate(entities);
+
+        HttpEntityEnclosingRequest request = (HttpEntityEnclosingRequest) client.getLastRequest();
+        assertTrue(request.getEntity() instanceof JsonStreamEntity);
+        assertTrue(request.getEntity().isChunked());
+        assertTrue(request.getEntity().isRepeatable());
+        assertEquals(api.getGson().toJson(entities), new String(client.getLastRequestBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_iteratorBodyIsConsumedOnceAndNotRetried() throws IOException {
+        api.rateLimiter(RateLimiter.unlimited()).retryPolicy(new RetryPolicy().retryPost(true));
+        client.respond(request -> StubHttpClient.response(503, "<html><body>503 Service Unavailable</body></html>"));
+
+        List<Counterparty> entities = counterparties(3);
+        try {
+            api.entity().counterparty().createOrUpdate(entities.iterator());
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(503, e.getStatusCode());
+        }
+
+        assertEquals(1, client.getRequests().size());
+        assertFalse(((HttpEntityEnclosingRequest) client.getLastRequest()).getEntity().isRepeatable());
+        assertEquals(api.getGson().toJson(entities), new String(client.getLastRequestBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test_networkErrorInsideBodyIsRetried() throws IOException, ApiClientException {
+        api.retryPolicy(new RetryPolicy().delay(1, 5, TimeUnit.MILLISECONDS));
+        byte[] head = "{\"id\":\"1\",\"name\":\"ООО".getBytes(StandardCharsets.UTF_8);
+        AtomicInteger calls = new AtomicInteger();
+        client.respond(request -> {
+            if (calls.getAndIncrement() > 0) return StubHttpClient.response(200, "{\"id\":\"1\",\"name\":\"ООО Ромашка\"}");
+
+            // Тело обрывается таймаутом чтения после первых байт
+            InputStream broken = new SequenceInputStream(new ByteArrayInputStream(head), new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new SocketTimeoutException("Read timed out");
+                }
+            });
+            CloseableHttpResponse response = StubHttpClient.response(200, (String) null);
+            response.setEntity(new InputStreamEntity(broken, -1, ContentType.APPLICATION_JSON));
+            return response;
+        });
+
+        Counterparty counterparty = HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+
+        assertEquals("ООО Ромашка", counterparty.getName());
+        assertEquals(2, client.getRequests().size());
+    }
+
+    @Test
+    public void test_networkErrorInsideBodyIsIOException() throws ApiClientException {
+        api.retryPolicy(RetryPolicy.none());
+        client.respond(request -> {
+            CloseableHttpResponse response = StubHttpClient.response(200, (String) null);
+            response.setEntity(new InputStreamEntity(new SequenceInputStream(
+                    new ByteArrayInputStream("{\"id\":".getBytes(StandardCharsets.UTF_8)),
+                    new InputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            throw new SocketTimeoutException("Read timed out");
+                        }
+                    }
+            ), -1, ContentType.APPLICATION_JSON));
+            return response;
+        });
+
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+            fail("Ожидалось исключение SocketTimeoutException");
+        } catch (IOException e) {
+            assertTrue(e instanceof SocketTimeoutException);
+        }
+    }
+
+    @Test
+    public void test_iteratorIsSerializedLazily() throws IOException, ApiClientException {
+        client.respond(request -> StubHttpClient.response(200, "[{\"id\":\"1\"},{\"id\":\"2\"}]"));
+        List<Counterparty> entities = counterparties(2);
+        Iterator<Counterparty> source = entities.iterator();
+
+        HttpRequestExecutor executor = HttpRequestExecutor.path(api, "/entity/counterparty").body(source);
+        assertTrue(source.hasNext());
+
+        List<Counterparty> created = executor.postList(Counterparty.class);
+        assertFalse(source.hasNext());
+        assertEquals(2, created.size());
+        assertEquals("2", created.get(1).getId());
+    }
+
+    private static List<Counterparty> counterparties(int count) {
+        List<Counterparty> entities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Counterparty counterparty = new Counterparty();
+            counterparty.setName("ООО Ромашка " + i);
+            entities.add(counterparty);
+        }
+        return entities;
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) content[i] = (byte) (i * 31);
+        return content;
+    }
+}
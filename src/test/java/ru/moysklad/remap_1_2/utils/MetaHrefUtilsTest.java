@@ -0,0 +1,76 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.junit.Test;
+import ru.moysklad.remap_1_2.entities.Attribute;
+import ru.moysklad.remap_1_2.entities.agents.Employee;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MetaHrefUtilsTest {
+    private static final String HOST = "https://online.moysklad.ru/api/remap/1.2";
+
+    @Test
+    public void test_fillMetaFillsEntityAndReferences() {
+        CustomerOrder order = new CustomerOrder();
+        order.setId("1");
+        Counterparty agent = new Counterparty();
+        agent.setId("2");
+        order.setAgent(agent);
+        Employee owner = new Employee();
+        owner.setId("3");
+        order.setOwner(owner);
+        Attribute attribute = new Attribute();
+        attribute.setId("4");
+        order.setAttributes(Arrays.asList(attribute, new Attribute()));
+
+        MetaHrefUtils.fillMeta(order, HOST);
+
+        assertEquals(HOST + "/entity/customerorder/1", order.getMeta().getHref());
+        assertEquals(HOST + "/entity/counterparty/2", agent.getMeta().getHref());
+        // Поле суперкласса DocumentEntity
+        assertEquals(HOST + "/entity/employee/3", owner.getMeta().getHref());
+        assertEquals(Meta.Type.ATTRIBUTE_METADATA, attribute.getMeta().getType());
+        assertNull(order.getAttributes().get(1).getMeta());
+    }
+
+    @Test
+    public void test_fillMetaKeepsExistingMeta() {
+        Meta meta = new Meta();
+        meta.setHref("https://example.com/counterparty/2");
+        Counterparty agent = new Counterparty();
+        agent.setId("2");
+        agent.setMeta(meta);
+        Counterparty withoutId = new Counterparty();
+        CustomerOrder order = new CustomerOrder();
+        order.setAgent(agent);
+        order.setOrganization(null);
+
+        MetaHrefUtils.fillMeta(order, HOST);
+        MetaHrefUtils.fillMeta(withoutId, HOST);
+
+        assertNull(order.getMeta());
+        assertSame(meta, agent.getMeta());
+        assertNull(withoutId.getMeta());
+    }
+
+    @Test
+    public void test_getIdFromHref() {
+        assertEquals("2", MetaHrefUtils.getIdFromHref(HOST + "/entity/counterparty/2").get());
+        assertEquals("2", MetaHrefUtils.getIdFromHref(HOST + "/entity/counterparty/2/").get());
+        assertEquals("2", MetaHrefUtils.getIdFromHref("2").get());
+        assertFalse(MetaHrefUtils.getIdFromHref("/").isPresent());
+    }
+
+    @Test
+    public void test_hrefHasId() {
+        assertTrue(MetaHrefUtils.hrefHasId(HOST + "/entity/counterparty/2", "2"));
+        assertTrue(MetaHrefUtils.hrefHasId(HOST + "/entity/counterparty/2/", "2"));
+        assertFalse(MetaHrefUtils.hrefHasId(HOST + "/entity/counterparty/12", "2"));
+        assertFalse(MetaHrefUtils.hrefHasId(HOST + "/entity/counterparty/2", "counterparty/2"));
+    }
+}
@@ -0,0 +1,133 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.products.Product;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+import static ru.moysklad.remap_1_2.utils.params.ExpandParam.expand;
+import static ru.moysklad.remap_1_2.utils.params.LimitParam.limit;
+import static ru.moysklad.remap_1_2.utils.params.OffsetParam.offset;
+
+public class PageSpliteratorTest {
+    private static final int TOTAL = 10500;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private StubHttpClient client;
+    private ApiClient api;
+
+    @Before
+    public void init() {
+        client = new StubHttpClient().respond(this::page);
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client);
+    }
+
+    @Test
+    public void test_parallelStreamKeepsOrder() {
+        List<String> ids = api.entity().product().parallelStream().map(Product::getId).collect(Collectors.toList());
+
+        assertEquals(IntStream.range(0, TOTAL).mapToObj(String::valueOf).collect(Collectors.toList()), ids);
+        assertEquals(11, client.getRequests().size());
+    }
+
+    @Test
+    public void test_parallelismLimitsConcurrentRequests() {
+        long count = api.entity().product().parallelStream(2, expand("supplier")).count();
+
+        assertEquals(TOTAL, count);
+        assertEquals(TOTAL / 100, client.getRequests().size());
+        assertTrue(maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void test_splitsByPageRanges() {
+        PageSpliterator<Product> spliterator = new PageSpliterator<>(
+                (offset, limit) -> HttpRequestExecutor.path(api, "/entity/product")
+                        .apiParams(offset(offset), limit(limit))
+                        .list(Product.class),
+                0, 1000, 1
+        );
+
+        assertEquals(TOTAL, spliterator.estimateSize());
+        assertEquals(1, client.getRequests().size());
+
+        Spliterator<Product> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(6000, prefix.estimateSize());
+        assertEquals(TOTAL - 6000, spliterator.estimateSize());
+        assertEquals(1, client.getRequests().size());
+
+        assertEquals("6000", StreamSupport.stream(spliterator, false).findFirst().get().getId());
+        assertEquals("0", StreamSupport.stream(prefix, false).findFirst().get().getId());
+    }
+
+    @Test
+    public void test_readsUntilIncompletePageWithoutSize() {
+        client.respond(request -> {
+            Map<String, String> query = query(request);
+            int offset = Integer.parseInt(query.get("offset"));
+            return StubHttpClient.response(200, "{\"meta\":{\"limit\":1000,\"offset\":" + offset + "}," +
+                    "\"rows\":[" + rows(offset, Math.min(offset + 1000, 2500)) + "]}");
+        });
+
+        PageSpliterator<Product> spliterator = PageSpliterator.of(api, "/entity/product", Product.class, 3);
+
+        assertNull(spliterator.trySplit());
+        assertEquals(2500, StreamSupport.stream(spliterator, true).count());
+        assertEquals(3, client.getRequests().size());
+    }
+
+    private CloseableHttpResponse page(HttpRequest request) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        Map<String, String> query = query(request);
+        int offset = Integer.parseInt(query.get("offset"));
+        int limit = Integer.parseInt(query.get("limit"));
+
+        return StubHttpClient.response(200,
+                "{\"meta\":{\"size\":" + TOTAL + ",\"limit\":" + limit + ",\"offset\":" + offset + "}," +
+                        "\"rows\":[" + rows(offset, Math.min(offset + limit, TOTAL)) + "]}"
+        );
+    }
+
+    private static String rows(int from, int to) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (rows.length() > 0) rows.append(',');
+            rows.append("{\"meta\":{\"type\":\"product\"},\"id\":\"").append(i).append("\"}");
+        }
+        return rows.toString();
+    }
+
+    private static Map<String, String> query(HttpRequest request) {
+        Map<String, String> query = new HashMap<>();
+        for (NameValuePair pair : URLEncodedUtils.parse(((HttpUriRequest) request).getURI(), StandardCharsets.UTF_8)) {
+            query.put(pair.getName(), pair.getValue());
+        }
+        return query;
+    }
+}
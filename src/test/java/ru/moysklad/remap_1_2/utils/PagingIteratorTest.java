@@ -0,0 +1,186 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.products.Product;
+import ru.moysklad.remap_1_2.entities.views.ProductView;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+import ru.moysklad.remap_1_2.responses.ViewListEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static ru.moysklad.remap_1_2.utils.params.ExpandParam.expand;
+import static ru.moysklad.remap_1_2.utils.params.FilterParam.filterEq;
+import static ru.moysklad.remap_1_2.utils.params.LimitParam.limit;
+import static ru.moysklad.remap_1_2.utils.params.OffsetParam.offset;
+
+public class PagingIteratorTest {
+    private static final int TOTAL = 2500;
+
+    private StubHttpClient client;
+    private ApiClient api;
+
+    @Before
+    public void init() {
+        client = new StubHttpClient().respond(PagingIteratorTest::page);
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client);
+    }
+
+    @Test
+    public void test_iteratesAllRowsWithMaxLimit() {
+        List<String> ids = new ArrayList<>();
+        for (Product product : api.entity().product().iterate()) {
+            ids.add(product.getId());
+        }
+
+        assertEquals(TOTAL, ids.size());
+        assertEquals("0", ids.get(0));
+        assertEquals(String.valueOf(TOTAL - 1), ids.get(TOTAL - 1));
+
+        List<Map<String, String>> queries = queries();
+        assertEquals(3, queries.size());
+        for (Map<String, String> query : queries) {
+            assertEquals("1000", query.get("limit"));
+        }
+    }
+
+    @Test
+    public void test_expandLimitsPageSizeAndKeepsParams() {
+        long count = api.entity().product().stream(expand("supplier"), filterEq("archived", "false"), offset(2300)).count();
+
+        assertEquals(TOTAL - 2300, count);
+
+        List<Map<String, String>> queries = queries();
+        assertEquals(2, queries.size());
+        assertEquals("100", queries.get(0).get("limit"));
+        assertEquals("2300", queries.get(0).get("offset"));
+        assertEquals("2400", queries.get(1).get("offset"));
+        assertEquals("supplier", queries.get(0).get("expand"));
+        assertEquals("archived=false", queries.get(0).get("filter"));
+    }
+
+    @Test
+    public void test_pagesAreLoadedLazily() {
+        Iterator<Product> iterator = api.entity().product().iterate().iterator();
+        assertTrue(client.getRequests().isEmpty());
+
+        assertTrue(iterator.hasNext());
+        assertEquals("0", iterator.next().getId());
+        assertFalse(client.getRequests().isEmpty());
+    }
+
+    @Test
+    public void test_busyExecutorDoesNotBlockIteration() {
+        // Пул, который никогда не выполняет задачи: следующая страница загружается в текущем потоке
+        api.executor(task -> {});
+
+        assertEquals(TOTAL, api.entity().product().stream().count());
+        assertEquals(3, queries().size());
+    }
+
+    @Test
+    public void test_closeAbortsPrefetch() throws Exception {
+        CountDownLatch prefetchStarted = new CountDownLatch(1);
+        CountDownLatch prefetchInterrupted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PagingIterator<Product> iterator = new PagingIterator<>((offset, limit) -> {
+                ListEntity<Product> page = new ListEntity<>();
+                page.setRows(Collections.singletonList(new Product()));
+                if (offset == 0) return page;
+
+                prefetchStarted.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    prefetchInterrupted.countDown();
+                }
+                return page;
+            }, 0, 1, executor);
+
+            assertTrue(iterator.hasNext());
+            iterator.next();
+            assertTrue(prefetchStarted.await(5, TimeUnit.SECONDS));
+
+            iterator.close();
+
+            assertTrue(prefetchInterrupted.await(5, TimeUnit.SECONDS));
+            assertFalse(iterator.hasNext());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_viewsAreReadPageByPage() throws Exception {
+        ViewListEntity<ProductView> first = api.entity().product().getViews(EnumSet.of(ProductView.Field.ID), offset(0), limit(1000));
+        assertEquals(1000, first.getRows().size());
+        assertEquals(Integer.valueOf(TOTAL), first.getMeta().getSize());
+
+        List<String> ids = new ArrayList<>();
+        int count = api.entity().product().forEachView(EnumSet.of(ProductView.Field.ID), p -> ids.add(p.getId()), offset(500));
+
+        assertEquals(TOTAL - 500, count);
+        assertEquals("500", ids.get(0));
+        assertEquals(String.valueOf(TOTAL - 1), ids.get(ids.size() - 1));
+        // Первая страница и две страницы, начиная с отступа 500
+        assertEquals(3, queries().size());
+    }
+
+    @Test
+    public void test_errorIsRethrownUnchecked() {
+        client.respond(request -> StubHttpClient.response(500, "{\"errors\":[{\"error\":\"Внутренняя ошибка\",\"code\":1000}]}"));
+
+        try {
+            api.entity().product().stream().count();
+            fail("Ожидалось исключение UncheckedApiClientException");
+        } catch (UncheckedApiClientException e) {
+            assertEquals(500, e.getCause().getStatusCode());
+        }
+    }
+
+    private List<Map<String, String>> queries() {
+        return client.getRequests().stream()
+                .map(PagingIteratorTest::query)
+                .sorted(Comparator.comparing(q -> Integer.valueOf(q.get("offset"))))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, String> query(HttpRequest request) {
+        Map<String, String> query = new HashMap<>();
+        for (NameValuePair pair : URLEncodedUtils.parse(((HttpUriRequest) request).getURI(), StandardCharsets.UTF_8)) {
+            query.put(pair.getName(), pair.getValue());
+        }
+        return query;
+    }
+
+    private static CloseableHttpResponse page(HttpRequest request) {
+        Map<String, String> query = query(request);
+        int offset = Integer.parseInt(query.get("offset"));
+        int limit = Integer.parseInt(query.get("limit"));
+
+        StringBuilder rows = new StringBuilder();
+        for (int i = offset; i < Math.min(offset + limit, TOTAL); i++) {
+            if (rows.length() > 0) rows.append(',');
+            rows.append("{\"meta\":{\"type\":\"product\"},\"id\":\"").append(i).append("\"}");
+        }
+
+        return StubHttpClient.response(200,
+                "{\"meta\":{\"size\":" + TOTAL + ",\"limit\":" + limit + ",\"offset\":" + offset + "}," +
+                        "\"rows\":[" + rows + "]}"
+        );
+    }
+}
@@ -0,0 +1,147 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.entities.agents.Counterparty;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+    private static final String UNAVAILABLE = "<html><body>503 Service Unavailable</body></html>";
+
+    private StubHttpClient client;
+    private ApiClient api;
+
+    @Before
+    public void init() {
+        client = new StubHttpClient();
+        api = new ApiClient("test.moysklad", true, "[API_LOGIN]", "[API_PASSWORD]", client)
+                .rateLimiter(RateLimiter.unlimited())
+                .retryPolicy(new RetryPolicy().delay(1, 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void test_getIsRetriedAfterTransientError() throws IOException, ApiClientException {
+        failFirst(2, 503);
+
+        Counterparty counterparty = HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+
+        assertEquals("1", counterparty.getId());
+        assertEquals(3, client.getRequests().size());
+    }
+
+    @Test
+    public void test_postIsRetriedOnlyWhenEnabled() throws IOException, ApiClientException {
+        failFirst(1, 502);
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty").body(new Counterparty()).post(Counterparty.class);
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(502, e.getStatusCode());
+            assertNull(e.getErrorResponse());
+        }
+        assertEquals(1, client.getRequests().size());
+
+        api.getRetryPolicy().retryPost(true);
+        client = new StubHttpClient();
+        api.setHttpClient(client);
+        failFirst(1, 502);
+
+        assertEquals("1", HttpRequestExecutor.path(api, "/entity/counterparty").body(new Counterparty()).post(Counterparty.class).getId());
+        assertEquals(2, client.getRequests().size());
+        assertArrayEquals(client.getRequestBodies().get(0), client.getRequestBodies().get(1));
+    }
+
+    @Test
+    public void test_nonRetryableStatusIsThrownImmediately() throws IOException {
+        failFirst(1, 400);
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(400, e.getStatusCode());
+        }
+        assertEquals(1, client.getRequests().size());
+    }
+
+    @Test
+    public void test_attemptsAreLimited() throws IOException {
+        api.retryPolicy(new RetryPolicy().delay(1, 5, TimeUnit.MILLISECONDS).maxAttempts(3));
+        failFirst(10, 504);
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty/1").delete();
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(504, e.getStatusCode());
+        }
+        assertEquals(3, client.getRequests().size());
+    }
+
+    @Test
+    public void test_retryAfterHintIsHonoured() throws IOException, ApiClientException {
+        AtomicInteger calls = new AtomicInteger();
+        client.respond(request -> calls.getAndIncrement() == 0 ?
+                StubHttpClient.response(429, "{\"errors\":[{\"error\":\"Превышено ограничение\",\"code\":1049}]}", "X-Lognex-Retry-After", "100") :
+                StubHttpClient.response(200, "{\"id\":\"1\"}"));
+
+        long start = System.nanoTime();
+        HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+        assertEquals(2, client.getRequests().size());
+    }
+
+    @Test
+    public void test_deadlineStopsRetries() throws IOException {
+        api.retryPolicy(new RetryPolicy().deadline(50, TimeUnit.MILLISECONDS));
+        client.respond(request -> StubHttpClient.response(429, "{\"errors\":[]}", "X-Lognex-Retry-After", "1000"));
+        try {
+            HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class);
+            fail("Ожидалось исключение ApiClientException");
+        } catch (ApiClientException e) {
+            assertEquals(429, e.getStatusCode());
+        }
+        assertEquals(1, client.getRequests().size());
+    }
+
+    @Test
+    public void test_timeoutIsRetried() throws IOException, ApiClientException {
+        AtomicInteger calls = new AtomicInteger();
+        client.respond(request -> {
+            if (calls.getAndIncrement() == 0) throw new SocketTimeoutException("Read timed out");
+            return StubHttpClient.response(200, "{\"id\":\"1\"}");
+        });
+
+        assertEquals("1", HttpRequestExecutor.path(api, "/entity/counterparty/1").get(Counterparty.class).getId());
+        assertEquals(2, client.getRequests().size());
+    }
+
+    @Test
+    public void test_backoffGrowsUpToMaxDelay() {
+        RetryPolicy policy = new RetryPolicy().delay(100, 1000, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < 20; i++) {
+            long first = policy.backoffMillis(1);
+            assertTrue(first >= 50 && first <= 100);
+
+            long third = policy.backoffMillis(3);
+            assertTrue(third >= 200 && third <= 400);
+
+            long tenth = policy.backoffMillis(10);
+            assertTrue(tenth >= 500 && tenth <= 1000);
+        }
+    }
+
+    private void failFirst(int failures, int statusCode) {
+        AtomicInteger calls = new AtomicInteger();
+        client.respond(request -> calls.getAndIncrement() < failures ?
+                StubHttpClient.response(statusCode, statusCode == 400 ? "{\"errors\":[{\"error\":\"Ошибка\",\"code\":1}]}" : UNAVAILABLE) :
+                StubHttpClient.response(200, "{\"id\":\"1\"}"));
+    }
+}
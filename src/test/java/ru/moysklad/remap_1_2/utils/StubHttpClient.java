@@ -0,0 +1,119 @@
+package ru.moysklad.remap_1_2.utils;
+
+import org.apache.http.*;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP-клиент для тестов, который отвечает на запросы заданным обработчиком и запоминает
+ * выполненные запросы вместе с телами
+ */
+public class StubHttpClient extends CloseableHttpClient {
+    private final List<HttpRequest> requests = new ArrayList<>();
+    private final List<byte[]> requestBodies = new ArrayList<>();
+    private volatile Handler handler = request -> response(200, "{}");
+
+    public StubHttpClient respond(Handler handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    /**
+     * Ответ, тело которого читается из потока и не может быть прочитано повторно
+     */
+    public static CloseableHttpResponse response(int statusCode, String body, String... headers) {
+        StubResponse response = new StubResponse(statusCode);
+        if (body != null) {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            response.setEntity(new InputStreamEntity(new ByteArrayInputStream(bytes), bytes.length, ContentType.APPLICATION_JSON));
+        }
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            response.addHeader(headers[i], headers[i + 1]);
+        }
+        return response;
+    }
+
+    public static CloseableHttpResponse response(int statusCode, byte[] body, ContentType contentType) {
+        StubResponse response = new StubResponse(statusCode);
+        response.setEntity(new ByteArrayEntity(body, contentType));
+        return response;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(HttpHost httpHost, HttpRequest httpRequest, HttpContext httpContext) throws IOException, ClientProtocolException {
+        byte[] body = null;
+        if (httpRequest instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) httpRequest).getEntity() != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ((HttpEntityEnclosingRequest) httpRequest).getEntity().writeTo(out);
+            body = out.toByteArray();
+        }
+
+        synchronized (this) {
+            requests.add(httpRequest);
+            requestBodies.add(body);
+        }
+
+        return handler.handle(httpRequest);
+    }
+
+    public synchronized List<HttpRequest> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    public synchronized HttpRequest getLastRequest() {
+        return requests.isEmpty() ? null : requests.get(requests.size() - 1);
+    }
+
+    public synchronized byte[] getLastRequestBody() {
+        return requestBodies.isEmpty() ? null : requestBodies.get(requestBodies.size() - 1);
+    }
+
+    public synchronized List<byte[]> getRequestBodies() {
+        return new ArrayList<>(requestBodies);
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    @Override
+    public HttpParams getParams() {
+        return null;
+    }
+
+    @Override
+    public ClientConnectionManager getConnectionManager() {
+        return null;
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        CloseableHttpResponse handle(HttpRequest request) throws IOException;
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+        StubResponse(int statusCode) {
+            super(HttpVersion.HTTP_1_1, statusCode, EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, null));
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
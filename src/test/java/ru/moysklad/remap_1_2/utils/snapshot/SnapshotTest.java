@@ -0,0 +1,188 @@
+package ru.moysklad.remap_1_2.utils.snapshot;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import ru.moysklad.remap_1_2.ApiClient;
+import ru.moysklad.remap_1_2.benchmarks.BenchmarkFixtures;
+import ru.moysklad.remap_1_2.entities.Meta;
+import ru.moysklad.remap_1_2.entities.documents.CustomerOrder;
+import ru.moysklad.remap_1_2.responses.ListEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SnapshotTest {
+    private final Gson gson = ApiClient.createGson(false);
+    private final ListEntity<CustomerOrder> page = gson.fromJson(
+            BenchmarkFixtures.customerOrderPage(20, 5),
+            new TypeToken<ListEntity<CustomerOrder>>() {}.getType()
+    );
+
+    @Test
+    public void test_pageRoundTrip() throws IOException {
+        byte[] snapshot = write(page);
+
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(snapshot))) {
+            ListEntity<?> actual = reader.read(ListEntity.class);
+            assertFalse(reader.hasNext());
+            assertEquals(gson.toJson(page), gson.toJson(actual));
+        }
+    }
+
+    @Test
+    public void test_rowsAreStreamed() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out)) {
+            writer.writeAll(page.getRows());
+        }
+
+        List<CustomerOrder> rows = new ArrayList<>();
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(out.toByteArray()))) {
+            Iterator<CustomerOrder> it = reader.iterator(CustomerOrder.class);
+            while (it.hasNext()) rows.add(it.next());
+        }
+
+        assertEquals(page.getRows().size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(gson.toJson(page.getRows().get(i)), gson.toJson(rows.get(i)));
+        }
+    }
+
+    @Test
+    public void test_metaIsRestored() throws IOException {
+        Meta meta = page.getRows().get(0).getMeta();
+        Meta actual = (Meta) read(write(meta));
+
+        assertEquals(meta.getHref(), actual.getHref());
+        assertEquals(meta.getMetadataHref(), actual.getMetadataHref());
+        assertEquals(meta.getType(), actual.getType());
+        assertEquals(meta.getMediaType(), actual.getMediaType());
+        assertEquals(meta.getUuidHref(), actual.getUuidHref());
+
+        Meta custom = new Meta();
+        custom.setHref("https://example.com/not-an-entity");
+        custom.setSize(-1);
+        actual = (Meta) read(write(custom));
+        assertEquals(custom.getHref(), actual.getHref());
+        assertEquals(Integer.valueOf(-1), actual.getSize());
+        assertNull(actual.getType());
+    }
+
+    @Test
+    public void test_snapshotIsSmallerThanJson() throws IOException {
+        int json = gson.toJson(page).getBytes(StandardCharsets.UTF_8).length;
+        int snapshot = write(page).length;
+        assertTrue("JSON: " + json + ", снимок: " + snapshot, snapshot * 3 < json);
+    }
+
+    @Test
+    public void test_unknownFieldsAreSkipped() throws IOException {
+        CustomerOrder order = page.getRows().get(0);
+        order.setDescription("Комментарий");
+        byte[] snapshot = write(order);
+
+        // Переименовываем поле в словаре снимка, как если бы его удалили из класса
+        String source = new String(snapshot, StandardCharsets.ISO_8859_1);
+        int at = source.indexOf("description");
+        assertTrue(at > 0);
+        snapshot[at] = 'D';
+
+        CustomerOrder actual = (CustomerOrder) read(snapshot);
+        assertNull(actual.getDescription());
+        assertEquals(order.getName(), actual.getName());
+        assertEquals(order.getPositions().getRows().size(), actual.getPositions().getRows().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void test_rejectsOtherFormats() throws IOException {
+        new SnapshotReader(new ByteArrayInputStream(gson.toJson(page).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_rejectsForeignClasses() throws IOException {
+        write(new StringBuilder("value"));
+    }
+
+    @Test
+    public void test_foreignClassesAreNotCreated() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SnapshotFormat.MAGIC);
+        out.write(SnapshotFormat.VERSION);
+        out.write(SnapshotFormat.OBJECT);
+        out.write(0);
+        writeUtf(out, "java.util.ArrayList");
+        out.write(1);
+        writeUtf(out, "size");
+        out.write(1);
+        out.write(SnapshotFormat.INT);
+        out.write(10);
+        out.write(0);
+
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertNull(reader.read());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void test_rejectsHugeSizes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SnapshotFormat.MAGIC);
+        out.write(SnapshotFormat.VERSION);
+        out.write(SnapshotFormat.STRING);
+        // Длина 2^35 в виде varint
+        out.write(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x7F});
+
+        read(bytes.toByteArray());
+    }
+
+    @Test(expected = IOException.class)
+    public void test_rejectsCorruptedFieldNumbers() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SnapshotFormat.MAGIC);
+        out.write(SnapshotFormat.VERSION);
+        out.write(SnapshotFormat.OBJECT);
+        out.write(0);
+        writeUtf(out, "ru.moysklad.remap_1_2.entities.agents.Counterparty");
+        out.write(1);
+        writeUtf(out, "name");
+        // Номер поля -1 в виде varint
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        out.write(SnapshotFormat.NULL);
+        out.write(0);
+
+        read(bytes.toByteArray());
+    }
+
+    private static void writeUtf(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] write(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out)) {
+            writer.write(value);
+        }
+        return out.toByteArray();
+    }
+
+    private static Object read(byte[] snapshot) throws IOException {
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(snapshot))) {
+            return reader.read();
+        }
+    }
+}